@@ -0,0 +1,90 @@
+package com.games.simpleminecraft;
+
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+// Fails (throws) if the steady-state frame or tick allocates on the heap. Runs the headless part
+// of a Game frame -- PlayerController with scripted mouse look, movement and mining/placing, the
+// simulation ticks it triggers, entities and fluids included -- until every buffer has grown to
+// size and the JIT has stopped compiling, then measures with ThreadMXBean.getThreadAllocatedBytes
+// that further frames allocate nothing, not a single byte in any window. Run by
+// `mvn -P allocation-check verify`.
+// Usage: AllocationCheck [warmupFrames=6000] [frames=3000] [entities=200]
+public class AllocationCheck {
+    private static final int WINDOWS = 6;
+    private static final int SETTLE = 2;
+    private static final int MAX_WINDOWS = 60;
+
+    public static void main(String[] args) {
+        int warmup = args.length > 0 ? Integer.parseInt(args[0]) : 6000;
+        int frames = args.length > 1 ? Integer.parseInt(args[1]) : 3000;
+        int entities = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threads.isThreadAllocatedMemorySupported()) throw new IllegalStateException("JVM can't report thread allocations");
+        threads.setThreadAllocatedMemoryEnabled(true);
+        long thread = Thread.currentThread().getId();
+
+        Simulation simulation = new Simulation(new World(), entities);
+        simulation.getEntities().getStore().spawnRandom(entities, new Random(42));
+        simulation.registerMetrics(new MetricsRegistry());
+        PlayerController player = new PlayerController(new Camera(1280, 720), simulation);
+        player.spawn();
+        int perWindow = Math.max(1, frames / WINDOWS);
+        ScriptedInput input = new ScriptedInput(warmup + MAX_WINDOWS * perWindow, new Random(5));
+        InputFrame frame = new InputFrame();
+        for (int i = 0; i < warmup; i++) step(input, frame, player, simulation);
+
+        // Compiling (and deoptimizing and recompiling) can allocate on this thread, e.g. strings
+        // when constants are re-resolved, and on a busy machine the compiler threads lag well
+        // behind the code they're compiling. So a window only counts once the JIT has been idle
+        // for it and the SETTLE windows before it; anything it allocates then fails the check.
+        CompilationMXBean jit = ManagementFactory.getCompilationMXBean();
+        if (jit == null || !jit.isCompilationTimeMonitoringSupported()) throw new IllegalStateException("JVM can't report compilation time");
+
+        // The query itself may allocate; measure it on its own and subtract.
+        long overhead = threads.getThreadAllocatedBytes(thread);
+        overhead = threads.getThreadAllocatedBytes(thread) - overhead;
+
+        long ticksBefore = simulation.getTickCount();
+        int quiet = 0, measured = 0, run = 0;
+        long total = 0;
+        StringBuilder detail = new StringBuilder();
+        while (measured < WINDOWS && total == 0) {
+            if (run++ == MAX_WINDOWS) {
+                throw new IllegalStateException("JIT still compiling after " + MAX_WINDOWS + " windows: " + detail);
+            }
+            if (measured == 0) ticksBefore = simulation.getTickCount();
+            long compiling = jit.getTotalCompilationTime();
+            long before = threads.getThreadAllocatedBytes(thread);
+            for (int i = 0; i < perWindow; i++) step(input, frame, player, simulation);
+            long allocated = Math.max(0, threads.getThreadAllocatedBytes(thread) - before - overhead);
+            boolean idle = jit.getTotalCompilationTime() == compiling;
+            quiet = idle ? quiet + 1 : 0;
+            boolean counts = quiet > SETTLE;
+            if (counts) {
+                measured++;
+                total += allocated;
+            } else {
+                measured = 0;
+            }
+            // Windows that don't count are bracketed, with the JIT's marked by a '*'.
+            detail.append(run == 1 ? "" : " ").append(counts ? "" : "[").append(allocated)
+                    .append(idle ? "" : "*").append(counts ? "" : "]");
+        }
+
+        System.out.printf("allocation check: %d frames in %d windows after the JIT settled, %d ticks, bytes per window: %s%n",
+                perWindow * measured, measured, simulation.getTickCount() - ticksBefore, detail);
+        if (total > 0) {
+            throw new IllegalStateException("Steady-state frames allocated " + total + " bytes ("
+                    + (double) total / (perWindow * measured) + " per frame), per window: " + detail);
+        }
+    }
+
+    private static void step(InputSource input, InputFrame frame, PlayerController player, Simulation simulation) {
+        if (!input.next(frame)) throw new IllegalStateException("Scripted input ran out");
+        player.update(frame, true);
+        simulation.getEdits().clear();
+    }
+}
@@ -0,0 +1,88 @@
+package com.games.simpleminecraft;
+
+import java.util.Arrays;
+
+// Fails (throws) if Mesher's ambient occlusion or quad split differs from hand-worked values on
+// a few fixed layouts, each built in its own empty world around a stone block at (8, 20, 8):
+//   - a lone block: every corner of every face open (3), split along 0-2;
+//   - an inside corner (walls west and north of the block, one level up): its top face reads
+//     0, 2, 3, 2 and splits along the brighter 1-3 diagonal;
+//   - a corridor (a floor strip between two walls running along z): every top corner sees one
+//     wall and the wall's diagonal block (1), split along 0-2.
+// AO levels are read back from the vertex colors (AO_CURVE scales the block color).
+// Usage: AoCheck
+public class AoCheck {
+    private static final int X = 8, Y = 20, Z = 8;
+    private static final int TOP = 4;
+
+    public static void main(String[] args) {
+        World lone = World.empty();
+        lone.setBlock(X, Y, Z, World.BlockType.STONE);
+        for (int f = 0; f < 6; f++) expect("lone block face " + f, lone, f, new int[] {3, 3, 3, 3}, false);
+        check(mesh(lone).opaque.vertexCount == 36, "lone block has " + mesh(lone).opaque.vertexCount + " vertices, expected 36");
+
+        World corner = World.empty();
+        corner.setBlock(X, Y, Z, World.BlockType.STONE);
+        corner.setBlock(X - 1, Y + 1, Z, World.BlockType.STONE);
+        corner.setBlock(X, Y + 1, Z - 1, World.BlockType.STONE);
+        expect("inside corner top", corner, TOP, new int[] {0, 2, 3, 2}, true);
+
+        World corridor = World.empty();
+        for (int z = Z - 1; z <= Z + 1; z++) {
+            corridor.setBlock(X, Y, z, World.BlockType.STONE);
+            corridor.setBlock(X - 1, Y + 1, z, World.BlockType.STONE);
+            corridor.setBlock(X + 1, Y + 1, z, World.BlockType.STONE);
+        }
+        expect("corridor floor top", corridor, TOP, new int[] {1, 1, 1, 1}, false);
+        System.out.println("AO levels and diagonal splits match on all layouts");
+    }
+
+    private static SectionMeshData mesh(World world) {
+        return new Mesher().build(world, X / World.SECTION_SIZE, Y / World.SECTION_SIZE, Z / World.SECTION_SIZE);
+    }
+
+    // Finds the block's `face` quad in the opaque mesh and compares its corners' AO levels (in
+    // Mesher.CORNERS order) and whether it was split along the 1-3 diagonal.
+    private static void expect(String what, World world, int face, int[] ao, boolean flipped) {
+        MeshData m = mesh(world).opaque;
+        int[][] corners = Mesher.CORNERS[face];
+        float[] colors = BlockRegistry.colors();
+        int c = BlockRegistry.colorOffset(World.BlockType.STONE.id());
+        for (int v = 0; v < m.vertexCount; v += 6) {
+            int[] at = new int[6];
+            boolean match = true;
+            for (int k = 0; k < 6 && match; k++) {
+                at[k] = cornerAt(m.positions, v + k, corners);
+                match = at[k] >= 0;
+            }
+            if (!match) continue;
+            int[] found = new int[4];
+            for (int k = 0; k < 6; k++) found[at[k]] = level(m.colors[(v + k) * 4] / colors[c]);
+            check(Arrays.equals(found, ao), what + ": AO " + Arrays.toString(found) + ", expected " + Arrays.toString(ao));
+            check((at[0] == 1) == flipped, what + ": split along " + (at[0] == 1 ? "1-3" : "0-2"));
+            System.out.printf("%s: AO %s, split along %s%n", what, Arrays.toString(found), flipped ? "1-3" : "0-2");
+            return;
+        }
+        throw new IllegalStateException("Check failed: " + what + ": face not in the mesh");
+    }
+
+    // Which of the face's corners vertex `v` sits on, or -1.
+    private static int cornerAt(float[] positions, int v, int[][] corners) {
+        for (int i = 0; i < 4; i++) {
+            if (positions[v * 3] == X + corners[i][0] && positions[v * 3 + 1] == Y + corners[i][1]
+                    && positions[v * 3 + 2] == Z + corners[i][2]) return i;
+        }
+        return -1;
+    }
+
+    private static int level(float shade) {
+        for (int i = 0; i < Mesher.AO_CURVE.length; i++) {
+            if (Math.abs(Mesher.AO_CURVE[i] - shade) < 1e-4f) return i;
+        }
+        throw new IllegalStateException("Check failed: shade " + shade + " is not on the AO curve");
+    }
+
+    private static void check(boolean ok, String what) {
+        if (!ok) throw new IllegalStateException("Check failed: " + what);
+    }
+}
@@ -0,0 +1,21 @@
+package com.games.simpleminecraft;
+
+// Optional per-block logic run by the BlockTickScheduler. Attach with
+// BlockRegistry.define(...).behavior(...); all methods default to doing nothing.
+public interface BlockBehavior {
+    // Sampled a few times per section per tick; only called if ticksRandomly() is true.
+    default void onRandomTick(Simulation sim, int x, int y, int z) {
+    }
+
+    // A tick scheduled with BlockTickScheduler.schedule has come due for this position.
+    default void onScheduledTick(Simulation sim, int x, int y, int z) {
+    }
+
+    // The block itself or one of its six neighbours changed through Simulation.setBlock.
+    default void onNeighborChanged(Simulation sim, int x, int y, int z) {
+    }
+
+    default boolean ticksRandomly() {
+        return false;
+    }
+}
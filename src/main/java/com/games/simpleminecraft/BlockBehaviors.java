@@ -0,0 +1,81 @@
+package com.games.simpleminecraft;
+
+// Behaviors of the built-in blocks: grass growth, leaf decay and falling sand.
+public final class BlockBehaviors {
+    private BlockBehaviors() {
+    }
+
+    // Dies back to dirt when covered, otherwise spreads to nearby dirt that has open sky above.
+    public static final class Grass implements BlockBehavior {
+        @Override
+        public boolean ticksRandomly() {
+            return true;
+        }
+
+        @Override
+        public void onRandomTick(Simulation sim, int x, int y, int z) {
+            World world = sim.getWorld();
+            int dirt = World.BlockType.DIRT.id();
+            if (world.isOpaque(x, y + 1, z)) {
+                sim.setBlock(x, y, z, dirt);
+                return;
+            }
+            int r = sim.getScheduler().nextRandom();
+            int tx = x + (r & 0xFF) % 3 - 1;
+            int ty = y + ((r >>> 8) & 0xFF) % 3 - 1;
+            int tz = z + ((r >>> 16) & 0xFF) % 3 - 1;
+            if (world.getBlockId(tx, ty, tz) == dirt && !world.isOpaque(tx, ty + 1, tz)) {
+                sim.setBlock(tx, ty, tz, World.BlockType.GRASS.id());
+            }
+        }
+    }
+
+    // Leaves more than DECAY_RANGE blocks from any wood disappear a little while after losing it.
+    public static final class Leaves implements BlockBehavior {
+        public static final int DECAY_RANGE = 4;
+        public static final int DECAY_DELAY_TICKS = 20;
+
+        @Override
+        public boolean ticksRandomly() {
+            return true;
+        }
+
+        @Override
+        public void onRandomTick(Simulation sim, int x, int y, int z) {
+            if (!nearWood(sim.getWorld(), x, y, z)) sim.getScheduler().schedule(x, y, z, DECAY_DELAY_TICKS);
+        }
+
+        @Override
+        public void onScheduledTick(Simulation sim, int x, int y, int z) {
+            if (!nearWood(sim.getWorld(), x, y, z)) sim.setBlock(x, y, z, World.AIR);
+        }
+
+        private static boolean nearWood(World world, int x, int y, int z) {
+            int wood = World.BlockType.WOOD.id();
+            for (int dx = -DECAY_RANGE; dx <= DECAY_RANGE; dx++)
+                for (int dy = -DECAY_RANGE; dy <= DECAY_RANGE; dy++)
+                    for (int dz = -DECAY_RANGE; dz <= DECAY_RANGE; dz++)
+                        if (world.getBlockId(x + dx, y + dy, z + dz) == wood) return true;
+            return false;
+        }
+    }
+
+    // Falls one block every FALL_DELAY_TICKS while there is nothing solid underneath.
+    public static final class Falling implements BlockBehavior {
+        public static final int FALL_DELAY_TICKS = 2;
+
+        @Override
+        public void onNeighborChanged(Simulation sim, int x, int y, int z) {
+            if (y > 0 && !sim.getWorld().isSolid(x, y - 1, z)) sim.getScheduler().schedule(x, y, z, FALL_DELAY_TICKS);
+        }
+
+        @Override
+        public void onScheduledTick(Simulation sim, int x, int y, int z) {
+            World world = sim.getWorld();
+            if (y <= 0 || world.isSolid(x, y - 1, z)) return;
+            int id = world.getBlockId(x, y, z);
+            sim.setBlock(x, y, z, World.AIR);
+            sim.setBlock(x, y - 1, z, id); // notifies the new position, which schedules the next fall
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.games.simpleminecraft;
+
+import java.util.Arrays;
+
+// Block edits collected during a tick, sent as one delta packet instead of one message per edit.
+public class BlockDeltaBatch {
+    private int[] xs = new int[64];
+    private int[] ys = new int[64];
+    private int[] zs = new int[64];
+    private int[] ids = new int[64];
+    private int count;
+
+    public void add(int x, int y, int z, int id) {
+        if (count == xs.length) {
+            int cap = count * 2;
+            xs = Arrays.copyOf(xs, cap);
+            ys = Arrays.copyOf(ys, cap);
+            zs = Arrays.copyOf(zs, cap);
+            ids = Arrays.copyOf(ids, cap);
+        }
+        xs[count] = x;
+        ys[count] = y;
+        zs[count] = z;
+        ids[count] = id;
+        count++;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public int x(int i) { return xs[i]; }
+    public int y(int i) { return ys[i]; }
+    public int z(int i) { return zs[i]; }
+    public int id(int i) { return ids[i]; }
+
+    public void clear() {
+        count = 0;
+    }
+}
@@ -0,0 +1,157 @@
+package com.games.simpleminecraft;
+
+import java.util.Locale;
+
+// Numeric block ids with their properties stored in flat primitive tables.
+// Hot paths (meshing, collision, raycasts) read a property with a single array index.
+// The built-in World.BlockType constants are registered first so their ordinal is their id;
+// further blocks can be added at startup with define(...).register(), before any World is created.
+public final class BlockRegistry {
+    public static final int MAX_BLOCKS = 1024;
+
+    // Texture layer slots per block: top, bottom, side. -1 means untextured (color only).
+    public static final int TEX_TOP = 0;
+    public static final int TEX_BOTTOM = 1;
+    public static final int TEX_SIDE = 2;
+
+    private static final String[] NAMES = new String[MAX_BLOCKS];
+    private static final boolean[] SOLID = new boolean[MAX_BLOCKS];
+    private static final boolean[] OPAQUE = new boolean[MAX_BLOCKS];
+    private static final boolean[] TRANSPARENT = new boolean[MAX_BLOCKS];
+    private static final float[] COLORS = new float[MAX_BLOCKS * 4];
+    private static final short[] TEXTURE_LAYERS = new short[MAX_BLOCKS * 3];
+    private static final byte[] LIGHT_EMISSION = new byte[MAX_BLOCKS];
+    private static final boolean[] RANDOM_TICKS = new boolean[MAX_BLOCKS];
+    private static final BlockBehavior[] BEHAVIORS = new BlockBehavior[MAX_BLOCKS];
+    private static int count;
+
+    static {
+        // Must follow World.BlockType declaration order (checked below). Texture layers follow
+        // resources/textures/blocks.
+        define("air").solid(false).opaque(false).transparent(true).color(1f, 1f, 1f, 0f).register();
+        define("grass").color(0.4f, 0.8f, 0.3f, 1f).textures(1, 0, 2).behavior(new BlockBehaviors.Grass()).register();
+        define("dirt").color(0.59f, 0.39f, 0.2f, 1f).textures(4, 3, 5).register();
+        define("stone").color(0.6f, 0.6f, 0.6f, 1f).textures(7, 6, 8).register();
+        define("wood").color(0.5f, 0.3f, 0.1f, 1f).textures(10, 9, 11).register();
+        define("leaves").solid(false).opaque(false).transparent(true).color(0.2f, 0.7f, 0.2f, 0.8f)
+                .behavior(new BlockBehaviors.Leaves()).register();
+        define("sand").color(0.86f, 0.8f, 0.55f, 1f).behavior(new BlockBehaviors.Falling()).register();
+        // Fluids: flow is driven by FluidSimulator, levels are kept there rather than in the id.
+        define("water").solid(false).opaque(false).transparent(true).color(0.2f, 0.4f, 0.9f, 0.6f).register();
+        define("lava").solid(false).color(0.95f, 0.4f, 0.05f, 1f).lightEmission(15).register();
+
+        for (World.BlockType t : World.BlockType.values()) {
+            if (t.id() >= count || !NAMES[t.id()].equals(t.name().toLowerCase(Locale.ROOT))) {
+                throw new IllegalStateException("BlockType." + t + " is not registered as id " + t.id());
+            }
+        }
+    }
+
+    private BlockRegistry() {
+    }
+
+    public static Definition define(String name) {
+        return new Definition(name);
+    }
+
+    public static int count() {
+        return count;
+    }
+
+    public static String name(int id) {
+        return NAMES[id];
+    }
+
+    public static int idOf(String name) {
+        for (int i = 0; i < count; i++) {
+            if (NAMES[i].equals(name)) return i;
+        }
+        return -1;
+    }
+
+    public static boolean isSolid(int id) {
+        return SOLID[id];
+    }
+
+    public static boolean isOpaque(int id) {
+        return OPAQUE[id];
+    }
+
+    public static boolean isTransparent(int id) {
+        return TRANSPARENT[id];
+    }
+
+    public static int lightEmission(int id) {
+        return LIGHT_EMISSION[id];
+    }
+
+    public static boolean ticksRandomly(int id) {
+        return RANDOM_TICKS[id];
+    }
+
+    // null for blocks without tick logic
+    public static BlockBehavior behavior(int id) {
+        return BEHAVIORS[id];
+    }
+
+    // Offset of the block's rgba in colors(); read the four floats directly, no copy.
+    public static int colorOffset(int id) {
+        return id * 4;
+    }
+
+    public static float[] colors() {
+        return COLORS;
+    }
+
+    public static int textureLayer(int id, int slot) {
+        return TEXTURE_LAYERS[id * 3 + slot];
+    }
+
+    public static final class Definition {
+        private final String name;
+        private boolean solid = true;
+        private boolean opaque = true;
+        private boolean transparent = false;
+        private float r = 1f, g = 1f, b = 1f, a = 1f;
+        private int texTop = -1, texBottom = -1, texSide = -1;
+        private int light = 0;
+        private BlockBehavior behavior;
+
+        private Definition(String name) {
+            this.name = name;
+        }
+
+        public Definition solid(boolean v) { solid = v; return this; }
+        public Definition opaque(boolean v) { opaque = v; return this; }
+        public Definition transparent(boolean v) { transparent = v; return this; }
+        public Definition color(float r, float g, float b, float a) { this.r = r; this.g = g; this.b = b; this.a = a; return this; }
+        public Definition textures(int top, int bottom, int side) { texTop = top; texBottom = bottom; texSide = side; return this; }
+        public Definition lightEmission(int level) { light = level; return this; }
+        public Definition behavior(BlockBehavior b) { behavior = b; return this; }
+
+        public int register() {
+            synchronized (BlockRegistry.class) {
+                if (count >= MAX_BLOCKS) throw new IllegalStateException("Too many block types, max " + MAX_BLOCKS);
+                if (idOf(name) >= 0) throw new IllegalArgumentException("Block already registered: " + name);
+                if (light < 0 || light > 15) throw new IllegalArgumentException("Light emission must be 0..15: " + light);
+                int id = count;
+                NAMES[id] = name;
+                SOLID[id] = solid;
+                OPAQUE[id] = opaque;
+                TRANSPARENT[id] = transparent;
+                COLORS[id * 4] = r;
+                COLORS[id * 4 + 1] = g;
+                COLORS[id * 4 + 2] = b;
+                COLORS[id * 4 + 3] = a;
+                TEXTURE_LAYERS[id * 3 + TEX_TOP] = (short) texTop;
+                TEXTURE_LAYERS[id * 3 + TEX_BOTTOM] = (short) texBottom;
+                TEXTURE_LAYERS[id * 3 + TEX_SIDE] = (short) texSide;
+                LIGHT_EMISSION[id] = (byte) light;
+                BEHAVIORS[id] = behavior;
+                RANDOM_TICKS[id] = behavior != null && behavior.ticksRandomly();
+                count = id + 1;
+                return id;
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.games.simpleminecraft;
+
+// Block updates without scanning the world: a per-chunk priority queue of scheduled ticks
+// keyed by due tick, plus a fixed number of random ticks per section. Cost per tick scales
+// with loaded sections and due updates, not with world volume.
+//
+// At most `budget` scheduled updates run per tick; anything beyond stays queued and runs
+// first thing next tick. Chunks are visited round-robin so overflow doesn't always starve
+// the same ones.
+public class BlockTickScheduler {
+    public static final int RANDOM_TICKS_PER_SECTION = 3;
+    public static final int DEFAULT_BUDGET = 2048;
+
+    // Queue entries pack (dueTick << LOCAL_BITS) | position inside the chunk column.
+    private static final int LOCAL_BITS = 32 - Integer.numberOfLeadingZeros(
+            World.SECTION_SIZE * World.SECTION_SIZE * World.SIZE_Y - 1);
+    private static final long LOCAL_MASK = (1L << LOCAL_BITS) - 1;
+
+    private final LongHeap[] queues = new LongHeap[World.CHUNK_COUNT];
+    private int budget = DEFAULT_BUDGET;
+    private long currentTick;
+    private int nextChunk;
+    private int pending;
+    private int lastProcessed;
+    private boolean lastDeferred;
+    private int seed = 0x2545F491;
+
+    public BlockTickScheduler() {
+        for (int i = 0; i < queues.length; i++) queues[i] = new LongHeap();
+    }
+
+    public void setBudget(int budget) {
+        this.budget = Math.max(1, budget);
+    }
+
+    public int getPendingCount() {
+        return pending;
+    }
+
+    public int getLastProcessed() {
+        return lastProcessed;
+    }
+
+    // True if the budget cut the last tick short and due updates were carried over.
+    public boolean wasLastTickDeferred() {
+        return lastDeferred;
+    }
+
+    public void schedule(int x, int y, int z, int delayTicks) {
+        if (!World.inBounds(x, y, z)) return;
+        long due = currentTick + Math.max(1, delayTicks);
+        int chunk = World.chunkIndex(x >> World.SECTION_SHIFT, z >> World.SECTION_SHIFT);
+        int local = (((x & (World.SECTION_SIZE - 1)) * World.SIZE_Y + y) << World.SECTION_SHIFT) | (z & (World.SECTION_SIZE - 1));
+        queues[chunk].add((due << LOCAL_BITS) | local);
+        pending++;
+    }
+
+    // Lets the changed block and its six neighbours react (e.g. sand starting to fall).
+    public void onBlockChanged(Simulation sim, int x, int y, int z) {
+        notify(sim, x, y, z);
+        notify(sim, x + 1, y, z);
+        notify(sim, x - 1, y, z);
+        notify(sim, x, y + 1, z);
+        notify(sim, x, y - 1, z);
+        notify(sim, x, y, z + 1);
+        notify(sim, x, y, z - 1);
+    }
+
+    private void notify(Simulation sim, int x, int y, int z) {
+        BlockBehavior b = BlockRegistry.behavior(sim.getWorld().getBlockId(x, y, z));
+        if (b != null) b.onNeighborChanged(sim, x, y, z);
+    }
+
+    public void tick(Simulation sim) {
+        currentTick++;
+        runScheduled(sim);
+        runRandom(sim);
+    }
+
+    private void runScheduled(Simulation sim) {
+        World world = sim.getWorld();
+        int remaining = budget;
+        lastDeferred = false;
+        for (int n = 0; n < queues.length; n++) {
+            int chunk = (nextChunk + n) % queues.length;
+            LongHeap q = queues[chunk];
+            int baseX = (chunk / World.CHUNKS_Z) * World.SECTION_SIZE;
+            int baseZ = (chunk % World.CHUNKS_Z) * World.SECTION_SIZE;
+            long last = -1;
+            while (!q.isEmpty() && (q.peek() >>> LOCAL_BITS) <= currentTick) {
+                if (remaining == 0) {
+                    lastDeferred = true;
+                    break;
+                }
+                long key = q.poll();
+                pending--;
+                if (key == last) continue; // same block scheduled twice for the same tick
+                last = key;
+                remaining--;
+                int local = (int) (key & LOCAL_MASK);
+                int z = baseZ + (local & (World.SECTION_SIZE - 1));
+                int xy = local >>> World.SECTION_SHIFT;
+                int x = baseX + xy / World.SIZE_Y;
+                int y = xy % World.SIZE_Y;
+                BlockBehavior b = BlockRegistry.behavior(world.getBlockId(x, y, z));
+                if (b != null) b.onScheduledTick(sim, x, y, z);
+            }
+        }
+        nextChunk = (nextChunk + 1) % queues.length;
+        lastProcessed = budget - remaining;
+    }
+
+    private void runRandom(Simulation sim) {
+        World world = sim.getWorld();
+        for (int sx = 0; sx < World.SECTIONS_X; sx++)
+            for (int sy = 0; sy < World.SECTIONS_Y; sy++)
+                for (int sz = 0; sz < World.SECTIONS_Z; sz++)
+                    for (int k = 0; k < RANDOM_TICKS_PER_SECTION; k++) {
+                        int r = nextRandom();
+                        int x = (sx << World.SECTION_SHIFT) + (r & 15);
+                        int y = (sy << World.SECTION_SHIFT) + ((r >>> 4) & 15);
+                        int z = (sz << World.SECTION_SHIFT) + ((r >>> 8) & 15);
+                        int id = world.getBlockId(x, y, z);
+                        if (BlockRegistry.ticksRandomly(id)) BlockRegistry.behavior(id).onRandomTick(sim, x, y, z);
+                    }
+    }
+
+    // xorshift32: cheap and deterministic for a given sequence of ticks
+    public int nextRandom() {
+        int s = seed;
+        s ^= s << 13;
+        s ^= s >>> 17;
+        s ^= s << 5;
+        seed = s;
+        return s;
+    }
+}
@@ -0,0 +1,9 @@
+package com.games.simpleminecraft;
+
+// Read access to block data. Implemented by the live World and by read-only snapshots
+// that worker threads can query while the world keeps changing.
+public interface BlockView {
+    int getBlockId(int x, int y, int z);
+
+    boolean isSolid(int x, int y, int z);
+}
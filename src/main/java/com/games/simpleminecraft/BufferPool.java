@@ -0,0 +1,40 @@
+package com.games.simpleminecraft;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Fixed-size direct ByteBuffers recycled through a free list, so network frames don't allocate
+// (or leak) native memory per packet.
+public class BufferPool {
+    private final int bufferSize;
+    private final ConcurrentLinkedQueue<ByteBuffer> free = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger allocated = new AtomicInteger();
+
+    public BufferPool(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public ByteBuffer acquire() {
+        ByteBuffer b = free.poll();
+        if (b == null) {
+            allocated.incrementAndGet();
+            return ByteBuffer.allocateDirect(bufferSize);
+        }
+        b.clear();
+        return b;
+    }
+
+    public void release(ByteBuffer b) {
+        free.add(b);
+    }
+
+    // Buffers ever allocated; stays flat once the pool has warmed up.
+    public int getAllocatedCount() {
+        return allocated.get();
+    }
+}
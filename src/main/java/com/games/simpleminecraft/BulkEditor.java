@@ -0,0 +1,154 @@
+package com.games.simpleminecraft;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+// Region edits that write straight into the world's block array instead of going through
+// setBlock per block. Work is split by section across a fork-join pool; afterwards every section
+// that actually changed is touched once, which queues one remesh and marks it unsaved.
+//
+// Boxes are inclusive and clipped to the world. Like other raw writes these bypass Simulation:
+// no block behaviours run and nothing is added to the network edit batch. With a FluidSimulator
+// attached, every edited cell that held or now holds a fluid is reported to it afterwards, so a
+// pasted fluid is a fresh source and a flow that lost its source drains.
+public class BulkEditor {
+    // Copied block data; ids in x-major, then y, then z order like the world's.
+    public static final class Clipboard {
+        public final int sizeX, sizeY, sizeZ;
+        final short[] blocks;
+
+        Clipboard(int sizeX, int sizeY, int sizeZ) {
+            this.sizeX = sizeX;
+            this.sizeY = sizeY;
+            this.sizeZ = sizeZ;
+            this.blocks = new short[sizeX * sizeY * sizeZ];
+        }
+
+        public int getBlockId(int x, int y, int z) {
+            return blocks[(x * sizeY + y) * sizeZ + z];
+        }
+    }
+
+    private interface CellOp {
+        // New id for the block at (x, y, z) currently holding old.
+        int apply(int old, int x, int y, int z);
+    }
+
+    private final World world;
+    private ForkJoinPool pool;
+    private FluidSimulator fluids;
+    private int lastSectionsTouched;
+
+    public BulkEditor(World world) {
+        this.world = world;
+    }
+
+    // null runs on the calling thread.
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    // null leaves fluid levels alone (for worlds without a simulation).
+    public void setFluids(FluidSimulator fluids) {
+        this.fluids = fluids;
+    }
+
+    public int getLastSectionsTouched() {
+        return lastSectionsTouched;
+    }
+
+    // Returns the number of blocks changed.
+    public int fill(int x0, int y0, int z0, int x1, int y1, int z1, int id) {
+        return apply(x0, y0, z0, x1, y1, z1, (old, x, y, z) -> id);
+    }
+
+    public int replace(int x0, int y0, int z0, int x1, int y1, int z1, int from, int to) {
+        return apply(x0, y0, z0, x1, y1, z1, (old, x, y, z) -> old == from ? to : old);
+    }
+
+    public Clipboard copy(int x0, int y0, int z0, int x1, int y1, int z1) {
+        int minX = Math.min(x0, x1), minY = Math.min(y0, y1), minZ = Math.min(z0, z1);
+        Clipboard clip = new Clipboard(Math.abs(x1 - x0) + 1, Math.abs(y1 - y0) + 1, Math.abs(z1 - z0) + 1);
+        for (int x = 0; x < clip.sizeX; x++)
+            for (int y = 0; y < clip.sizeY; y++)
+                for (int z = 0; z < clip.sizeZ; z++) {
+                    int wx = minX + x, wy = minY + y, wz = minZ + z;
+                    if (World.inBounds(wx, wy, wz)) clip.blocks[(x * clip.sizeY + y) * clip.sizeZ + z] = (short) world.getRaw(wx, wy, wz);
+                }
+        return clip;
+    }
+
+    // Pastes with the clipboard's minimum corner at (x, y, z). With skipAir, air in the clipboard
+    // leaves the world's block in place.
+    public int paste(Clipboard clip, int x, int y, int z, boolean skipAir) {
+        return apply(x, y, z, x + clip.sizeX - 1, y + clip.sizeY - 1, z + clip.sizeZ - 1, (old, wx, wy, wz) -> {
+            int id = clip.getBlockId(wx - x, wy - y, wz - z);
+            return skipAir && id == World.AIR ? old : id;
+        });
+    }
+
+    private int apply(int ax, int ay, int az, int bx, int by, int bz, CellOp op) {
+        int x0 = Math.max(0, Math.min(ax, bx)), x1 = Math.min(World.SIZE_X - 1, Math.max(ax, bx));
+        int y0 = Math.max(0, Math.min(ay, by)), y1 = Math.min(World.SIZE_Y - 1, Math.max(ay, by));
+        int z0 = Math.max(0, Math.min(az, bz)), z1 = Math.min(World.SIZE_Z - 1, Math.max(az, bz));
+        lastSectionsTouched = 0;
+        if (x0 > x1 || y0 > y1 || z0 > z1) return 0;
+
+        int sx0 = x0 >> World.SECTION_SHIFT, sx1 = x1 >> World.SECTION_SHIFT;
+        int sy0 = y0 >> World.SECTION_SHIFT, sy1 = y1 >> World.SECTION_SHIFT;
+        int sz0 = z0 >> World.SECTION_SHIFT, sz1 = z1 >> World.SECTION_SHIFT;
+        int ny = sy1 - sy0 + 1, nz = sz1 - sz0 + 1;
+        int count = (sx1 - sx0 + 1) * ny * nz;
+        int[] changed = new int[count];
+        // Per section, the world indices of changed cells that held or got a fluid.
+        int[][] fluidCells = fluids != null ? new int[count][] : null;
+        int[] fluidCounts = new int[count];
+
+        // Each task owns one section's part of the box, so writes never overlap.
+        RegionTask.run(pool, count, k -> {
+            int sx = sx0 + k / (ny * nz), sy = sy0 + (k / nz) % ny, sz = sz0 + k % nz;
+            int cx0 = Math.max(x0, sx << World.SECTION_SHIFT), cx1 = Math.min(x1, ((sx + 1) << World.SECTION_SHIFT) - 1);
+            int cy0 = Math.max(y0, sy << World.SECTION_SHIFT), cy1 = Math.min(y1, ((sy + 1) << World.SECTION_SHIFT) - 1);
+            int cz0 = Math.max(z0, sz << World.SECTION_SHIFT), cz1 = Math.min(z1, ((sz + 1) << World.SECTION_SHIFT) - 1);
+            int n = 0, f = 0;
+            int[] cells = null;
+            for (int x = cx0; x <= cx1; x++)
+                for (int y = cy0; y <= cy1; y++)
+                    for (int z = cz0; z <= cz1; z++) {
+                        int old = world.getRaw(x, y, z);
+                        int id = op.apply(old, x, y, z);
+                        if (id != old) {
+                            world.setRaw(x, y, z, id);
+                            n++;
+                            if (fluidCells != null && (FluidSimulator.isFluid(old) || FluidSimulator.isFluid(id))) {
+                                if (cells == null) cells = new int[64];
+                                else if (f == cells.length) cells = Arrays.copyOf(cells, f * 2);
+                                cells[f++] = World.index(x, y, z);
+                            }
+                        }
+                    }
+            changed[k] = n;
+            if (fluidCells != null) {
+                fluidCells[k] = cells;
+                fluidCounts[k] = f;
+            }
+        });
+
+        // The simulator's queue isn't thread-safe, so fluid cells are reported here, in section order.
+        for (int k = 0; fluidCells != null && k < count; k++) {
+            for (int i = 0; i < fluidCounts[k]; i++) {
+                int idx = fluidCells[k][i];
+                fluids.onBlockChanged(idx / (World.SIZE_Y * World.SIZE_Z), (idx / World.SIZE_Z) % World.SIZE_Y, idx % World.SIZE_Z);
+            }
+        }
+
+        int total = 0;
+        for (int k = 0; k < count; k++) {
+            if (changed[k] == 0) continue;
+            total += changed[k];
+            world.touchSection(World.sectionIndex(sx0 + k / (ny * nz), sy0 + (k / nz) % ny, sz0 + k % nz));
+            lastSectionsTouched++;
+        }
+        return total;
+    }
+}
@@ -16,14 +16,16 @@ public class Camera {
 
     // Physics
     private final Vector3f velocity = new Vector3f();
+    private final Vector3f walkForward = new Vector3f();
+    private final Vector3f walkRight = new Vector3f();
+    private final Vector3f wishDir = new Vector3f();
     private boolean onGround = false;
-    private static final float PLAYER_WIDTH = 0.6f;   // total width
-    private static final float PLAYER_HEIGHT = 1.8f;  // total height (feet to head)
-    private static final float EYE_HEIGHT = 1.6f;     // eye above feet
-    private static final float EPS = 0.001f;
+    public static final float PLAYER_WIDTH = 0.6f;   // total width
+    public static final float PLAYER_HEIGHT = 1.8f;  // total height (feet to head)
+    public static final float EYE_HEIGHT = 1.6f;     // eye above feet
     private static final float MOVE_SPEED = 6.0f;     // m/s
     private static final float JUMP_SPEED = 5.5f;     // m/s
-    private static final float GRAVITY = 16.0f;       // m/s^2
+    public static final float GRAVITY = 16.0f;       // m/s^2
 
     public Camera(int width, int height) {
         position = new Vector3f(0, 0, 0);
@@ -144,10 +146,10 @@ public class Camera {
 
     public void updatePhysics(World world, float dt, boolean forward, boolean back, boolean left, boolean right, boolean jump) {
         // Build desired horizontal move direction from yaw
-        Vector3f fwd = getForwardVector(new Vector3f());
+        Vector3f fwd = getForwardVector(walkForward);
         fwd.y = 0; fwd.normalize();
-        Vector3f rightV = new Vector3f(-fwd.z, 0, fwd.x); // perpendicular on XZ (right-handed)
-        Vector3f wishDir = new Vector3f();
+        Vector3f rightV = walkRight.set(-fwd.z, 0, fwd.x); // perpendicular on XZ (right-handed)
+        wishDir.zero();
         if (forward) wishDir.add(fwd);
         if (back) wishDir.sub(fwd);
         if (left) wishDir.sub(rightV);
@@ -178,50 +180,24 @@ public class Camera {
 
     private void moveAndCollide(World world, float dx, float dy, float dz) {
         if (dx == 0 && dy == 0 && dz == 0) return;
-        position.add(dx, dy, dz);
 
         // Player AABB extents (camera position is at eye)
         float halfW = PLAYER_WIDTH * 0.5f;
         float feetY = position.y - EYE_HEIGHT;
-        float minX = position.x - halfW;
-        float maxX = position.x + halfW;
-        float minY = feetY;
-        float maxY = feetY + PLAYER_HEIGHT;
-        float minZ = position.z - halfW;
-        float maxZ = position.z + halfW;
-
-        int x0 = (int) Math.floor(minX);
-        int x1 = (int) Math.floor(maxX);
-        int y0 = (int) Math.floor(minY);
-        int y1 = (int) Math.floor(maxY);
-        int z0 = (int) Math.floor(minZ);
-        int z1 = (int) Math.floor(maxZ);
-
-        boolean collided = false;
-        for (int x = x0; x <= x1; x++) {
-            for (int y = y0; y <= y1; y++) {
-                for (int z = z0; z <= z1; z++) {
-                    if (world.isSolid(x, y, z)) {
-                        collided = true;
-                        // Resolve penetration along moved axis only
-                        if (dx > 0) position.x = x - halfW - EPS; // block minX - halfW
-                        if (dx < 0) position.x = x + 1 + halfW + EPS;
-                        if (dz > 0) position.z = z - halfW - EPS;
-                        if (dz < 0) position.z = z + 1 + halfW + EPS;
-                        if (dy > 0) { // hit head on block bottom at y
-                            float newFeet = y - PLAYER_HEIGHT - EPS;
-                            position.y = newFeet + EYE_HEIGHT;
-                            velocity.y = 0;
-                        }
-                        if (dy < 0) { // landed on top of block (y+1)
-                            float newFeet = y + 1 + EPS;
-                            position.y = newFeet + EYE_HEIGHT;
-                            velocity.y = 0; onGround = true;
-                        }
-                    }
-                }
+        if (dx != 0) {
+            position.x = VoxelCollider.moveAxis(world, position.x, feetY, position.z, halfW, PLAYER_HEIGHT, VoxelCollider.AXIS_X, dx);
+        } else if (dz != 0) {
+            position.z = VoxelCollider.moveAxis(world, position.x, feetY, position.z, halfW, PLAYER_HEIGHT, VoxelCollider.AXIS_Z, dz);
+        } else {
+            float newFeet = VoxelCollider.moveAxis(world, position.x, feetY, position.z, halfW, PLAYER_HEIGHT, VoxelCollider.AXIS_Y, dy);
+            boolean collided = newFeet != feetY + dy;
+            position.y = newFeet + EYE_HEIGHT;
+            if (collided) {
+                velocity.y = 0; // hit head, or landed on top of a block
+                if (dy < 0) onGround = true;
+            } else if (dy < 0) {
+                onGround = false; // falling
             }
         }
-        if (!collided && dy < 0) onGround = false; // falling
     }
 }
@@ -0,0 +1,204 @@
+package com.games.simpleminecraft;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+// Saves and loads chunk columns, one file per chunk in a directory:
+//   int MAGIC, int FORMAT, int cx, int cz,
+//   per section bottom to top: int length, SectionCodec bytes,
+//   then the chunk's Heightmap, so loading doesn't have to rescan columns,
+//   then int n and n flowing fluid cells: short (x * SIZE_Y + y) * 16 + z within the chunk,
+//   byte level (see FluidSimulator; cells not listed are sources).
+// save() writes only chunks with unsaved sections. Files are written to a temp name and moved
+// into place, so a crash never leaves a half-written chunk. Format 1 files have no fluid levels;
+// their fluids load as sources.
+//
+// Fluid levels are saved and restored only with a FluidSimulator attached (setFluids). Loading
+// then also queues the chunk's fluid cells, so they resume flowing.
+public class ChunkStore {
+    public static final int MAGIC = 0x534D4348; // "SMCH"
+    public static final int FORMAT = 2;
+
+    private static final int CHUNK_CELLS = World.SECTION_SIZE * World.SIZE_Y * World.SECTION_SIZE;
+
+    private final Path dir;
+    private final SectionCodec codec = new SectionCodec();
+    private final ByteBuffer buffer = ByteBuffer.allocate(SectionCodec.MAX_ENCODED_BYTES);
+    private FluidSimulator fluids;
+    private Counter loadedChunks;
+    private Counter savedChunks;
+
+    public ChunkStore(Path dir) {
+        this.dir = dir;
+    }
+
+    public void setFluids(FluidSimulator fluids) {
+        this.fluids = fluids;
+    }
+
+    // chunks.loaded and chunks.saved, plus save.queue: chunks of world with edits not yet saved.
+    public void registerMetrics(MetricsRegistry metrics, World world) {
+        loadedChunks = metrics.counter("chunks.loaded");
+        savedChunks = metrics.counter("chunks.saved");
+        metrics.gauge("save.queue", () -> unsavedChunks(world));
+    }
+
+    static int unsavedChunks(World world) {
+        int count = 0;
+        for (int cx = 0; cx < World.CHUNKS_X; cx++)
+            for (int cz = 0; cz < World.CHUNKS_Z; cz++) {
+                for (int sy = 0; sy < World.SECTIONS_Y; sy++) {
+                    if (world.isSectionUnsaved(World.sectionIndex(cx, sy, cz))) {
+                        count++;
+                        break;
+                    }
+                }
+            }
+        return count;
+    }
+
+    // Returns the number of chunks written.
+    public int save(World world) throws IOException {
+        Files.createDirectories(dir);
+        int written = 0;
+        for (int cx = 0; cx < World.CHUNKS_X; cx++)
+            for (int cz = 0; cz < World.CHUNKS_Z; cz++) {
+                boolean dirty = false;
+                for (int sy = 0; sy < World.SECTIONS_Y; sy++) dirty |= world.isSectionUnsaved(World.sectionIndex(cx, sy, cz));
+                if (!dirty) continue;
+                saveChunk(world, cx, cz);
+                for (int sy = 0; sy < World.SECTIONS_Y; sy++) world.markSectionSaved(World.sectionIndex(cx, sy, cz));
+                if (savedChunks != null) savedChunks.increment();
+                written++;
+            }
+        return written;
+    }
+
+    private void saveChunk(World world, int cx, int cz) throws IOException {
+        Path file = file(cx, cz);
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        FlightEvents.ChunkSave event = FlightEvents.recording() ? new FlightEvents.ChunkSave() : null;
+        if (event != null) event.begin();
+        long bytes;
+        try (OutputStream os = Files.newOutputStream(tmp); DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT);
+            out.writeInt(cx);
+            out.writeInt(cz);
+            for (int sy = 0; sy < World.SECTIONS_Y; sy++) {
+                buffer.clear();
+                codec.encode(world, World.sectionIndex(cx, sy, cz), buffer);
+                buffer.flip();
+                out.writeInt(buffer.remaining());
+                out.write(buffer.array(), 0, buffer.remaining());
+            }
+            world.getHeightmap(World.chunkIndex(cx, cz)).write(out);
+            writeFluidLevels(out, cx, cz);
+            bytes = out.size();
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.chunkX = cx;
+                event.chunkZ = cz;
+                event.bytes = bytes;
+                event.commit();
+            }
+        }
+    }
+
+    // Loads every chunk present on disk into the world; missing chunks keep what the world has.
+    // Returns the number of chunks loaded.
+    public int load(World world) throws IOException {
+        int loaded = 0;
+        for (int cx = 0; cx < World.CHUNKS_X; cx++)
+            for (int cz = 0; cz < World.CHUNKS_Z; cz++) {
+                Path file = file(cx, cz);
+                if (!Files.exists(file)) continue;
+                loadChunk(world, cx, cz, file);
+                if (loadedChunks != null) loadedChunks.increment();
+                loaded++;
+            }
+        return loaded;
+    }
+
+    private void loadChunk(World world, int cx, int cz, Path file) throws IOException {
+        FlightEvents.ChunkLoad event = FlightEvents.recording() ? new FlightEvents.ChunkLoad() : null;
+        if (event != null) event.begin();
+        try (InputStream is = Files.newInputStream(file); DataInputStream in = new DataInputStream(new BufferedInputStream(is))) {
+            if (in.readInt() != MAGIC) throw new IOException("Not a chunk file: " + file);
+            int format = in.readInt();
+            if (format != 1 && format != FORMAT) throw new IOException("Unsupported chunk format " + format + ": " + file);
+            if (in.readInt() != cx || in.readInt() != cz) throw new IOException("Chunk coordinates don't match file name: " + file);
+            for (int sy = 0; sy < World.SECTIONS_Y; sy++) {
+                int length = in.readInt();
+                if (length < 0 || length > buffer.capacity()) throw new IOException("Bad section length " + length + ": " + file);
+                buffer.clear();
+                in.readFully(buffer.array(), 0, length);
+                buffer.limit(length);
+                int section = codec.decodeBlocks(buffer, world);
+                if (section != World.sectionIndex(cx, sy, cz)) throw new IOException("Unexpected section " + section + ": " + file);
+                world.touchLoadedSection(section);
+            }
+            world.getHeightmap(World.chunkIndex(cx, cz)).read(in);
+            if (fluids != null) {
+                fluids.onChunkLoaded(cx, cz);
+                if (format >= 2) readFluidLevels(in, cx, cz, file);
+            }
+        }
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.chunkX = cx;
+                event.chunkZ = cz;
+                event.bytes = Files.size(file);
+                event.commit();
+            }
+        }
+    }
+
+    private void writeFluidLevels(DataOutputStream out, int cx, int cz) throws IOException {
+        int n = 0;
+        if (fluids != null) {
+            for (int local = 0; local < CHUNK_CELLS; local++) if (level(cx, cz, local) != 0) n++;
+        }
+        out.writeInt(n);
+        for (int local = 0; n > 0 && local < CHUNK_CELLS; local++) {
+            int level = level(cx, cz, local);
+            if (level == 0) continue;
+            out.writeShort(local);
+            out.writeByte(level);
+        }
+    }
+
+    private int level(int cx, int cz, int local) {
+        return fluids.getLevel(cx * World.SECTION_SIZE + local / (World.SIZE_Y * World.SECTION_SIZE),
+                (local / World.SECTION_SIZE) % World.SIZE_Y, cz * World.SECTION_SIZE + local % World.SECTION_SIZE);
+    }
+
+    private void readFluidLevels(DataInputStream in, int cx, int cz, Path file) throws IOException {
+        int n = in.readInt();
+        if (n < 0 || n > CHUNK_CELLS) throw new IOException("Bad fluid cell count " + n + ": " + file);
+        for (int i = 0; i < n; i++) {
+            int local = in.readShort() & 0xFFFF;
+            int level = in.readByte();
+            if (local >= CHUNK_CELLS) throw new IOException("Bad fluid cell " + local + ": " + file);
+            fluids.setLevel(cx * World.SECTION_SIZE + local / (World.SIZE_Y * World.SECTION_SIZE),
+                    (local / World.SECTION_SIZE) % World.SIZE_Y, cz * World.SECTION_SIZE + local % World.SECTION_SIZE, level);
+        }
+    }
+
+    private Path file(int cx, int cz) {
+        return dir.resolve("chunk_" + cx + "_" + cz + ".bin");
+    }
+}
@@ -0,0 +1,93 @@
+package com.games.simpleminecraft;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+
+// One non-blocking socket with a frame parser on the read side and a queue of pooled
+// buffers on the write side. queuedBytes is what the sender checks for backpressure.
+public class Connection {
+    public interface FrameHandler {
+        void onFrame(Connection c, byte type, ByteBuffer payload);
+    }
+
+    private final SocketChannel channel;
+    private final SelectionKey key; // null when polled without a selector (client side)
+    private final BufferPool pool;
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(Protocol.MAX_FRAME * 4);
+    private final ArrayDeque<ByteBuffer> sendQueue = new ArrayDeque<>();
+    private long queuedBytes;
+
+    // Server side: next section to stream, -1 until the client says hello.
+    int nextSection = -1;
+
+    public Connection(SocketChannel channel, SelectionKey key, BufferPool pool) {
+        this.channel = channel;
+        this.key = key;
+        this.pool = pool;
+    }
+
+    public void enqueue(ByteBuffer frame) {
+        sendQueue.add(frame);
+        queuedBytes += frame.remaining();
+    }
+
+    public long getQueuedBytes() {
+        return queuedBytes;
+    }
+
+    // Writes until the socket would block; pooled buffers are returned as they drain.
+    // Returns the number of bytes written.
+    public long flush() throws IOException {
+        long written = 0;
+        while (!sendQueue.isEmpty()) {
+            ByteBuffer b = sendQueue.peek();
+            int n = channel.write(b);
+            written += n;
+            queuedBytes -= n;
+            if (b.hasRemaining()) break;
+            pool.release(sendQueue.poll());
+        }
+        if (key != null && key.isValid()) {
+            key.interestOps(sendQueue.isEmpty() ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        }
+        return written;
+    }
+
+    // Reads what is available and dispatches every complete frame. Returns false on EOF or once
+    // a handler has closed the connection.
+    public boolean read(FrameHandler handler) throws IOException {
+        int n;
+        while ((n = channel.read(readBuffer)) > 0) {
+            readBuffer.flip();
+            while (readBuffer.remaining() >= 4) {
+                int length = readBuffer.getInt(readBuffer.position());
+                if (length < 1 || length > Protocol.MAX_FRAME - 4) throw new IOException("Bad frame length " + length);
+                if (readBuffer.remaining() < 4 + length) break;
+                int end = readBuffer.position() + 4 + length;
+                readBuffer.position(readBuffer.position() + 4);
+                byte type = readBuffer.get();
+                int limit = readBuffer.limit();
+                readBuffer.limit(end);
+                handler.onFrame(this, type, readBuffer);
+                if (!channel.isOpen()) return false; // the handler dropped us
+                readBuffer.limit(limit);
+                readBuffer.position(end);
+            }
+            readBuffer.compact();
+        }
+        return n >= 0;
+    }
+
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // already gone
+        }
+        while (!sendQueue.isEmpty()) pool.release(sendQueue.poll());
+        queuedBytes = 0;
+    }
+}
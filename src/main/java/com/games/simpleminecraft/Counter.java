@@ -0,0 +1,20 @@
+package com.games.simpleminecraft;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Monotonic count for MetricsRegistry; increments from any thread without locking or contention.
+public final class Counter {
+    private final LongAdder value = new LongAdder();
+
+    public void increment() {
+        value.increment();
+    }
+
+    public void add(long n) {
+        value.add(n);
+    }
+
+    public long get() {
+        return value.sum();
+    }
+}
@@ -0,0 +1,46 @@
+package com.games.simpleminecraft;
+
+// Headless check of cave culling. Reports how many sections the occlusion walk reaches on the
+// default island from above and from a sealed pocket underground, and in a solid world with one
+// tunnel, plus the time for a full graph build, an incremental update and one walk.
+// Usage: CullingBenchmark [walks=10000]
+public class CullingBenchmark {
+    public static void main(String[] args) {
+        int walks = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int[] out = new int[World.SECTION_COUNT];
+
+        World island = new World();
+        OcclusionGraph graph = new OcclusionGraph();
+        long start = System.nanoTime();
+        graph.update(island);
+        System.out.printf("island: graph built in %.2fms%n", (System.nanoTime() - start) / 1e6);
+        report(graph, island, "island, camera above", 32f, 40f, 32f, out, walks);
+        // A pocket carved inside the stone below the surface.
+        for (int x = 20; x < 24; x++)
+            for (int y = 2; y < 5; y++)
+                for (int z = 20; z < 24; z++) island.setBlock(x, y, z, World.BlockType.AIR);
+        start = System.nanoTime();
+        int updated = graph.update(island);
+        System.out.printf("island: %d sections recomputed after carving a pocket in %.3fms%n", updated, (System.nanoTime() - start) / 1e6);
+        report(graph, island, "island, camera in pocket", 21.5f, 3.5f, 21.5f, out, walks);
+
+        // Solid stone with one straight tunnel along x at y=8, z=8.
+        World solid = World.empty();
+        for (int x = 0; x < World.SIZE_X; x++)
+            for (int y = 0; y < World.SIZE_Y; y++)
+                for (int z = 0; z < World.SIZE_Z; z++)
+                    solid.setBlock(x, y, z, (y == 8 && z == 8) ? World.BlockType.AIR : World.BlockType.STONE);
+        OcclusionGraph tunnel = new OcclusionGraph();
+        tunnel.update(solid);
+        report(tunnel, solid, "solid world, camera in tunnel", 2.5f, 8.5f, 8.5f, out, walks);
+    }
+
+    private static void report(OcclusionGraph graph, World world, String label, float x, float y, float z, int[] out, int walks) {
+        int count = 0;
+        for (int i = 0; i < walks / 10; i++) graph.findVisible(world, x, y, z, out); // warmup
+        long start = System.nanoTime();
+        for (int i = 0; i < walks; i++) count = graph.findVisible(world, x, y, z, out);
+        double us = (System.nanoTime() - start) / 1e3 / walks;
+        System.out.printf("%s: %d of %d sections visible, %.2fus per walk%n", label, count, World.SECTION_COUNT, us);
+    }
+}
@@ -0,0 +1,70 @@
+package com.games.simpleminecraft;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+// Headless benchmark: steps a crowd of entities on the default island and reports tick times,
+// single-threaded and on a fork-join pool, then checks both runs end in identical state.
+// Usage: EntityBenchmark [entities=10000] [ticks=600] [threads=available processors]
+public class EntityBenchmark {
+    public static void main(String[] args) {
+        int entities = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 600;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        World world = new World();
+        EntitySystem single = run(world, entities, ticks, null, "1 thread");
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        EntitySystem parallel = run(world, entities, ticks, pool, threads + " threads");
+        pool.shutdown();
+
+        System.out.println(sameState(single.getStore(), parallel.getStore())
+                ? "parallel tick matches single-threaded tick"
+                : "MISMATCH between parallel and single-threaded tick");
+    }
+
+    private static EntitySystem run(World world, int entities, int ticks, ForkJoinPool pool, String label) {
+        float dt = 1f / 20f;
+        EntitySystem system = new EntitySystem(world, entities);
+        system.setPool(pool);
+        system.getStore().spawnRandom(entities, new Random(42));
+
+        int warmup = Math.min(100, ticks / 4);
+        long[] times = new long[ticks];
+        int[] neighbours = new int[256];
+        long found = 0;
+        for (int t = 0; t < warmup + ticks; t++) {
+            long start = System.nanoTime();
+            system.tick(dt);
+            long elapsed = System.nanoTime() - start;
+            if (t >= warmup) times[t - warmup] = elapsed;
+            // Exercise the range query the way AI would: one lookup per 100 entities.
+            EntityStore e = system.getStore();
+            for (int i = 0; i < e.count(); i += 100) {
+                found += system.getHash().queryRadius(e, e.x[i], e.y[i], e.z[i], 3f, neighbours);
+            }
+        }
+
+        Arrays.sort(times);
+        long total = 0;
+        for (long v : times) total += v;
+        System.out.printf("%s: entities=%d alive=%d ticks=%d mean=%.3fms p50=%.3fms p99=%.3fms max=%.3fms (neighbour hits %d)%n",
+                label, entities, system.getStore().count(), ticks, total / 1e6 / ticks, times[ticks / 2] / 1e6,
+                times[(int) (ticks * 0.99)] / 1e6, times[ticks - 1] / 1e6, found);
+        return system;
+    }
+
+    private static boolean sameState(EntityStore a, EntityStore b) {
+        if (a.count() != b.count()) return false;
+        for (int i = 0; i < a.count(); i++) {
+            if (Float.floatToIntBits(a.x[i]) != Float.floatToIntBits(b.x[i])
+                    || Float.floatToIntBits(a.y[i]) != Float.floatToIntBits(b.y[i])
+                    || Float.floatToIntBits(a.z[i]) != Float.floatToIntBits(b.z[i])
+                    || Float.floatToIntBits(a.vx[i]) != Float.floatToIntBits(b.vx[i])
+                    || Float.floatToIntBits(a.vy[i]) != Float.floatToIntBits(b.vy[i])
+                    || Float.floatToIntBits(a.vz[i]) != Float.floatToIntBits(b.vz[i])) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,79 @@
+package com.games.simpleminecraft;
+
+import java.util.Arrays;
+import java.util.Random;
+
+// Entities stored as parallel primitive arrays (structure of arrays), indexed 0..count-1.
+// Positions are the feet center of the AABB. Removal swaps the last entity into the hole,
+// so indices are only stable between removals.
+public class EntityStore {
+    public static final int TYPE_MOB = 0;
+    public static final int TYPE_ITEM = 1;
+
+    public float[] x, y, z;
+    public float[] vx, vy, vz;
+    public float[] halfWidth, height;
+    public boolean[] onGround;
+    public int[] type;
+    private int count;
+
+    public EntityStore(int initialCapacity) {
+        int cap = Math.max(16, initialCapacity);
+        x = new float[cap]; y = new float[cap]; z = new float[cap];
+        vx = new float[cap]; vy = new float[cap]; vz = new float[cap];
+        halfWidth = new float[cap]; height = new float[cap];
+        onGround = new boolean[cap];
+        type = new int[cap];
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public int add(int entityType, float px, float py, float pz, float width, float h) {
+        if (count == x.length) grow();
+        int i = count++;
+        type[i] = entityType;
+        x[i] = px; y[i] = py; z[i] = pz;
+        vx[i] = 0; vy[i] = 0; vz[i] = 0;
+        halfWidth[i] = width * 0.5f;
+        height[i] = h;
+        onGround[i] = false;
+        return i;
+    }
+
+    // Scatters `n` wandering mobs and items (one in four) over the world, dropped from y = 24.
+    public void spawnRandom(int n, Random rnd) {
+        for (int k = 0; k < n; k++) {
+            float px = 8 + rnd.nextFloat() * (World.SIZE_X - 16);
+            float pz = 8 + rnd.nextFloat() * (World.SIZE_Z - 16);
+            boolean item = rnd.nextInt(4) == 0;
+            int e = item
+                    ? add(TYPE_ITEM, px, 24f, pz, 0.25f, 0.25f)
+                    : add(TYPE_MOB, px, 24f, pz, 0.6f, 1.8f);
+            vx[e] = (rnd.nextFloat() - 0.5f) * 4f;
+            vz[e] = (rnd.nextFloat() - 0.5f) * 4f;
+        }
+    }
+
+    public void remove(int i) {
+        int last = --count;
+        if (i == last) return;
+        type[i] = type[last];
+        x[i] = x[last]; y[i] = y[last]; z[i] = z[last];
+        vx[i] = vx[last]; vy[i] = vy[last]; vz[i] = vz[last];
+        halfWidth[i] = halfWidth[last];
+        height[i] = height[last];
+        onGround[i] = onGround[last];
+    }
+
+    private void grow() {
+        int cap = x.length * 2;
+        x = Arrays.copyOf(x, cap); y = Arrays.copyOf(y, cap); z = Arrays.copyOf(z, cap);
+        vx = Arrays.copyOf(vx, cap); vy = Arrays.copyOf(vy, cap); vz = Arrays.copyOf(vz, cap);
+        halfWidth = Arrays.copyOf(halfWidth, cap);
+        height = Arrays.copyOf(height, cap);
+        onGround = Arrays.copyOf(onGround, cap);
+        type = Arrays.copyOf(type, cap);
+    }
+}
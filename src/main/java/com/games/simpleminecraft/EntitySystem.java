@@ -0,0 +1,216 @@
+package com.games.simpleminecraft;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+
+// Owns all non-player entities: their SoA storage, the spatial hash and the per-tick step.
+//
+// A tick is partitioned by chunk region (16x16 columns) using each entity's position at the start
+// of the tick. Regions step in parallel on a fork-join pool and read blocks from the live world,
+// which nothing writes meanwhile (its writer is the tick thread, waiting on the regions); the
+// steps are bracketed by World.beginRead/endRead like Pathfinder's queries. A tick's block reads
+// cost as much as its entities touch, whatever the size of the world:
+//   1. move and collide every entity of the region;
+//   2. separate overlapping pairs whose two entities belong to the region, and record pairs that
+//      cross into another region;
+//   3. (sequential) separate the recorded cross-region pairs in region order;
+//   4. apply the accumulated pushes.
+// Each step writes only to entities of its own region and pushes are summed in a fixed order,
+// so the result is bit-identical to running the same tick without a pool.
+public class EntitySystem {
+    public static final float ITEM_FRICTION = 0.6f; // horizontal velocity kept per tick on ground
+    public static final float HASH_CELL_SIZE = 4f;
+    public static final float SEPARATION = 0.5f;    // fraction of an overlap resolved per tick
+    public static final float VOID_Y = -64f;        // entities falling below this are removed
+
+    public static final int REGION_SHIFT = World.SECTION_SHIFT;
+    public static final int REGIONS_X = World.SIZE_X >> REGION_SHIFT;
+    public static final int REGIONS_Z = World.SIZE_Z >> REGION_SHIFT;
+    public static final int REGION_COUNT = REGIONS_X * REGIONS_Z;
+
+    private final World world;
+    private final EntityStore store;
+    private final SpatialHash hash;
+    private ForkJoinPool pool;
+
+    // Counting-sort partition of entity indices by region, rebuilt every tick.
+    private int[] regionOf = new int[0];
+    private int[] regionEntities = new int[0];
+    private final int[] regionStart = new int[REGION_COUNT + 1];
+    private float[] pushX = new float[0];
+    private float[] pushZ = new float[0];
+    private final int[] regionFill = new int[REGION_COUNT];
+    private final RegionScratch[] scratch = new RegionScratch[REGION_COUNT];
+
+    // Region steps as fields so a tick doesn't allocate a lambda per call.
+    private float tickDt;
+    private final IntConsumer moveTask = r -> moveRegion(r, tickDt);
+    private final IntConsumer separateTask = this::separateRegion;
+    private final IntConsumer applyTask = this::applyPushes;
+
+    private static final class RegionScratch {
+        int[] neighbours = new int[64];
+        int[] crossPairs = new int[64];
+        int crossCount;
+    }
+
+    public EntitySystem(World world, int expectedEntities) {
+        this.world = world;
+        this.store = new EntityStore(expectedEntities);
+        this.hash = new SpatialHash(HASH_CELL_SIZE, expectedEntities);
+        for (int r = 0; r < REGION_COUNT; r++) scratch[r] = new RegionScratch();
+    }
+
+    public EntityStore getStore() {
+        return store;
+    }
+
+    public SpatialHash getHash() {
+        return hash;
+    }
+
+    // null runs every region on the calling thread.
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public void tick(float dt) {
+        FlightEvents.PhysicsStep event = FlightEvents.recording() ? new FlightEvents.PhysicsStep() : null;
+        if (event != null) event.begin();
+        partition();
+
+        tickDt = dt;
+        world.beginRead();
+        try {
+            runRegions(moveTask);
+            hash.rebuild(store);
+            runRegions(separateTask);
+            for (int r = 0; r < REGION_COUNT; r++) {
+                RegionScratch s = scratch[r];
+                for (int k = 0; k < s.crossCount; k += 2) separate(s.crossPairs[k], s.crossPairs[k + 1]);
+            }
+            runRegions(applyTask);
+        } finally {
+            world.endRead();
+        }
+
+        for (int i = store.count() - 1; i >= 0; i--) {
+            if (store.y[i] < VOID_Y) store.remove(i);
+        }
+        hash.rebuild(store);
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.entities = store.count();
+                event.parallel = pool != null;
+                event.commit();
+            }
+        }
+    }
+
+    private void partition() {
+        int n = store.count();
+        if (regionOf.length < n) {
+            int cap = store.x.length;
+            regionOf = new int[cap];
+            regionEntities = new int[cap];
+            pushX = new float[cap];
+            pushZ = new float[cap];
+        }
+        Arrays.fill(regionStart, 0);
+        for (int i = 0; i < n; i++) {
+            int rx = clamp((int) Math.floor(store.x[i]) >> REGION_SHIFT, REGIONS_X);
+            int rz = clamp((int) Math.floor(store.z[i]) >> REGION_SHIFT, REGIONS_Z);
+            int r = rx * REGIONS_Z + rz;
+            regionOf[i] = r;
+            regionStart[r + 1]++;
+        }
+        for (int r = 0; r < REGION_COUNT; r++) regionStart[r + 1] += regionStart[r];
+        // Stable fill keeps entities in index order inside each region.
+        System.arraycopy(regionStart, 0, regionFill, 0, REGION_COUNT);
+        for (int i = 0; i < n; i++) regionEntities[regionFill[regionOf[i]]++] = i;
+    }
+
+    private static int clamp(int v, int count) {
+        return v < 0 ? 0 : v >= count ? count - 1 : v;
+    }
+
+    private void runRegions(IntConsumer task) {
+        RegionTask.run(pool, REGION_COUNT, task);
+    }
+
+    private void moveRegion(int r, float dt) {
+        for (int k = regionStart[r]; k < regionStart[r + 1]; k++) {
+            int i = regionEntities[k];
+            VoxelCollider.step(world, store, i, dt, Camera.GRAVITY);
+            if (store.type[i] == EntityStore.TYPE_ITEM && store.onGround[i]) {
+                store.vx[i] *= ITEM_FRICTION;
+                store.vz[i] *= ITEM_FRICTION;
+            }
+        }
+    }
+
+    private void separateRegion(int r) {
+        RegionScratch s = scratch[r];
+        s.crossCount = 0;
+        for (int k = regionStart[r]; k < regionStart[r + 1]; k++) {
+            int i = regionEntities[k];
+            float hw = store.halfWidth[i];
+            int found;
+            while (true) {
+                found = hash.queryBox(store, store.x[i] - hw, store.y[i], store.z[i] - hw,
+                        store.x[i] + hw, store.y[i] + store.height[i], store.z[i] + hw, s.neighbours);
+                if (found < s.neighbours.length) break;
+                s.neighbours = new int[s.neighbours.length * 2];
+            }
+            for (int q = 0; q < found; q++) {
+                int j = s.neighbours[q];
+                if (j <= i) continue; // each pair once, owned by its lower index
+                if (regionOf[j] == r) {
+                    separate(i, j);
+                } else {
+                    if (s.crossCount + 2 > s.crossPairs.length) s.crossPairs = Arrays.copyOf(s.crossPairs, s.crossPairs.length * 2);
+                    s.crossPairs[s.crossCount++] = i;
+                    s.crossPairs[s.crossCount++] = j;
+                }
+            }
+        }
+    }
+
+    // Pushes two overlapping entities apart along the axis of least horizontal penetration.
+    // Reads positions only; the pushes are applied after all pairs are resolved.
+    private void separate(int i, int j) {
+        if (store.y[i] >= store.y[j] + store.height[j] || store.y[j] >= store.y[i] + store.height[i]) return;
+        float dx = store.x[j] - store.x[i];
+        float dz = store.z[j] - store.z[i];
+        float reach = store.halfWidth[i] + store.halfWidth[j];
+        float ox = reach - Math.abs(dx);
+        float oz = reach - Math.abs(dz);
+        if (ox <= 0 || oz <= 0) return;
+        if (ox < oz) {
+            float p = (dx < 0 ? -ox : ox) * SEPARATION * 0.5f;
+            pushX[i] -= p;
+            pushX[j] += p;
+        } else {
+            float p = (dz < 0 ? -oz : oz) * SEPARATION * 0.5f;
+            pushZ[i] -= p;
+            pushZ[j] += p;
+        }
+    }
+
+    private void applyPushes(int r) {
+        for (int k = regionStart[r]; k < regionStart[r + 1]; k++) {
+            int i = regionEntities[k];
+            float hw = store.halfWidth[i], h = store.height[i];
+            if (pushX[i] != 0) {
+                store.x[i] = VoxelCollider.moveAxis(world, store.x[i], store.y[i], store.z[i], hw, h, VoxelCollider.AXIS_X, pushX[i]);
+                pushX[i] = 0;
+            }
+            if (pushZ[i] != 0) {
+                store.z[i] = VoxelCollider.moveAxis(world, store.x[i], store.y[i], store.z[i], hw, h, VoxelCollider.AXIS_Z, pushZ[i]);
+                pushZ[i] = 0;
+            }
+        }
+    }
+}
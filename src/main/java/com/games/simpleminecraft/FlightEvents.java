@@ -0,0 +1,149 @@
+package com.games.simpleminecraft;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import jdk.jfr.StackTrace;
+
+// Java Flight Recorder events around the operations that show up as frame or tick spikes, so a
+// recording of a hitch names the section, chunk or tick behind it. All are off unless a recording
+// turns them on, e.g.
+//   java -XX:StartFlightRecording=settings=src/main/jfr/simpleminecraft.jfc,filename=session.jfr ...
+// Event objects are only created while a recording is running: escape analysis doesn't reliably
+// remove them from the larger methods (Simulation.tick, EntitySystem.tick), and a normal session
+// must stay allocation-free (see AllocationCheck). Every site follows the same shape:
+//   FlightEvents.X event = FlightEvents.recording() ? new FlightEvents.X() : null;
+//   if (event != null) event.begin();
+//   ... work ...
+//   if (event != null) {
+//       event.end();
+//       if (event.shouldCommit()) { fill in fields; event.commit(); }
+//   }
+public final class FlightEvents {
+    static final String CATEGORY = "Simple Minecraft";
+
+    // Flight Recorder stays initialized after its last recording stops, so track the recordings
+    // themselves. Adding the listener doesn't start Flight Recorder; it's told when it does.
+    private static volatile boolean recording;
+
+    static {
+        FlightRecorder.addListener(new FlightRecorderListener() {
+            @Override
+            public void recorderInitialized(FlightRecorder recorder) {
+                update(recorder);
+            }
+
+            @Override
+            public void recordingStateChanged(Recording changed) {
+                update(FlightRecorder.getFlightRecorder());
+            }
+        });
+    }
+
+    private FlightEvents() {
+    }
+
+    // True while any recording is running, started from the command line or via jcmd.
+    public static boolean recording() {
+        return recording;
+    }
+
+    private static void update(FlightRecorder recorder) {
+        boolean running = false;
+        for (Recording r : recorder.getRecordings()) running |= r.getState() == RecordingState.RUNNING;
+        recording = running;
+    }
+
+    @Name("simpleminecraft.WorldGeneration")
+    @Label("World Generation")
+    @Category({CATEGORY, "World"})
+    @StackTrace(false)
+    public static final class WorldGeneration extends Event {
+        @Label("Size X") int sizeX;
+        @Label("Size Y") int sizeY;
+        @Label("Size Z") int sizeZ;
+        @Label("Solid Blocks") int solidBlocks;
+    }
+
+    @Name("simpleminecraft.MeshBuild")
+    @Label("Section Mesh Build")
+    @Description("CPU meshing of one section at its LOD level")
+    @Category({CATEGORY, "Rendering"})
+    @StackTrace(false)
+    public static final class MeshBuild extends Event {
+        @Label("Section X") int sectionX;
+        @Label("Section Y") int sectionY;
+        @Label("Section Z") int sectionZ;
+        @Label("LOD Level") int lodLevel;
+        @Label("Opaque Vertices") int opaqueVertices;
+        @Label("Translucent Vertices") int translucentVertices;
+    }
+
+    @Name("simpleminecraft.MeshUpload")
+    @Label("Section Mesh Upload")
+    @Description("Copying one section's vertex and index data to GPU buffers")
+    @Category({CATEGORY, "Rendering"})
+    @StackTrace(false)
+    public static final class MeshUpload extends Event {
+        @Label("Section X") int sectionX;
+        @Label("Section Y") int sectionY;
+        @Label("Section Z") int sectionZ;
+        @Label("Bytes Uploaded") @DataAmount long bytes;
+    }
+
+    @Name("simpleminecraft.Raycast")
+    @Label("Block Raycast")
+    @Category({CATEGORY, "World"})
+    public static final class Raycast extends Event {
+        @Label("Max Distance") float maxDistance;
+        @Label("Hit") boolean hit;
+        @Label("Blocks Stepped") int steps;
+    }
+
+    @Name("simpleminecraft.Tick")
+    @Label("Simulation Tick")
+    @Description("One fixed-rate tick: block ticks, fluids and entities")
+    @Category({CATEGORY, "Simulation"})
+    @StackTrace(false)
+    public static final class Tick extends Event {
+        @Label("Tick") long tick;
+        @Label("Scheduled Block Ticks") int scheduled;
+        @Label("Block Edits") int edits;
+    }
+
+    @Name("simpleminecraft.PhysicsStep")
+    @Label("Entity Physics Step")
+    @Category({CATEGORY, "Simulation"})
+    @StackTrace(false)
+    public static final class PhysicsStep extends Event {
+        @Label("Entities") int entities;
+        @Label("Parallel") boolean parallel;
+    }
+
+    @Name("simpleminecraft.ChunkSave")
+    @Label("Chunk Save")
+    @Category({CATEGORY, "Storage"})
+    @StackTrace(false)
+    public static final class ChunkSave extends Event {
+        @Label("Chunk X") int chunkX;
+        @Label("Chunk Z") int chunkZ;
+        @Label("Bytes Written") @DataAmount long bytes;
+    }
+
+    @Name("simpleminecraft.ChunkLoad")
+    @Label("Chunk Load")
+    @Category({CATEGORY, "Storage"})
+    @StackTrace(false)
+    public static final class ChunkLoad extends Event {
+        @Label("Chunk X") int chunkX;
+        @Label("Chunk Z") int chunkZ;
+        @Label("Bytes Read") @DataAmount long bytes;
+    }
+}
@@ -0,0 +1,84 @@
+package com.games.simpleminecraft;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+// Headless dam-break benchmark: a reservoir of water sources held back by a stone wall on a plateau,
+// with a staircase below it that drops every few blocks so the flood keeps falling and spreading
+// down to the far edge. The wall is removed in one tick and the flood runs until every cell has
+// settled.
+// Reports per-tick cost and how many sections were touched, single-threaded and on a pool, and
+// checks both runs end with the same blocks.
+// Usage: FluidBenchmark [threads=available processors] [maxUpdates=16384] [maxTicks=2000]
+public class FluidBenchmark {
+    private static final int DAM_X = 16;
+    private static final int PLATEAU_Y = 15;
+    private static final int WATER_TOP = 29;
+    private static final int STEP_WIDTH = 6;  // shorter than WATER_SPREAD so water reaches each drop
+    private static final int STEP_DROP = 2;
+
+    public static void main(String[] args) {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int maxUpdates = args.length > 1 ? Integer.parseInt(args[1]) : FluidSimulator.DEFAULT_MAX_UPDATES;
+        int maxTicks = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+
+        run(null, maxUpdates, maxTicks, "warmup");
+        World single = run(null, maxUpdates, maxTicks, "1 thread");
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        World parallel = run(pool, maxUpdates, maxTicks, threads + " threads");
+        pool.shutdown();
+
+        System.out.println(single.sameBlocks(parallel)
+                ? "parallel flood matches single-threaded flood"
+                : "MISMATCH between parallel and single-threaded flood");
+    }
+
+    private static World run(ForkJoinPool pool, int maxUpdates, int maxTicks, String label) {
+        World world = World.empty();
+        int stone = World.BlockType.STONE.id(), water = World.BlockType.WATER.id();
+        for (int x = 0; x < World.SIZE_X; x++)
+            for (int z = 0; z < World.SIZE_Z; z++) {
+                int floor = x <= DAM_X ? PLATEAU_Y : Math.max(0, PLATEAU_Y - (x - DAM_X + STEP_WIDTH - 1) / STEP_WIDTH * STEP_DROP);
+                for (int y = 0; y <= floor; y++) world.setBlockId(x, y, z, stone);
+                for (int y = PLATEAU_Y + 1; y <= WATER_TOP + 1; y++) {
+                    if (x == DAM_X) world.setBlockId(x, y, z, stone);
+                    else if (x < DAM_X && y <= WATER_TOP) world.setBlockId(x, y, z, water);
+                }
+            }
+
+        Simulation sim = new Simulation(world, 0);
+        sim.setWorkerPool(pool);
+        FluidSimulator fluids = sim.getFluids();
+        fluids.setMaxUpdates(maxUpdates);
+        for (int y = PLATEAU_Y + 1; y <= WATER_TOP + 1; y++)
+            for (int z = 0; z < World.SIZE_Z; z++) sim.setBlock(DAM_X, y, z, World.AIR);
+        sim.getEdits().clear();
+
+        long[] times = new long[maxTicks];
+        long updates = 0, changes = 0, touched = 0;
+        int maxTouched = 0, capped = 0, ticks = 0;
+        while (ticks < maxTicks && fluids.getActiveCount() > 0) {
+            if (fluids.getActiveCount() > maxUpdates) capped++;
+            long start = System.nanoTime();
+            sim.tick();
+            times[ticks++] = System.nanoTime() - start;
+            sim.getEdits().clear();
+            updates += fluids.getLastUpdates();
+            changes += fluids.getLastChanges();
+            touched += fluids.getLastSectionsTouched();
+            maxTouched = Math.max(maxTouched, fluids.getLastSectionsTouched());
+        }
+
+        long[] sorted = Arrays.copyOf(times, Math.max(1, ticks));
+        Arrays.sort(sorted);
+        long total = 0;
+        for (long t : sorted) total += t;
+        int n = sorted.length;
+        System.out.printf("%s: %s after %d ticks, cell updates=%d changes=%d (capped ticks %d), section touches=%d (max %d/tick), "
+                        + "total=%.1fms mean=%.3fms p50=%.3fms p99=%.3fms max=%.3fms%n",
+                label, fluids.getActiveCount() == 0 ? "settled" : "still flowing", ticks, updates, changes, capped,
+                touched, maxTouched, total / 1e6, total / 1e6 / n, sorted[n / 2] / 1e6,
+                sorted[(int) (n * 0.99)] / 1e6, sorted[n - 1] / 1e6);
+        return world;
+    }
+}
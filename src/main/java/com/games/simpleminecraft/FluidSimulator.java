@@ -0,0 +1,283 @@
+package com.games.simpleminecraft;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+
+// Cellular-automaton water and lava. Only cells that may change are visited: a block edit or a
+// fluid change queues the cell and its six neighbours, and each tick recomputes the queued
+// cells from the state at the start of the tick.
+//
+// A fluid cell has a level next to its block id: 0 is a source, n is a flow n blocks from one.
+// Fluid falls straight down (level 1 below anything wet) and spreads sideways from cells that
+// rest on something, one level per block, up to WATER_SPREAD / LAVA_SPREAD. Flows that lose
+// their supply drain away; lava that touches water turns to stone.
+//
+// A tick works like EntitySystem's: queued cells are partitioned by chunk column, each region
+// computes its changes in parallel reading only pre-tick state, then the changes are applied
+// in region order, so the result doesn't depend on the pool. Writes go to the block array
+// directly and every changed section is touched once, so a flood costs one remesh per section
+// per tick. At most maxUpdates cells are recomputed per tick; the rest wait in the queue.
+public class FluidSimulator {
+    public static final int WATER_SPREAD = 7;
+    public static final int LAVA_SPREAD = 3;
+    public static final int DEFAULT_MAX_UPDATES = 16384;
+
+    private static final int WATER = World.BlockType.WATER.id();
+    private static final int LAVA = World.BlockType.LAVA.id();
+    private static final int STONE = World.BlockType.STONE.id();
+    private static final int VOLUME = World.SIZE_X * World.SIZE_Y * World.SIZE_Z;
+    private static final int STRIDE_X = World.SIZE_Y * World.SIZE_Z;
+    private static final int STRIDE_Y = World.SIZE_Z;
+    private static final int NO_LEVEL = Integer.MAX_VALUE;
+    private static final int[] DX = {1, -1, 0, 0};
+    private static final int[] DZ = {0, 0, 1, -1};
+
+    private final World world;
+    private final byte[] levels = new byte[VOLUME];
+    private final boolean[] queued = new boolean[VOLUME];
+    private int[] pending = new int[1024];
+    private int pendingCount;
+    private int[] work = new int[1024];
+    private ForkJoinPool pool;
+    private int maxUpdates = DEFAULT_MAX_UPDATES;
+
+    // Per-tick partition of the cells being updated, by chunk column.
+    private int[] regionOf = new int[0];
+    private int[] regionCells = new int[0];
+    private final int[] regionStart = new int[World.CHUNK_COUNT + 1];
+    private final int[] regionFill = new int[World.CHUNK_COUNT];
+    // Per-region changes as (index, id << 8 | level) pairs.
+    private final int[][] changes = new int[World.CHUNK_COUNT][];
+    private final int[] changeCount = new int[World.CHUNK_COUNT];
+    private final boolean[] dirtySections = new boolean[World.SECTION_COUNT];
+    private final IntConsumer computeTask = this::computeRegion;
+
+    private int lastUpdates;
+    private int lastChanges;
+    private int lastSectionsTouched;
+
+    public FluidSimulator(World world) {
+        this.world = world;
+        for (int r = 0; r < changes.length; r++) changes[r] = new int[64];
+    }
+
+    // null runs every region on the calling thread.
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public void setMaxUpdates(int maxUpdates) {
+        this.maxUpdates = Math.max(1, maxUpdates);
+    }
+
+    // Cells waiting to be recomputed; 0 once all fluid has settled.
+    public int getActiveCount() {
+        return pendingCount;
+    }
+
+    public int getLastUpdates() {
+        return lastUpdates;
+    }
+
+    public int getLastChanges() {
+        return lastChanges;
+    }
+
+    public int getLastSectionsTouched() {
+        return lastSectionsTouched;
+    }
+
+    public int getLevel(int x, int y, int z) {
+        return World.inBounds(x, y, z) ? levels[World.index(x, y, z)] : 0;
+    }
+
+    // Chunk loading: resets the column's levels and queues every fluid cell in it with its
+    // neighbours, so sources spread and flows without a source drain. Saved levels are put back
+    // with setLevel() afterwards.
+    void onChunkLoaded(int cx, int cz) {
+        for (int x = cx * World.SECTION_SIZE; x < (cx + 1) * World.SECTION_SIZE; x++)
+            for (int y = 0; y < World.SIZE_Y; y++)
+                for (int z = cz * World.SECTION_SIZE; z < (cz + 1) * World.SECTION_SIZE; z++) {
+                    int idx = World.index(x, y, z);
+                    levels[idx] = 0;
+                    if (isFluid(world.idAt(idx))) activateAround(x, y, z);
+                }
+    }
+
+    void setLevel(int x, int y, int z, int level) {
+        levels[World.index(x, y, z)] = (byte) level;
+    }
+
+    public static boolean isFluid(int id) {
+        return id == WATER || id == LAVA;
+    }
+
+    // Called for every edit made outside the simulator; a placed fluid is always a source.
+    public void onBlockChanged(int x, int y, int z) {
+        if (!World.inBounds(x, y, z)) return;
+        levels[World.index(x, y, z)] = 0;
+        activateAround(x, y, z);
+    }
+
+    public void tick(Simulation sim) {
+        int[] cells = pending;
+        int count = pendingCount;
+        pending = work;
+        work = cells;
+        pendingCount = 0;
+
+        int n = Math.min(count, maxUpdates);
+        lastUpdates = n;
+        lastChanges = 0;
+        lastSectionsTouched = 0;
+        for (int k = 0; k < n; k++) queued[cells[k]] = false;
+        // What the cap leaves over goes first next tick, ahead of newly activated cells.
+        for (int k = n; k < count; k++) push(cells[k]);
+        if (n == 0) return;
+
+        partition(cells, n);
+        RegionTask.run(pool, World.CHUNK_COUNT, computeTask);
+        for (int r = 0; r < World.CHUNK_COUNT; r++) {
+            int[] c = changes[r];
+            for (int k = 0; k < changeCount[r]; k += 2) apply(sim, c[k], c[k + 1]);
+            lastChanges += changeCount[r] >> 1;
+        }
+        for (int s = 0; s < dirtySections.length; s++) {
+            if (!dirtySections[s]) continue;
+            dirtySections[s] = false;
+            world.touchSection(s);
+            lastSectionsTouched++;
+        }
+    }
+
+    private void partition(int[] cells, int n) {
+        if (regionOf.length < n) {
+            regionOf = new int[cells.length];
+            regionCells = new int[cells.length];
+        }
+        Arrays.fill(regionStart, 0);
+        for (int k = 0; k < n; k++) {
+            int idx = cells[k];
+            int x = idx / STRIDE_X, z = idx % World.SIZE_Z;
+            int r = World.chunkIndex(x >> World.SECTION_SHIFT, z >> World.SECTION_SHIFT);
+            regionOf[k] = r;
+            regionStart[r + 1]++;
+        }
+        for (int r = 0; r < World.CHUNK_COUNT; r++) regionStart[r + 1] += regionStart[r];
+        System.arraycopy(regionStart, 0, regionFill, 0, World.CHUNK_COUNT);
+        for (int k = 0; k < n; k++) regionCells[regionFill[regionOf[k]]++] = cells[k];
+    }
+
+    private void computeRegion(int r) {
+        int[] c = changes[r];
+        int count = 0;
+        for (int k = regionStart[r]; k < regionStart[r + 1]; k++) {
+            int idx = regionCells[k];
+            int state = nextState(idx);
+            if (state < 0) continue;
+            if (count + 2 > c.length) c = changes[r] = Arrays.copyOf(c, c.length * 2);
+            c[count++] = idx;
+            c[count++] = state;
+        }
+        changeCount[r] = count;
+    }
+
+    // New (id << 8 | level) for a cell, or -1 if it stays as it is. Reads pre-tick state only.
+    private int nextState(int idx) {
+        int id = world.idAt(idx);
+        if (id != World.AIR && !isFluid(id)) return -1;
+        int x = idx / STRIDE_X, y = (idx / STRIDE_Y) % World.SIZE_Y, z = idx % World.SIZE_Z;
+        if (isFluid(id) && levels[idx] == 0) {
+            return id == LAVA && touches(idx, x, y, z, WATER) ? STONE << 8 : -1;
+        }
+
+        int bestId = World.AIR, bestLevel = NO_LEVEL;
+        boolean mixed = false;
+        if (y + 1 < World.SIZE_Y && isFluid(world.idAt(idx + STRIDE_Y))) {
+            bestId = world.idAt(idx + STRIDE_Y);
+            bestLevel = 1;
+        }
+        for (int d = 0; d < 4; d++) {
+            int nx = x + DX[d], nz = z + DZ[d];
+            if (nx < 0 || nx >= World.SIZE_X || nz < 0 || nz >= World.SIZE_Z) continue;
+            int n = idx + DX[d] * STRIDE_X + DZ[d];
+            int nid = world.idAt(n);
+            if (!isFluid(nid)) continue;
+            int level = levels[n] + 1;
+            if (level > (nid == WATER ? WATER_SPREAD : LAVA_SPREAD)) continue;
+            if (levels[n] != 0 && !restsOnSomething(n, y)) continue; // falling fluid doesn't spread
+            if (bestId != World.AIR && bestId != nid) mixed = true;
+            if (level < bestLevel || (level == bestLevel && nid == WATER)) {
+                bestId = nid;
+                bestLevel = level;
+            }
+        }
+
+        int newId, newLevel;
+        if (bestLevel == NO_LEVEL) {
+            newId = World.AIR;
+            newLevel = 0;
+        } else if (mixed || (bestId == LAVA && touches(idx, x, y, z, WATER))) {
+            newId = STONE;
+            newLevel = 0;
+        } else {
+            newId = bestId;
+            newLevel = bestLevel;
+        }
+        return newId == id && newLevel == levels[idx] ? -1 : newId << 8 | newLevel;
+    }
+
+    // Flowing fluid spreads sideways only on the ground, on a block, or on a resting body of fluid.
+    private boolean restsOnSomething(int idx, int y) {
+        if (y == 0) return true;
+        int below = world.idAt(idx - STRIDE_Y);
+        return below != World.AIR && !(isFluid(below) && levels[idx - STRIDE_Y] != 0);
+    }
+
+    private boolean touches(int idx, int x, int y, int z, int id) {
+        return (x + 1 < World.SIZE_X && world.idAt(idx + STRIDE_X) == id) || (x > 0 && world.idAt(idx - STRIDE_X) == id)
+                || (y + 1 < World.SIZE_Y && world.idAt(idx + STRIDE_Y) == id) || (y > 0 && world.idAt(idx - STRIDE_Y) == id)
+                || (z + 1 < World.SIZE_Z && world.idAt(idx + 1) == id) || (z > 0 && world.idAt(idx - 1) == id);
+    }
+
+    private void apply(Simulation sim, int idx, int state) {
+        int id = state >>> 8;
+        int x = idx / STRIDE_X, y = (idx / STRIDE_Y) % World.SIZE_Y, z = idx % World.SIZE_Z;
+        world.setIdAt(idx, id);
+        levels[idx] = (byte) (state & 0xFF);
+        dirtySections[World.sectionIndex(x >> World.SECTION_SHIFT, y >> World.SECTION_SHIFT, z >> World.SECTION_SHIFT)] = true;
+        sim.getEdits().add(x, y, z, id);
+        sim.getScheduler().onBlockChanged(sim, x, y, z);
+        activateAround(x, y, z);
+        // Whether the cell above may spread sideways depends on this one (restsOnSomething), so
+        // the cells it would spread into are recomputed too.
+        activate(x + 1, y + 1, z);
+        activate(x - 1, y + 1, z);
+        activate(x, y + 1, z + 1);
+        activate(x, y + 1, z - 1);
+    }
+
+    private void activateAround(int x, int y, int z) {
+        activate(x, y, z);
+        activate(x + 1, y, z);
+        activate(x - 1, y, z);
+        activate(x, y + 1, z);
+        activate(x, y - 1, z);
+        activate(x, y, z + 1);
+        activate(x, y, z - 1);
+    }
+
+    private void activate(int x, int y, int z) {
+        if (!World.inBounds(x, y, z)) return;
+        int idx = World.index(x, y, z);
+        if (queued[idx]) return;
+        queued[idx] = true;
+        push(idx);
+    }
+
+    private void push(int idx) {
+        if (pendingCount == pending.length) pending = Arrays.copyOf(pending, pending.length * 2);
+        pending[pendingCount++] = idx;
+    }
+}
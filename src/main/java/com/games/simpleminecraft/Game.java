@@ -1,7 +1,12 @@
 package com.games.simpleminecraft;
 
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+
 import org.joml.Matrix4f;
-import org.joml.Vector3f;
 import org.lwjgl.glfw.GLFW;
 import org.lwjgl.glfw.GLFWErrorCallback;
 import org.lwjgl.opengl.GL;
@@ -13,21 +18,79 @@ public class Game {
     private static final int WIDTH = 1280;
     private static final int HEIGHT = 720;
     private static final String TITLE = "Simple Minecraft Clone";
+    public static final float DEFAULT_FRAME_BUDGET_MS = 1000f / 60;
     
     private Camera camera;
+    private Simulation simulation;
     private World world;
+    private WorldRenderer worldRenderer;
+    private NetClient netClient;
+    private final InetSocketAddress serverAddress;
     private ShaderProgram shaderProgram;
 
-    private double lastTime;
-    private boolean lmbPrev = false;
-    private boolean rmbPrev = false;
-    private World.BlockType selectedBlock = World.BlockType.DIRT;
+    private static final World.BlockType[] HOTBAR = PlayerController.HOTBAR;
+    private PlayerController player;
+    private GlfwInputSource glfwInput;
+    private InputSource input;
+    private InputRecorder recorder;
+    private InputReplay replay;
+    private final InputFrame frame = new InputFrame();
+    private final MetricsRegistry metrics = new MetricsRegistry();
+    private LatencyHistogram frameTime;
+    private LatencyHistogram gpuTime;
+    private float frameBudgetMs = DEFAULT_FRAME_BUDGET_MS;
+    private long meshCacheBytes = MeshCache.DEFAULT_MAX_BYTES;
+    private MeshCache meshCache;
+    private long initStart;
+    private boolean firstFrameShown;
+    private QualityGovernor governor;
+    private GpuTimer gpuTimer;
+    private ForkJoinPool workerPool;
+    private int workerThreads = 1;
+    private final Path recordFile;
+    private final Path replayFile;
 
-    // HUD buffers
+    // HUD buffers: one quad per hotbar slot, four for the selection frame, two for the crosshair
+    private static final int HUD_VERTICES = (HOTBAR.length + 4 + 2) * 6;
     private int hudVao = 0;
     private int hudPosVbo = 0;
     private int hudColVbo = 0;
+    private final float[] hudPos = new float[HUD_VERTICES * 3];
+    private final float[] hudCol = new float[HUD_VERTICES * 4];
+    private int hudVertex;
+    private int hudSelected = -1;
+    private final Matrix4f hudProjection = new Matrix4f().ortho(0, WIDTH, HEIGHT, 0, -1, 1);
+    private final Matrix4f hudIdentity = new Matrix4f();
     
+    public Game(InetSocketAddress serverAddress) {
+        this(serverAddress, null, null);
+    }
+
+    // recordFile: write every frame's input there, ending with the final state hash.
+    // replayFile: drive the player from such a recording instead of the keyboard and mouse, then
+    // check the session ended in the recorded state. Both need the local world, not a server's.
+    public Game(InetSocketAddress serverAddress, Path recordFile, Path replayFile) {
+        if (recordFile != null && replayFile != null) throw new IllegalArgumentException("Can't record and replay at once");
+        if (serverAddress != null && (recordFile != null || replayFile != null)) {
+            throw new IllegalArgumentException("Recording and replay only work on a local world");
+        }
+        this.serverAddress = serverAddress;
+        this.recordFile = recordFile;
+        this.replayFile = replayFile;
+    }
+
+    // CPU and GPU time a frame may take before QualityGovernor lowers quality; 0 keeps full quality.
+    public void setFrameBudget(float ms) {
+        if (ms < 0) throw new IllegalArgumentException("Frame budget can't be negative");
+        frameBudgetMs = ms;
+    }
+
+    // Disk space for cached section meshes of the local world; 0 turns the cache off.
+    public void setMeshCacheSize(long bytes) {
+        if (bytes < 0) throw new IllegalArgumentException("Mesh cache size can't be negative");
+        meshCacheBytes = bytes;
+    }
+
     public void run() {
         init();
         loop();
@@ -35,6 +98,7 @@ public class Game {
     }
     
     private void init() {
+        initStart = System.nanoTime();
         // Initialize GLFW
         GLFWErrorCallback.createPrint(System.err).set();
         if (!GLFW.glfwInit()) {
@@ -79,33 +143,61 @@ public class Game {
         
         // Create camera
         camera = new Camera(WIDTH, HEIGHT);
-        camera.setPosition(new Vector3f(World.SIZE_X / 2f, 20f, World.SIZE_Z / 2f));
         
-        // Create shader program
-        shaderProgram = new ShaderProgram();
-        shaderProgram.createVertexShader("#version 330\n" +
-                "layout (location=0) in vec3 position;\n" +
-                "layout (location=1) in vec4 color;\n" +
-                "out vec4 vColor;\n" +
-                "uniform mat4 projectionMatrix;\n" +
-                "uniform mat4 viewMatrix;\n" +
-                "uniform mat4 modelMatrix;\n" +
-                "void main() {\n" +
-                "   vColor = color;\n" +
-                "   gl_Position = projectionMatrix * viewMatrix * modelMatrix * vec4(position, 1.0);\n" +
-                "}");
-        shaderProgram.createFragmentShader("#version 330\n" +
-                "in vec4 vColor;\n" +
-                "out vec4 fragColor;\n" +
-                "void main() {\n" +
-                "   fragColor = vColor;\n" +
-                "}");
-        shaderProgram.link();
+        // Shader program from the classpath, reusing the driver's binary from an earlier launch
+        shaderProgram = new ShaderCache(ShaderCache.defaultDir()).load("/shaders/vertex.vs", "/shaders/fragment.fs");
         
-        // Create world
-        world = new World();
+        // Create world, or an empty one mirrored from the server
+        if (serverAddress != null) {
+            simulation = new Simulation(World.empty(), 0);
+            simulation.setAuthoritative(false);
+            try {
+                netClient = new NetClient(simulation.getWorld(), serverAddress);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to connect to " + serverAddress, e);
+            }
+        } else {
+            simulation = new Simulation();
+        }
+        world = simulation.getWorld();
+        worldRenderer = new WorldRenderer(world);
+        // A server's world arrives section by section after this, so there's nothing to reuse
+        if (serverAddress == null && meshCacheBytes > 0) {
+            meshCache = new MeshCache(MeshCache.defaultDir(), meshCacheBytes);
+            worldRenderer.setMeshCache(meshCache);
+        }
+        player = new PlayerController(camera, simulation);
+        player.spawn();
+
+        // Live counters for JConsole: DOMAIN:type=Metrics,name=game
+        frameTime = metrics.histogram("frame.time");
+        simulation.registerMetrics(metrics);
+        worldRenderer.registerMetrics(metrics);
+        if (meshCache != null) meshCache.registerMetrics(metrics);
 
-        lastTime = GLFW.glfwGetTime();
+        // One core stays with the render thread; the governor may take the others back
+        int maxWorkers = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        if (frameBudgetMs > 0) {
+            governor = new QualityGovernor(frameBudgetMs, maxWorkers);
+            governor.registerMetrics(metrics);
+            if (GpuTimer.isSupported()) {
+                gpuTimer = new GpuTimer();
+                gpuTime = metrics.histogram("frame.gpuTime");
+            }
+        }
+        setWorkerThreads(maxWorkers);
+        metrics.registerJvmGauges();
+        metrics.registerMBean("game");
+
+        glfwInput = new GlfwInputSource(window);
+        input = glfwInput;
+        try {
+            if (recordFile != null) input = recorder = new InputRecorder(glfwInput, recordFile);
+            if (replayFile != null) input = replay = new InputReplay(replayFile);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to open input recording", e);
+        }
+        System.out.printf("startup took %.1fms%n", (System.nanoTime() - initStart) / 1e6);
     }
     
     private void setupInputCallbacks() {
@@ -114,9 +206,7 @@ public class Game {
                 GLFW.glfwSetWindowShouldClose(window, true);
             }
             if (action == GLFW.GLFW_PRESS) {
-                if (key == GLFW.GLFW_KEY_1) selectedBlock = World.BlockType.DIRT;
-                if (key == GLFW.GLFW_KEY_2) selectedBlock = World.BlockType.STONE;
-                if (key == GLFW.GLFW_KEY_3) selectedBlock = World.BlockType.WOOD;
+                if (key >= GLFW.GLFW_KEY_1 && key < GLFW.GLFW_KEY_1 + HOTBAR.length) glfwInput.selectSlot(key - GLFW.GLFW_KEY_1);
             }
         });
         
@@ -131,67 +221,120 @@ public class Game {
         // Run the rendering loop until the user has attempted to close
         // the window or has pressed the ESCAPE key.
         while (!GLFW.glfwWindowShouldClose(window)) {
-            double now = GLFW.glfwGetTime();
-            float dt = (float) Math.min(0.05, now - lastTime);
-            lastTime = now;
+            long frameStart = System.nanoTime();
+
             // Poll for window events
             GLFW.glfwPollEvents();
             
+            // Next frame of input; a replay closes the window once it runs out
+            if (!input.next(frame)) break;
+            
             // Update game state
-            update(dt);
+            update();
             
             // Clear the framebuffer
+            if (gpuTimer != null) gpuTimer.begin();
             GL11.glClear(GL11.GL_COLOR_BUFFER_BIT | GL11.GL_DEPTH_BUFFER_BIT);
             
             // Render the scene
             render();
+            if (gpuTimer != null) gpuTimer.end();
+            long cpuNanos = System.nanoTime() - frameStart;
             
             // Swap the color buffers
             GLFW.glfwSwapBuffers(window);
+            frameTime.record(System.nanoTime() - frameStart);
+            if (!firstFrameShown) {
+                firstFrameShown = true;
+                System.out.printf("first frame %.1fms after startup began%s%n", (System.nanoTime() - initStart) / 1e6,
+                        meshCache == null ? "" : String.format(" (mesh cache: %d hits, %d misses)", meshCache.getHits(), meshCache.getMisses()));
+            }
+            govern(cpuNanos);
         }
+        finishInput();
     }
     
-    private void update(float dt) {
-        // Mouse look
-        double[] xpos = new double[1];
-        double[] ypos = new double[1];
-        GLFW.glfwGetCursorPos(window, xpos, ypos);
-        camera.rotate((float) xpos[0], (float) ypos[0]);
-
-        // Movement input
-        boolean forward = GLFW.glfwGetKey(window, GLFW.GLFW_KEY_W) == GLFW.GLFW_PRESS;
-        boolean back = GLFW.glfwGetKey(window, GLFW.GLFW_KEY_S) == GLFW.GLFW_PRESS;
-        boolean left = GLFW.glfwGetKey(window, GLFW.GLFW_KEY_A) == GLFW.GLFW_PRESS;
-        boolean right = GLFW.glfwGetKey(window, GLFW.GLFW_KEY_D) == GLFW.GLFW_PRESS;
-        boolean jump = GLFW.glfwGetKey(window, GLFW.GLFW_KEY_SPACE) == GLFW.GLFW_PRESS;
-
-        camera.updatePhysics(world, dt, forward, back, left, right, jump);
-
-        // Mining/Placing
-        boolean lmb = GLFW.glfwGetMouseButton(window, GLFW.GLFW_MOUSE_BUTTON_LEFT) == GLFW.GLFW_PRESS;
-        boolean rmb = GLFW.glfwGetMouseButton(window, GLFW.GLFW_MOUSE_BUTTON_RIGHT) == GLFW.GLFW_PRESS;
-
-        Vector3f origin = new Vector3f(camera.getPosition());
-        Vector3f dir = camera.getForwardVector(new Vector3f());
-        Vector3f hit = new Vector3f();
-        Vector3f normal = new Vector3f();
-        if (!lmbPrev && lmb) {
-            if (world.raycast(origin, dir, 6f, hit, normal)) {
-                world.setBlock((int) hit.x, (int) hit.y, (int) hit.z, World.BlockType.AIR);
-                world.rebuildMesh();
+    private void update() {
+        pollServer();
+
+        // Don't fall through a world that hasn't arrived yet
+        player.update(frame, netClient == null || netClient.isSynced());
+
+        sendEdits();
+    }
+
+    // Work time before the vsync wait, and the GPU time of an earlier frame, feed the governor
+    private void govern(long cpuNanos) {
+        if (governor == null) return;
+        long gpuNanos = gpuTimer != null ? gpuTimer.poll() : -1;
+        if (gpuNanos >= 0) gpuTime.record(gpuNanos);
+        if (governor.onFrame(cpuNanos, gpuNanos)) applyQuality(governor.getSettings());
+    }
+
+    private void applyQuality(QualityGovernor.Level quality) {
+        worldRenderer.setMeshBudget(quality.meshBudget);
+        float[] lod = WorldRenderer.DEFAULT_LOD_DISTANCES.clone();
+        for (int i = 0; i < lod.length; i++) lod[i] *= quality.lodScale;
+        worldRenderer.setLodDistances(lod);
+        worldRenderer.setRenderDistance(quality.renderDistance);
+        setWorkerThreads(quality.workerThreads);
+    }
+
+    // Entity and fluid stepping moves to a new pool; one thread steps them inline.
+    private void setWorkerThreads(int threads) {
+        if (threads == workerThreads) return;
+        ForkJoinPool old = workerPool;
+        workerPool = threads > 1 ? new ForkJoinPool(threads) : null;
+        workerThreads = threads;
+        simulation.setWorkerPool(workerPool);
+        if (old != null) old.shutdown();
+    }
+
+    private void finishInput() {
+        long hash = player.stateHash();
+        try {
+            if (recorder != null) {
+                recorder.finish(hash);
+                System.out.printf("recorded %d frames to %s, state hash %016x%n", recorder.getFrames(), recordFile, hash);
             }
+            if (replay != null) {
+                replay.close();
+                if (!replay.isFinished()) {
+                    System.out.printf("replay stopped after %d frames, state hash %016x%n", replay.getFrames(), hash);
+                } else if (!replay.hasExpectedHash()) {
+                    System.out.printf("replayed %d frames, state hash %016x (recording has no hash to check)%n", replay.getFrames(), hash);
+                } else {
+                    System.out.printf("replayed %d frames, state hash %016x %s recorded %016x%n", replay.getFrames(), hash,
+                            hash == replay.getExpectedHash() ? "matches" : "DIFFERS FROM", replay.getExpectedHash());
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to finish input recording: " + e.getMessage());
+        }
+    }
+    
+    private void pollServer() {
+        if (netClient == null) return;
+        try {
+            netClient.poll();
+        } catch (IOException e) {
+            System.err.println("Lost connection to server: " + e.getMessage());
+            netClient.close();
+            netClient = null;
         }
-        if (!rmbPrev && rmb) {
-            if (world.raycast(origin, dir, 6f, hit, normal)) {
-                int px = (int) hit.x + (int) normal.x;
-                int py = (int) hit.y + (int) normal.y;
-                int pz = (int) hit.z + (int) normal.z;
-                world.setBlock(px, py, pz, selectedBlock);
-                world.rebuildMesh();
+    }
+
+    // This frame's mine/place edits go out as one delta packet.
+    private void sendEdits() {
+        BlockDeltaBatch edits = simulation.getEdits();
+        if (netClient != null) {
+            try {
+                netClient.sendEdits(edits);
+            } catch (IOException e) {
+                System.err.println("Failed to send edits: " + e.getMessage());
             }
         }
-        lmbPrev = lmb;
-        rmbPrev = rmb;
+        edits.clear();
     }
     
     private void render() {
@@ -202,7 +345,7 @@ public class Game {
         shaderProgram.setUniform("viewMatrix", camera.getViewMatrix());
         
         // Render the world
-        world.render(shaderProgram);
+        worldRenderer.render(shaderProgram, camera.getPosition());
         
         // Render HUD on top
         renderHUD();
@@ -212,9 +355,8 @@ public class Game {
 
     private void renderHUD() {
         // Prepare orthographic projection
-        Matrix4f ortho = new Matrix4f().ortho(0, WIDTH, HEIGHT, 0, -1, 1);
-        shaderProgram.setUniform("projectionMatrix", ortho);
-        shaderProgram.setUniform("viewMatrix", new Matrix4f().identity());
+        shaderProgram.setUniform("projectionMatrix", hudProjection);
+        shaderProgram.setUniform("viewMatrix", hudIdentity);
 
         // Disable depth so UI is always on top
         GL11.glDisable(GL11.GL_DEPTH_TEST);
@@ -223,91 +365,102 @@ public class Game {
             hudVao = org.lwjgl.opengl.GL30.glGenVertexArrays();
             hudPosVbo = org.lwjgl.opengl.GL15.glGenBuffers();
             hudColVbo = org.lwjgl.opengl.GL15.glGenBuffers();
+            org.lwjgl.opengl.GL30.glBindVertexArray(hudVao);
+            org.lwjgl.opengl.GL15.glBindBuffer(org.lwjgl.opengl.GL15.GL_ARRAY_BUFFER, hudPosVbo);
+            org.lwjgl.opengl.GL15.glBufferData(org.lwjgl.opengl.GL15.GL_ARRAY_BUFFER, (long) hudPos.length * Float.BYTES, org.lwjgl.opengl.GL15.GL_DYNAMIC_DRAW);
+            org.lwjgl.opengl.GL20.glVertexAttribPointer(0, 3, org.lwjgl.opengl.GL11.GL_FLOAT, false, 0, 0);
+            org.lwjgl.opengl.GL15.glBindBuffer(org.lwjgl.opengl.GL15.GL_ARRAY_BUFFER, hudColVbo);
+            org.lwjgl.opengl.GL15.glBufferData(org.lwjgl.opengl.GL15.GL_ARRAY_BUFFER, (long) hudCol.length * Float.BYTES, org.lwjgl.opengl.GL15.GL_DYNAMIC_DRAW);
+            org.lwjgl.opengl.GL20.glVertexAttribPointer(1, 4, org.lwjgl.opengl.GL11.GL_FLOAT, false, 0, 0);
         }
 
         org.lwjgl.opengl.GL30.glBindVertexArray(hudVao);
+        org.lwjgl.opengl.GL20.glEnableVertexAttribArray(0);
+        org.lwjgl.opengl.GL20.glEnableVertexAttribArray(1);
+
+        // The HUD only changes with the selected slot; rebuild and upload it then
+        int selIndex = 0;
+        while (HOTBAR[selIndex] != player.getSelectedBlock()) selIndex++;
+        if (selIndex != hudSelected) {
+            buildHUD(selIndex);
+            hudSelected = selIndex;
+            org.lwjgl.opengl.GL15.glBindBuffer(org.lwjgl.opengl.GL15.GL_ARRAY_BUFFER, hudPosVbo);
+            org.lwjgl.opengl.GL15.glBufferSubData(org.lwjgl.opengl.GL15.GL_ARRAY_BUFFER, 0, hudPos);
+            org.lwjgl.opengl.GL15.glBindBuffer(org.lwjgl.opengl.GL15.GL_ARRAY_BUFFER, hudColVbo);
+            org.lwjgl.opengl.GL15.glBufferSubData(org.lwjgl.opengl.GL15.GL_ARRAY_BUFFER, 0, hudCol);
+        }
+
+        shaderProgram.setUniform("modelMatrix", hudIdentity);
+        org.lwjgl.opengl.GL11.glDrawArrays(org.lwjgl.opengl.GL11.GL_TRIANGLES, 0, HUD_VERTICES);
+
+        org.lwjgl.opengl.GL30.glBindVertexArray(0);
+        GL11.glEnable(GL11.GL_DEPTH_TEST);
+    }
 
-        // Build simple hotbar (3 slots) and crosshair
+    // Simple hotbar and crosshair, written into the fixed-size hudPos/hudCol arrays
+    private void buildHUD(int selIndex) {
+        hudVertex = 0;
         float slotW = 60, slotH = 60;
         float margin = 10;
-        float totalW = slotW * 3 + margin * 2;
+        float totalW = slotW * HOTBAR.length + margin * (HOTBAR.length - 1);
         float x0 = (WIDTH - totalW) / 2f;
         float y0 = HEIGHT - slotH - 20;
 
-        java.util.ArrayList<Float> pos = new java.util.ArrayList<>();
-        java.util.ArrayList<Float> col = new java.util.ArrayList<>();
-
         // Slots background
-        for (int i = 0; i < 3; i++) {
+        for (int i = 0; i < HOTBAR.length; i++) {
             float x = x0 + i * (slotW + margin);
-            addQuad(pos, col, x, y0, slotW, slotH, 0f, 0f, 0f, 0.5f);
+            addQuad(x, y0, slotW, slotH, 0f, 0f, 0f, 0.5f);
         }
 
         // Selected border (slightly bigger)
-        int selIndex = (selectedBlock == World.BlockType.DIRT ? 0 : (selectedBlock == World.BlockType.STONE ? 1 : 2));
         float bx = x0 + selIndex * (slotW + margin) - 3;
         float by = y0 - 3;
-        addFrame(pos, col, bx, by, slotW + 6, slotH + 6, 4f, 1f, 1f, 1f, 1f);
+        addFrame(bx, by, slotW + 6, slotH + 6, 4f, 1f, 1f, 1f, 1f);
 
         // Crosshair (two thin quads)
         float cx = WIDTH / 2f; float cy = HEIGHT / 2f;
-        addQuad(pos, col, cx - 10, cy - 1, 20, 2, 1f, 1f, 1f, 0.9f);
-        addQuad(pos, col, cx - 1, cy - 10, 2, 20, 1f, 1f, 1f, 0.9f);
-
-        float[] posArr = toArray(pos);
-        float[] colArr = toArray(col);
-
-        org.lwjgl.BufferUtils.createFloatBuffer(1); // ensure class loaded
-        java.nio.FloatBuffer pbuf = org.lwjgl.BufferUtils.createFloatBuffer(posArr.length).put(posArr);
-        pbuf.flip();
-        java.nio.FloatBuffer cbuf = org.lwjgl.BufferUtils.createFloatBuffer(colArr.length).put(colArr);
-        cbuf.flip();
-
-        org.lwjgl.opengl.GL15.glBindBuffer(org.lwjgl.opengl.GL15.GL_ARRAY_BUFFER, hudPosVbo);
-        org.lwjgl.opengl.GL15.glBufferData(org.lwjgl.opengl.GL15.GL_ARRAY_BUFFER, pbuf, org.lwjgl.opengl.GL15.GL_DYNAMIC_DRAW);
-        org.lwjgl.opengl.GL20.glVertexAttribPointer(0, 3, org.lwjgl.opengl.GL11.GL_FLOAT, false, 0, 0);
-        org.lwjgl.opengl.GL20.glEnableVertexAttribArray(0);
-
-        org.lwjgl.opengl.GL15.glBindBuffer(org.lwjgl.opengl.GL15.GL_ARRAY_BUFFER, hudColVbo);
-        org.lwjgl.opengl.GL15.glBufferData(org.lwjgl.opengl.GL15.GL_ARRAY_BUFFER, cbuf, org.lwjgl.opengl.GL15.GL_DYNAMIC_DRAW);
-        org.lwjgl.opengl.GL20.glVertexAttribPointer(1, 4, org.lwjgl.opengl.GL11.GL_FLOAT, false, 0, 0);
-        org.lwjgl.opengl.GL20.glEnableVertexAttribArray(1);
-
-        shaderProgram.setUniform("modelMatrix", new Matrix4f().identity());
-        org.lwjgl.opengl.GL11.glDrawArrays(org.lwjgl.opengl.GL11.GL_TRIANGLES, 0, posArr.length / 3);
-
-        org.lwjgl.opengl.GL30.glBindVertexArray(0);
-        GL11.glEnable(GL11.GL_DEPTH_TEST);
+        addQuad(cx - 10, cy - 1, 20, 2, 1f, 1f, 1f, 0.9f);
+        addQuad(cx - 1, cy - 10, 2, 20, 1f, 1f, 1f, 0.9f);
     }
 
-    private void addQuad(java.util.List<Float> pos, java.util.List<Float> col, float x, float y, float w, float h, float r, float g, float b, float a) {
+    private void addQuad(float x, float y, float w, float h, float r, float g, float b, float a) {
         float z = 0f;
         // two triangles
-        addVertex(pos, x, y, z); addColor(col, r, g, b, a);
-        addVertex(pos, x, y + h, z); addColor(col, r, g, b, a);
-        addVertex(pos, x + w, y + h, z); addColor(col, r, g, b, a);
-        addVertex(pos, x + w, y + h, z); addColor(col, r, g, b, a);
-        addVertex(pos, x + w, y, z); addColor(col, r, g, b, a);
-        addVertex(pos, x, y, z); addColor(col, r, g, b, a);
+        addVertex(x, y, z, r, g, b, a);
+        addVertex(x, y + h, z, r, g, b, a);
+        addVertex(x + w, y + h, z, r, g, b, a);
+        addVertex(x + w, y + h, z, r, g, b, a);
+        addVertex(x + w, y, z, r, g, b, a);
+        addVertex(x, y, z, r, g, b, a);
     }
 
-    private void addFrame(java.util.List<Float> pos, java.util.List<Float> col, float x, float y, float w, float h, float t, float r, float g, float b, float a) {
+    private void addFrame(float x, float y, float w, float h, float t, float r, float g, float b, float a) {
         // top, bottom, left, right rectangles
-        addQuad(pos, col, x, y, w, t, r, g, b, a);
-        addQuad(pos, col, x, y + h - t, w, t, r, g, b, a);
-        addQuad(pos, col, x, y + t, t, h - 2*t, r, g, b, a);
-        addQuad(pos, col, x + w - t, y + t, t, h - 2*t, r, g, b, a);
+        addQuad(x, y, w, t, r, g, b, a);
+        addQuad(x, y + h - t, w, t, r, g, b, a);
+        addQuad(x, y + t, t, h - 2*t, r, g, b, a);
+        addQuad(x + w - t, y + t, t, h - 2*t, r, g, b, a);
     }
 
-    private void addVertex(java.util.List<Float> pos, float x, float y, float z) {
-        pos.add(x); pos.add(y); pos.add(z);
-    }
-    private void addColor(java.util.List<Float> col, float r, float g, float b, float a) {
-        col.add(r); col.add(g); col.add(b); col.add(a);
+    private void addVertex(float x, float y, float z, float r, float g, float b, float a) {
+        int p = hudVertex * 3, c = hudVertex * 4;
+        hudPos[p] = x; hudPos[p + 1] = y; hudPos[p + 2] = z;
+        hudCol[c] = r; hudCol[c + 1] = g; hudCol[c + 2] = b; hudCol[c + 3] = a;
+        hudVertex++;
     }
-    private float[] toArray(java.util.List<Float> list) { float[] arr = new float[list.size()]; for (int i=0;i<arr.length;i++) arr[i]=list.get(i); return arr; }
     
     private void cleanup() {
+        // Clean up world meshes, timers and shaders while the GL context is still current
+        if (worldRenderer != null) {
+            worldRenderer.cleanup();
+        }
+        if (gpuTimer != null) {
+            gpuTimer.cleanup();
+        }
+        if (shaderProgram != null) {
+            shaderProgram.cleanup();
+        }
+
         // Free the window callbacks and destroy the window
         GLFW.glfwDestroyWindow(window);
         
@@ -315,13 +468,45 @@ public class Game {
         GLFW.glfwTerminate();
         GLFW.glfwSetErrorCallback(null).free();
         
-        // Clean up shaders
-        if (shaderProgram != null) {
-            shaderProgram.cleanup();
+        if (netClient != null) {
+            netClient.close();
+        }
+        metrics.unregisterMBean();
+        if (workerPool != null) workerPool.shutdown();
+        if (meshCache != null) {
+            meshCache.close();
+        }
+        if (world != null) {
+            world.close();
         }
     }
     
+    // Usage: Game [--connect host:port] [--record FILE | --replay FILE] [--budget MS] [--mesh-cache MB]
+    //   --budget MS       frame time the quality governor aims for (default 16.7, 0 turns it off)
+    //   --mesh-cache MB   disk space for cached section meshes (default 64, 0 turns it off)
     public static void main(String[] args) {
-        new Game().run();
+        InetSocketAddress server = null;
+        Path record = null;
+        Path replay = null;
+        float budget = DEFAULT_FRAME_BUDGET_MS;
+        long meshCacheBytes = MeshCache.DEFAULT_MAX_BYTES;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--connect")) {
+                String[] hostPort = args[++i].split(":");
+                server = new InetSocketAddress(hostPort[0], Integer.parseInt(hostPort[1]));
+            } else if (args[i].equals("--record")) {
+                record = Paths.get(args[++i]);
+            } else if (args[i].equals("--replay")) {
+                replay = Paths.get(args[++i]);
+            } else if (args[i].equals("--budget")) {
+                budget = Float.parseFloat(args[++i]);
+            } else if (args[i].equals("--mesh-cache")) {
+                meshCacheBytes = Long.parseLong(args[++i]) * 1024 * 1024;
+            }
+        }
+        Game game = new Game(server, record, replay);
+        game.setFrameBudget(budget);
+        game.setMeshCacheSize(meshCacheBytes);
+        game.run();
     }
 }
@@ -0,0 +1,52 @@
+package com.games.simpleminecraft;
+
+import org.lwjgl.glfw.GLFW;
+
+// Live input polled from a GLFW window. dt is the time since the previous frame, capped at 50ms
+// so a stall doesn't launch the player through the world.
+public class GlfwInputSource implements InputSource {
+    private static final float MAX_DT = 0.05f;
+
+    private final long window;
+    private final double[] cursorX = new double[1];
+    private final double[] cursorY = new double[1];
+    private double lastTime;
+    private int hotbarSlot;
+
+    public GlfwInputSource(long window) {
+        this.window = window;
+        this.lastTime = GLFW.glfwGetTime();
+    }
+
+    // Hotbar selection arrives as key events, so the window's key callback reports it here.
+    public void selectSlot(int slot) {
+        hotbarSlot = slot;
+    }
+
+    @Override
+    public boolean next(InputFrame frame) {
+        double now = GLFW.glfwGetTime();
+        frame.dt = (float) Math.min(MAX_DT, now - lastTime);
+        lastTime = now;
+
+        GLFW.glfwGetCursorPos(window, cursorX, cursorY);
+        frame.cursorX = (float) cursorX[0];
+        frame.cursorY = (float) cursorY[0];
+
+        int buttons = 0;
+        if (key(GLFW.GLFW_KEY_W)) buttons |= InputFrame.FORWARD;
+        if (key(GLFW.GLFW_KEY_S)) buttons |= InputFrame.BACK;
+        if (key(GLFW.GLFW_KEY_A)) buttons |= InputFrame.LEFT;
+        if (key(GLFW.GLFW_KEY_D)) buttons |= InputFrame.RIGHT;
+        if (key(GLFW.GLFW_KEY_SPACE)) buttons |= InputFrame.JUMP;
+        if (GLFW.glfwGetMouseButton(window, GLFW.GLFW_MOUSE_BUTTON_LEFT) == GLFW.GLFW_PRESS) buttons |= InputFrame.MINE;
+        if (GLFW.glfwGetMouseButton(window, GLFW.GLFW_MOUSE_BUTTON_RIGHT) == GLFW.GLFW_PRESS) buttons |= InputFrame.PLACE;
+        frame.buttons = buttons;
+        frame.hotbarSlot = hotbarSlot;
+        return true;
+    }
+
+    private boolean key(int key) {
+        return GLFW.glfwGetKey(window, key) == GLFW.GLFW_PRESS;
+    }
+}
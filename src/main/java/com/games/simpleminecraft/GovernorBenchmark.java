@@ -0,0 +1,113 @@
+package com.games.simpleminecraft;
+
+import java.util.Random;
+
+// Drives QualityGovernor with frame times from a synthetic machine, whose cost follows the
+// governor's own settings, and checks how it settles:
+//   fast   -- fits the budget at full quality: no change at all;
+//   mid    -- has to give up a few levels;
+//   weak   -- has to give up most of them;
+//   border -- hovers around the downgrade threshold at its level, where single noisy windows
+//             must not move it;
+//   spike  -- fast, then weak for a while (a heavy scene), then fast again: goes down within a
+//             few windows and climbs back to full quality once the load is gone.
+// For mid, weak and border, the second half of the run may change level at most MAX_LATE_CHANGES
+// times (failed upgrades back off rather than flapping) and under 15% of its frames may run past
+// the downgrade threshold.
+// Frame cost in ms for speed 1, plus 8% noise: 3 base + 0.8 per section uploaded (edits arrive
+// at random, with occasional bursts) + 8 for drawing, scaled down by LOD and render distance
+// + 0.6 per worker thread beyond the spare cores.
+// Usage: GovernorBenchmark [frames=20000] [budgetMs=16.7] [maxWorkers=7]
+public class GovernorBenchmark {
+    private static final int SPARE_CORES = 3;
+    private static final int MAX_LATE_CHANGES = 4;
+
+    private final QualityGovernor governor;
+    private final Random random = new Random(7);
+    private int pendingSections;
+
+    private GovernorBenchmark(QualityGovernor governor) {
+        this.governor = governor;
+    }
+
+    public static void main(String[] args) {
+        int frames = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        float budget = args.length > 1 ? Float.parseFloat(args[1]) : Game.DEFAULT_FRAME_BUDGET_MS;
+        int maxWorkers = args.length > 2 ? Integer.parseInt(args[2]) : 7;
+
+        run("fast", frames, budget, maxWorkers, 0.6f, 0.6f);
+        run("mid", frames, budget, maxWorkers, 1.4f, 1.4f);
+        run("weak", frames, budget, maxWorkers, 2.5f, 2.5f);
+        run("border", frames, budget, maxWorkers, 2.15f, 2.15f);
+        run("spike", frames, budget, maxWorkers, 0.6f, 2.5f);
+    }
+
+    // Speed factor `base`, except `spike` during the middle third of the run.
+    private static void run(String name, int frames, float budget, int maxWorkers, float base, float spike) {
+        System.out.printf("-- %s: speed %.2f%s%n", name, base, spike != base ? String.format(", %.1f in the middle third", spike) : "");
+        MetricsRegistry metrics = new MetricsRegistry();
+        QualityGovernor governor = new QualityGovernor(budget, maxWorkers);
+        governor.registerMetrics(metrics);
+        GovernorBenchmark machine = new GovernorBenchmark(governor);
+
+        int levels = governor.getLevelCount();
+        int[] timeAtLevel = new int[levels];
+        int changes = 0, lateChanges = 0, lateOver = 0, spikeReaction = -1, deepest = 0;
+        double threshold = budget * QualityGovernor.DOWNGRADE_RATIO;
+        for (int f = 0; f < frames; f++) {
+            boolean inSpike = f >= frames / 3 && f < frames * 2 / 3;
+            double ms = machine.frameMs(inSpike ? spike : base);
+            boolean late = f >= frames / 2;
+            if (late) {
+                timeAtLevel[governor.getLevel()]++;
+                if (ms > threshold) lateOver++;
+            }
+            if (governor.onFrame((long) (ms * 1_000_000), -1)) {
+                changes++;
+                if (late) lateChanges++;
+                if (inSpike && spikeReaction < 0) spikeReaction = f - frames / 3;
+            }
+            deepest = Math.max(deepest, governor.getLevel());
+        }
+
+        int settled = 0;
+        for (int l = 1; l < levels; l++) if (timeAtLevel[l] > timeAtLevel[settled]) settled = l;
+        int lateFrames = frames - frames / 2;
+        MetricsSnapshot s = metrics.snapshot();
+        System.out.printf("%s: %d changes (%d in the second half), final level %d/%d, deepest %d, second half %.0f%% at level %d, %.1f%% frames over %.1fms%n",
+                name, changes, lateChanges, governor.getLevel(), levels - 1, deepest,
+                100.0 * timeAtLevel[settled] / lateFrames, settled, 100.0 * lateOver / lateFrames, threshold);
+
+        check(s.counter("quality.downgrades") + s.counter("quality.upgrades") == changes, name + ": change counters");
+        check(s.gauge("quality.level") == governor.getLevel(), name + ": level gauge");
+        switch (name) {
+            case "fast":
+                check(changes == 0, "fast: changed quality " + changes + " times");
+                break;
+            case "spike":
+                int reactionLimit = QualityGovernor.WINDOW * 3;
+                check(spikeReaction >= 0 && spikeReaction <= reactionLimit, "spike: reacted after " + spikeReaction + " frames");
+                check(governor.getLevel() == 0, "spike: ended at level " + governor.getLevel());
+                break;
+            default:
+                check(lateChanges <= MAX_LATE_CHANGES, name + ": " + lateChanges + " changes after settling");
+                check(lateOver < lateFrames * 0.15, name + ": " + lateOver + " frames over budget after settling");
+        }
+    }
+
+    private double frameMs(float speed) {
+        QualityGovernor.Level q = governor.getSettings();
+        pendingSections += random.nextInt(100) < 2 ? 12 : random.nextInt(3);
+        int uploaded = Math.min(pendingSections, q.meshBudget);
+        pendingSections -= uploaded;
+        double coverage = Float.isInfinite(q.renderDistance) ? 1 : Math.pow(Math.min(1, q.renderDistance / 112), 2);
+        double draw = 8 * (0.5 + 0.5 * q.lodScale) * coverage;
+        double contention = 0.6 * Math.max(0, q.workerThreads - SPARE_CORES);
+        double ms = (3 + 0.8 * uploaded + draw + contention) * speed;
+        return ms * (1 + 0.08 * random.nextGaussian());
+    }
+
+    private static void check(boolean ok, String what) {
+        if (!ok) throw new IllegalStateException("Check failed: " + what);
+    }
+}
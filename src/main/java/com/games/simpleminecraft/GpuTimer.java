@@ -0,0 +1,55 @@
+package com.games.simpleminecraft;
+
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL33.*;
+
+import org.lwjgl.opengl.GL;
+
+// GPU time of each frame's draw calls from GL_TIME_ELAPSED queries. Results are read a few
+// frames late, only once the driver reports them available, so timing never stalls the CPU on
+// the GPU. A frame whose begin() finds every query still pending goes untimed.
+public class GpuTimer {
+    private static final int QUERIES = 4;
+
+    private final int[] queries = new int[QUERIES];
+    private long begun;
+    private long read;
+    private boolean active;
+
+    public GpuTimer() {
+        glGenQueries(queries);
+    }
+
+    // Timer queries are core in 3.3 and otherwise need ARB_timer_query.
+    public static boolean isSupported() {
+        return GL.getCapabilities().OpenGL33 || GL.getCapabilities().GL_ARB_timer_query;
+    }
+
+    public void begin() {
+        active = begun - read < QUERIES;
+        if (active) glBeginQuery(GL_TIME_ELAPSED, queries[(int) (begun % QUERIES)]);
+    }
+
+    public void end() {
+        if (!active) return;
+        glEndQuery(GL_TIME_ELAPSED);
+        begun++;
+        active = false;
+    }
+
+    // Nanoseconds of the newest frame whose result has arrived since the last call, or -1.
+    public long poll() {
+        long nanos = -1;
+        while (read < begun) {
+            int query = queries[(int) (read % QUERIES)];
+            if (glGetQueryObjecti(query, GL_QUERY_RESULT_AVAILABLE) == GL_FALSE) break;
+            nanos = glGetQueryObjecti64(query, GL_QUERY_RESULT);
+            read++;
+        }
+        return nanos;
+    }
+
+    public void cleanup() {
+        glDeleteQueries(queries);
+    }
+}
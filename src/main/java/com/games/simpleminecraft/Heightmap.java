@@ -0,0 +1,48 @@
+package com.games.simpleminecraft;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+// Top-block heights of the 16x16 columns of one chunk: the highest solid block (spawning,
+// standing) and the highest block that stops skylight (anything but air; leaves and water dim it).
+// NONE for a column with no such block. Kept up to date by World.
+public class Heightmap {
+    public static final int NONE = -1;
+    public static final int COLUMNS = World.SECTION_SIZE * World.SECTION_SIZE;
+
+    final short[] solid = new short[COLUMNS];
+    final short[] lightBlocking = new short[COLUMNS];
+
+    Heightmap() {
+        Arrays.fill(solid, (short) NONE);
+        Arrays.fill(lightBlocking, (short) NONE);
+    }
+
+    static int column(int x, int z) {
+        return ((x & (World.SECTION_SIZE - 1)) << World.SECTION_SHIFT) | (z & (World.SECTION_SIZE - 1));
+    }
+
+    static boolean blocksSkylight(int id) {
+        return id != World.AIR;
+    }
+
+    public int getSolidTop(int x, int z) {
+        return solid[column(x, z)];
+    }
+
+    public int getLightBlockingTop(int x, int z) {
+        return lightBlocking[column(x, z)];
+    }
+
+    void write(DataOutput out) throws IOException {
+        for (short h : solid) out.writeShort(h);
+        for (short h : lightBlocking) out.writeShort(h);
+    }
+
+    void read(DataInput in) throws IOException {
+        for (int i = 0; i < COLUMNS; i++) solid[i] = in.readShort();
+        for (int i = 0; i < COLUMNS; i++) lightBlocking[i] = in.readShort();
+    }
+}
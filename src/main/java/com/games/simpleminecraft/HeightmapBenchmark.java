@@ -0,0 +1,120 @@
+package com.games.simpleminecraft;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+// Headless check of the column heightmaps: after random edits, bulk edits, a flood and a
+// save/load round trip, every column must match a full downward scan. The round trip must also
+// bring back the flood's fluid levels, and the reloaded flood must settle the same as the
+// original. Also times heightmap queries against the scan they replace.
+// Usage: HeightmapBenchmark [edits=200000]
+public class HeightmapBenchmark {
+    public static void main(String[] args) throws Exception {
+        int edits = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        Simulation sim = new Simulation(new World(), 0);
+        World world = sim.getWorld();
+        boolean ok = check(world, "generated");
+
+        Random rnd = new Random(3);
+        World.BlockType[] types = {World.BlockType.AIR, World.BlockType.STONE, World.BlockType.LEAVES, World.BlockType.WATER};
+        long start = System.nanoTime();
+        for (int i = 0; i < edits; i++) {
+            world.setBlock(rnd.nextInt(World.SIZE_X), rnd.nextInt(World.SIZE_Y), rnd.nextInt(World.SIZE_Z), types[rnd.nextInt(types.length)]);
+        }
+        System.out.printf("%d random setBlock calls with heightmap upkeep in %.1fms%n", edits, (System.nanoTime() - start) / 1e6);
+        ok &= check(world, "random edits");
+
+        BulkEditor editor = new BulkEditor(world);
+        editor.fill(0, 20, 0, 40, 31, 40, World.AIR);
+        editor.fill(10, 0, 10, 20, 25, 20, World.BlockType.STONE.id());
+        ok &= check(world, "bulk edits");
+        // The raw edits above left water the simulator never saw (a reload would wake it); the
+        // flood below should be the only fluid.
+        editor.replace(0, 0, 0, World.SIZE_X - 1, World.SIZE_Y - 1, World.SIZE_Z - 1, World.BlockType.WATER.id(), World.AIR);
+
+        sim.setBlock(32, 30, 32, World.BlockType.WATER.id());
+        for (int t = 0; t < 200; t++) sim.tick();
+        ok &= check(world, "flood");
+
+        Path dir = Files.createTempDirectory("heightmaps");
+        ChunkStore store = new ChunkStore(dir);
+        store.setFluids(sim.getFluids());
+        start = System.nanoTime();
+        int saved = store.save(world);
+        double saveMs = (System.nanoTime() - start) / 1e6;
+        Simulation reloaded = new Simulation(World.empty(), 0);
+        World loaded = reloaded.getWorld();
+        ChunkStore loader = new ChunkStore(dir);
+        loader.setFluids(reloaded.getFluids());
+        start = System.nanoTime();
+        int chunks = loader.load(loaded);
+        System.out.printf("saved %d chunks in %.1fms, loaded %d in %.1fms%n", saved, saveMs, chunks, (System.nanoTime() - start) / 1e6);
+        ok &= check(loaded, "loaded") && world.sameBlocks(loaded);
+        for (int i = 0; i < World.SECTION_COUNT; i++) {
+            if (loaded.isSectionUnsaved(i)) ok = false;
+        }
+        ok &= sameLevels(sim.getFluids(), reloaded.getFluids(), "loaded");
+        // Both floods run on until they settle; only the fluids step, since block ticks draw
+        // random numbers. Flows read back as sources would spread without end.
+        int ticks = 0;
+        while ((sim.getFluids().getActiveCount() > 0 || reloaded.getFluids().getActiveCount() > 0) && ticks < 1000) {
+            sim.getFluids().tick(sim);
+            reloaded.getFluids().tick(reloaded);
+            ticks++;
+        }
+        boolean settled = world.sameBlocks(loaded) && sameLevels(sim.getFluids(), reloaded.getFluids(), "settled");
+        System.out.printf("floods settled after %d more ticks, %s%n", ticks, settled ? "the same with and without a save/load" : "DIFFERENTLY after a save/load");
+        ok &= settled;
+
+        // Timed on fresh terrain, where a scan walks down through the sky to the surface.
+        World island = new World();
+        long sum = 0;
+        double mapNs = 0, scanNs = 0;
+        for (int pass = 0; pass < 2; pass++) { // first pass warms up
+            int rounds = 2000;
+            start = System.nanoTime();
+            for (int r = 0; r < rounds; r++)
+                for (int x = 0; x < World.SIZE_X; x++)
+                    for (int z = 0; z < World.SIZE_Z; z++) sum += island.getTopLightBlockingY(x, z);
+            mapNs = (double) (System.nanoTime() - start) / rounds / (World.SIZE_X * World.SIZE_Z);
+            start = System.nanoTime();
+            for (int r = 0; r < rounds; r++)
+                for (int x = 0; x < World.SIZE_X; x++)
+                    for (int z = 0; z < World.SIZE_Z; z++) sum -= scan(island, x, z, false);
+            scanNs = (double) (System.nanoTime() - start) / rounds / (World.SIZE_X * World.SIZE_Z);
+        }
+        System.out.printf("top-block query: heightmap %.1fns, downward scan %.1fns (checksum %d)%n", mapNs, scanNs, sum);
+        System.out.println(ok ? "heightmaps match full scans" : "MISMATCH between heightmaps and full scans");
+    }
+
+    private static boolean check(World world, String label) {
+        int bad = 0;
+        for (int x = 0; x < World.SIZE_X; x++)
+            for (int z = 0; z < World.SIZE_Z; z++) {
+                if (world.getTopSolidY(x, z) != scan(world, x, z, true)) bad++;
+                if (world.getTopLightBlockingY(x, z) != scan(world, x, z, false)) bad++;
+            }
+        if (bad > 0) System.out.printf("%s: %d wrong heightmap entries%n", label, bad);
+        return bad == 0;
+    }
+
+    private static boolean sameLevels(FluidSimulator a, FluidSimulator b, String label) {
+        int bad = 0;
+        for (int x = 0; x < World.SIZE_X; x++)
+            for (int y = 0; y < World.SIZE_Y; y++)
+                for (int z = 0; z < World.SIZE_Z; z++) {
+                    if (a.getLevel(x, y, z) != b.getLevel(x, y, z)) bad++;
+                }
+        if (bad > 0) System.out.printf("%s: %d fluid levels differ%n", label, bad);
+        return bad == 0;
+    }
+
+    private static int scan(World world, int x, int z, boolean solid) {
+        for (int y = World.SIZE_Y - 1; y >= 0; y--) {
+            int id = world.getBlockId(x, y, z);
+            if (solid ? BlockRegistry.isSolid(id) : id != World.AIR) return y;
+        }
+        return Heightmap.NONE;
+    }
+}
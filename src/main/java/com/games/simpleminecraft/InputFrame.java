@@ -0,0 +1,32 @@
+package com.games.simpleminecraft;
+
+// Everything the player did during one frame: held keys and buttons as bits, the cursor position
+// handed to Camera.rotate, the selected hotbar slot and the frame's dt. Filled by an InputSource.
+public class InputFrame {
+    public static final int FORWARD = 1;
+    public static final int BACK = 1 << 1;
+    public static final int LEFT = 1 << 2;
+    public static final int RIGHT = 1 << 3;
+    public static final int JUMP = 1 << 4;
+    public static final int MINE = 1 << 5;
+    public static final int PLACE = 1 << 6;
+    public static final int ALL_BUTTONS = (1 << 7) - 1;
+
+    public float dt;
+    public float cursorX;
+    public float cursorY;
+    public int buttons;
+    public int hotbarSlot;
+
+    public boolean isDown(int button) {
+        return (buttons & button) != 0;
+    }
+
+    public void set(InputFrame other) {
+        dt = other.dt;
+        cursorX = other.cursorX;
+        cursorY = other.cursorY;
+        buttons = other.buttons;
+        hotbarSlot = other.hotbarSlot;
+    }
+}
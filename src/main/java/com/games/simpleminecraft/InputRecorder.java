@@ -0,0 +1,80 @@
+package com.games.simpleminecraft;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Passes frames through from another source and appends each one to a recording file.
+//
+// File: MAGIC, FORMAT, then one record per frame and an end record carrying the state hash
+// the session finished with (see PlayerController.stateHash). A frame record is
+//   byte  TAG_FRAME, or TAG_FRAME_CURSOR when the cursor moved since the previous frame
+//   byte  buttons (InputFrame bits)
+//   byte  hotbar slot
+//   float dt
+//   float cursorX, cursorY   TAG_FRAME_CURSOR only
+// so a frame without mouse movement costs 7 bytes.
+public class InputRecorder implements InputSource, Closeable {
+    static final int MAGIC = 0x534D4952; // "SMIR"
+    static final int FORMAT = 1;
+    static final int TAG_FRAME = 1;
+    static final int TAG_FRAME_CURSOR = 2;
+    static final int TAG_END = 0;
+
+    private final InputSource source;
+    private final DataOutputStream out;
+    private float lastCursorX = Float.NaN;
+    private float lastCursorY = Float.NaN;
+    private int frames;
+
+    public InputRecorder(InputSource source, Path file) throws IOException {
+        this.source = source;
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT);
+    }
+
+    @Override
+    public boolean next(InputFrame frame) {
+        if (!source.next(frame)) return false;
+        boolean moved = Float.floatToIntBits(frame.cursorX) != Float.floatToIntBits(lastCursorX)
+                || Float.floatToIntBits(frame.cursorY) != Float.floatToIntBits(lastCursorY);
+        try {
+            out.writeByte(moved ? TAG_FRAME_CURSOR : TAG_FRAME);
+            out.writeByte(frame.buttons);
+            out.writeByte(frame.hotbarSlot);
+            out.writeFloat(frame.dt);
+            if (moved) {
+                out.writeFloat(frame.cursorX);
+                out.writeFloat(frame.cursorY);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to record input", e);
+        }
+        lastCursorX = frame.cursorX;
+        lastCursorY = frame.cursorY;
+        frames++;
+        return true;
+    }
+
+    public int getFrames() {
+        return frames;
+    }
+
+    // Ends the recording with the hash a replay has to reproduce.
+    public void finish(long stateHash) throws IOException {
+        out.writeByte(TAG_END);
+        out.writeLong(stateHash);
+        out.close();
+    }
+
+    // Closes without an end record; a replay of the file still runs but has nothing to verify.
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
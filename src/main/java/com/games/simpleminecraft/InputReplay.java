@@ -0,0 +1,85 @@
+package com.games.simpleminecraft;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Plays back a file written by InputRecorder frame by frame, including its dt values, so the
+// session runs the same ticks it did when recorded.
+public class InputReplay implements InputSource, Closeable {
+    private final DataInputStream in;
+    private float cursorX;
+    private float cursorY;
+    private boolean finished;
+    private boolean hasExpectedHash;
+    private long expectedHash;
+    private int frames;
+
+    public InputReplay(Path file) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+        if (in.readInt() != InputRecorder.MAGIC) throw new IOException("Not an input recording: " + file);
+        int format = in.readInt();
+        if (format != InputRecorder.FORMAT) throw new IOException("Unsupported recording format " + format + ": " + file);
+    }
+
+    @Override
+    public boolean next(InputFrame frame) {
+        if (finished) return false;
+        try {
+            int tag = in.readByte();
+            if (tag == InputRecorder.TAG_END) {
+                expectedHash = in.readLong();
+                hasExpectedHash = true;
+                finished = true;
+                return false;
+            }
+            if (tag != InputRecorder.TAG_FRAME && tag != InputRecorder.TAG_FRAME_CURSOR) {
+                throw new IOException("Corrupt recording: tag " + tag + " at frame " + frames);
+            }
+            frame.buttons = in.readUnsignedByte() & InputFrame.ALL_BUTTONS;
+            frame.hotbarSlot = in.readUnsignedByte();
+            frame.dt = in.readFloat();
+            if (tag == InputRecorder.TAG_FRAME_CURSOR) {
+                cursorX = in.readFloat();
+                cursorY = in.readFloat();
+            }
+            frame.cursorX = cursorX;
+            frame.cursorY = cursorY;
+        } catch (EOFException e) {
+            // Session ended without finish(), e.g. the recording process was killed.
+            finished = true;
+            return false;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        frames++;
+        return true;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public int getFrames() {
+        return frames;
+    }
+
+    // Whether the recording ended with a state hash; only valid once isFinished().
+    public boolean hasExpectedHash() {
+        return hasExpectedHash;
+    }
+
+    public long getExpectedHash() {
+        return expectedHash;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
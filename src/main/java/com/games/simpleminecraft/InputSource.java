@@ -0,0 +1,7 @@
+package com.games.simpleminecraft;
+
+// Per-frame player input: live from GLFW, or read back from a recording.
+public interface InputSource {
+    // Fills the next frame; false once the source has no more input.
+    boolean next(InputFrame frame);
+}
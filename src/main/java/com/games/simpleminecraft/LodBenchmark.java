@@ -0,0 +1,33 @@
+package com.games.simpleminecraft;
+
+// Headless check of the LOD meshes: meshes every section of the default island at each level
+// and reports vertex counts and build times relative to full detail.
+// Usage: LodBenchmark [rounds=20]
+public class LodBenchmark {
+    public static void main(String[] args) {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        World world = new World();
+        Mesher mesher = new Mesher();
+        LodMesher lodMesher = new LodMesher();
+
+        long fullVertices = 0;
+        for (int level = 0; level <= LodMesher.MAX_LEVEL; level++) {
+            long vertices = 0;
+            long start = 0;
+            for (int r = -1; r < rounds; r++) { // round -1 is warmup
+                if (r == 0) start = System.nanoTime();
+                vertices = 0;
+                for (int sx = 0; sx < World.SECTIONS_X; sx++)
+                    for (int sy = 0; sy < World.SECTIONS_Y; sy++)
+                        for (int sz = 0; sz < World.SECTIONS_Z; sz++) {
+                            SectionMeshData data = level == 0 ? mesher.build(world, sx, sy, sz) : lodMesher.build(world, sx, sy, sz, level);
+                            vertices += data.opaque.vertexCount + data.translucent.vertexCount;
+                        }
+            }
+            double ms = (System.nanoTime() - start) / 1e6 / rounds;
+            if (level == 0) fullVertices = vertices;
+            System.out.printf("level %d (%dx): %d vertices (%.1f%% of full detail), %.2fms to mesh all %d sections%n",
+                    level, 1 << level, vertices, 100.0 * vertices / fullVertices, ms, World.SECTION_COUNT);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.games.simpleminecraft;
+
+import java.util.Arrays;
+
+// Reduced-detail section meshes for distant terrain (no GL calls). Level L merges 2^L blocks per
+// axis into one cell: a cell is filled when at least half its blocks are, and takes the id of
+// its topmost block so grass stays green from afar. Faces are flat-shaded per direction, no AO,
+// and everything goes to the opaque pass.
+//
+// Faces on the section border are only dropped when the full-resolution blocks across the border
+// cover them completely; otherwise they stay as skirts, so a neighbour drawn at another level
+// never leaves a crack to see through.
+public class LodMesher {
+    public static final int MAX_LEVEL = 3;
+
+    // Per face, in Mesher.NORMALS order: FRONT, BACK, LEFT, RIGHT, TOP, BOTTOM.
+    private static final float[] FACE_SHADE = {0.8f, 0.8f, 0.7f, 0.7f, 1.0f, 0.55f};
+    private static final int[] TRIANGLES = {0, 1, 2, 2, 3, 0};
+    private static final MeshData EMPTY = new MeshData(new float[0], new float[0]);
+
+    private final short[] cells = new short[World.SECTION_SIZE * World.SECTION_SIZE * World.SECTION_SIZE];
+    private float[] pos = new float[1 << 12];
+    private float[] col = new float[1 << 12];
+    private int posLen, colLen;
+
+    public SectionMeshData build(World world, int sx, int sy, int sz, int level) {
+        if (level < 1 || level > MAX_LEVEL) throw new IllegalArgumentException("LOD level must be 1.." + MAX_LEVEL + ": " + level);
+        int scale = 1 << level;
+        int n = World.SECTION_SIZE >> level;
+        int bx = sx * World.SECTION_SIZE, by = sy * World.SECTION_SIZE, bz = sz * World.SECTION_SIZE;
+        posLen = colLen = 0;
+
+        for (int cx = 0; cx < n; cx++)
+            for (int cy = 0; cy < n; cy++)
+                for (int cz = 0; cz < n; cz++)
+                    cells[(cx * n + cy) * n + cz] = downsample(world, bx + cx * scale, by + cy * scale, bz + cz * scale, scale);
+
+        for (int cx = 0; cx < n; cx++)
+            for (int cy = 0; cy < n; cy++)
+                for (int cz = 0; cz < n; cz++) {
+                    int id = cells[(cx * n + cy) * n + cz];
+                    if (id == World.AIR) continue;
+                    int x0 = bx + cx * scale, y0 = by + cy * scale, z0 = bz + cz * scale;
+                    for (int f = 0; f < 6; f++) {
+                        int[] d = Mesher.NORMALS[f];
+                        int nx = cx + d[0], ny = cy + d[1], nz = cz + d[2];
+                        boolean hidden;
+                        if (nx >= 0 && nx < n && ny >= 0 && ny < n && nz >= 0 && nz < n) {
+                            hidden = cells[(nx * n + ny) * n + nz] != World.AIR;
+                        } else {
+                            hidden = coveredAcrossBorder(world, x0, y0, z0, scale, d);
+                        }
+                        if (!hidden) addFace(x0, y0, z0, scale, f, id);
+                    }
+                }
+        return new SectionMeshData(World.sectionIndex(sx, sy, sz),
+                new MeshData(Arrays.copyOf(pos, posLen), Arrays.copyOf(col, colLen)),
+                EMPTY, new int[0], new float[0]);
+    }
+
+    private static short downsample(World world, int x0, int y0, int z0, int scale) {
+        int filled = 0;
+        int top = World.AIR;
+        for (int y = y0 + scale - 1; y >= y0; y--)
+            for (int x = x0; x < x0 + scale; x++)
+                for (int z = z0; z < z0 + scale; z++) {
+                    int id = world.getBlockId(x, y, z);
+                    if (id == World.AIR) continue;
+                    filled++;
+                    if (top == World.AIR) top = id;
+                }
+        return (short) (filled * 2 >= scale * scale * scale ? top : World.AIR);
+    }
+
+    // True if every block in the one-block slab across face d of the cell is opaque.
+    private static boolean coveredAcrossBorder(World world, int x0, int y0, int z0, int scale, int[] d) {
+        int sx = d[0] > 0 ? x0 + scale : d[0] < 0 ? x0 - 1 : x0;
+        int sy = d[1] > 0 ? y0 + scale : d[1] < 0 ? y0 - 1 : y0;
+        int sz = d[2] > 0 ? z0 + scale : d[2] < 0 ? z0 - 1 : z0;
+        int ex = d[0] != 0 ? sx : sx + scale - 1;
+        int ey = d[1] != 0 ? sy : sy + scale - 1;
+        int ez = d[2] != 0 ? sz : sz + scale - 1;
+        for (int x = sx; x <= ex; x++)
+            for (int y = sy; y <= ey; y++)
+                for (int z = sz; z <= ez; z++)
+                    if (!world.isOpaque(x, y, z)) return false;
+        return true;
+    }
+
+    private void addFace(int x0, int y0, int z0, int scale, int face, int id) {
+        if (posLen + 18 > pos.length) pos = Arrays.copyOf(pos, pos.length * 2);
+        if (colLen + 24 > col.length) col = Arrays.copyOf(col, col.length * 2);
+        float[] colors = BlockRegistry.colors();
+        int c = BlockRegistry.colorOffset(id);
+        float shade = FACE_SHADE[face];
+        int[][] corners = Mesher.CORNERS[face];
+        for (int k : TRIANGLES) {
+            int[] v = corners[k];
+            pos[posLen++] = x0 + v[0] * scale;
+            pos[posLen++] = y0 + v[1] * scale;
+            pos[posLen++] = z0 + v[2] * scale;
+            col[colLen++] = colors[c] * shade;
+            col[colLen++] = colors[c + 1] * shade;
+            col[colLen++] = colors[c + 2] * shade;
+            col[colLen++] = 1f;
+        }
+    }
+}
@@ -0,0 +1,468 @@
+package com.games.simpleminecraft;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Keeps finished full-detail section meshes on disk, so a launch whose terrain is unchanged skips
+// meshing. (LOD meshes take less time to build than to look up, so they aren't cached.) An entry
+// is keyed by a 64-bit hash of everything Mesher reads: the section's blocks plus the one-block
+// border around it (faces and AO look across it), the section's position (vertices are in world
+// coordinates), Mesher.VERSION and the registry's mesh-relevant block properties. An edit, a new
+// block definition or a mesher change just misses. The hash runs on every section before the
+// first frame, so it is a multiply-rotate mix over the slab four ids at a time, not a digest;
+// 64 bits leave a collision between a few thousand entries at odds of about 1 in 10^12.
+//
+// One file per entry: a header with the array lengths, then the arrays in native byte order,
+// read into one reused direct buffer and copied straight into the mesh arrays. (Not mapped:
+// setting up the first mapping in a JVM costs more than reading every entry of a small world.)
+// Each entry's path is kept in the index, so a hit formats no file name. A first launch should
+// mesh no slower than one without the cache, so nothing is done for a miss before the frame:
+// with an empty index a lookup doesn't hash the section, and store() only holds on to the mesh.
+// writePending(), which the renderer calls once the frame is drawn, hashes the held meshes and
+// hands them to a background thread (itself started then) that serializes and writes them. An
+// entry can be loaded once its write has finished. Entries are dropped least recently used
+// first once the directory holds more than maxBytes. Across runs, use is the file's modified
+// time: written on store, and for entries hit this run, in close() (touching a file costs more
+// than loading it, so not on every hit). Entries that fail to read are deleted and rebuilt.
+//
+// key(), load(), store() and writePending() are meant for one thread (WorldRenderer calls them
+// from the render thread); the index they share with the writer is guarded by this object's lock.
+public class MeshCache implements AutoCloseable {
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+    private static final int MAGIC = 0x4d534831; // "MSH1"
+    private static final int FORMAT = 1;
+    private static final int HEADER_BYTES = 8 * 4;
+    private static final String SUFFIX = ".mesh";
+    // xxHash64's primes, for its round and final avalanche in mix() and finish().
+    private static final long SEED = 0x9e3779b97f4a7c15L;
+    private static final long P1 = 0x9e3779b185ebca87L;
+    private static final long P2 = 0xc2b2ae3d27d4eb4fL;
+    private static final long P3 = 0x165667b19e3779f9L;
+
+    private final Path dir;
+    private final long maxBytes;
+    // Every entry on disk, least recently used first.
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    // Entries hit this run, least recently first; their files are touched in close().
+    private final LinkedHashSet<Long> used = new LinkedHashSet<>();
+    private long totalBytes;
+
+    private long registry;
+    // Every load reads into this, grown to the largest entry so far.
+    private ByteBuffer readBuffer = ByteBuffer.allocateDirect(0);
+    // The section being hashed, copied out of its slab in one bulk get.
+    private final short[] ids = new short[SlabPool.SLAB_SHORTS];
+    private int registryCount = -1;
+
+    // Started by the first writePending(), so a launch doesn't set it up before its first frame.
+    private ExecutorService writer;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private Counter hitCounter;
+    private Counter missCounter;
+
+    // Stored this frame, not yet handed to the writer.
+    private final List<Pending> pending = new ArrayList<>();
+
+    // An entry's file, kept so a hit doesn't format the key into a name, and its size.
+    private static final class Entry {
+        final Path file;
+        final long bytes;
+
+        Entry(Path file, long bytes) {
+            this.file = file;
+            this.bytes = bytes;
+        }
+    }
+
+    // A stored mesh and the section version it was built from; keyed in writePending().
+    private static final class Pending {
+        final World world;
+        final int section;
+        final int version;
+        final SectionMeshData data;
+
+        Pending(World world, int section, SectionMeshData data) {
+            this.world = world;
+            this.section = section;
+            this.version = world.getSectionVersion(section);
+            this.data = data;
+        }
+    }
+
+    public MeshCache(Path dir, long maxBytes) {
+        if (maxBytes <= 0) throw new IllegalArgumentException("Mesh cache size must be positive");
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+        scan();
+    }
+
+    public static Path defaultDir() {
+        return Paths.get(System.getProperty("user.home"), ".simpleminecraft", "mesh-cache");
+    }
+
+    // Indexes what an earlier run left behind, oldest use first. Files not named by a key (e.g.
+    // from the SHA-256 keys of earlier versions) can never hit and are deleted.
+    private void scan() {
+        if (!Files.isDirectory(dir)) return;
+        Map<Path, BasicFileAttributes> attributes = new HashMap<>();
+        List<Path> files = new ArrayList<>();
+        // No glob: compiling one into a regex is a noticeable part of a cold start
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path f : stream) {
+                if (!f.getFileName().toString().endsWith(SUFFIX)) continue;
+                files.add(f);
+                attributes.put(f, Files.readAttributes(f, BasicFileAttributes.class));
+            }
+            // Not a lambda: linking the first one costs a cold start several milliseconds
+            files.sort(new Comparator<Path>() {
+                @Override
+                public int compare(Path a, Path b) {
+                    return attributes.get(a).lastModifiedTime().compareTo(attributes.get(b).lastModifiedTime());
+                }
+            });
+            for (Path f : files) {
+                String name = f.getFileName().toString();
+                name = name.substring(0, name.length() - SUFFIX.length());
+                if (name.length() != 16) {
+                    Files.delete(f);
+                    continue;
+                }
+                long size = attributes.get(f).size();
+                entries.put(Long.parseUnsignedLong(name, 16), new Entry(f, size));
+                totalBytes += size;
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to index mesh cache " + dir + ": " + e.getMessage());
+        }
+        evict();
+    }
+
+    // Key of a section's full-detail mesh as the world stands now.
+    public long key(World world, int section) {
+        long h = mix(mix(mix(SEED, Mesher.VERSION), FORMAT), section);
+        h = mix(h, registryFingerprint());
+        ShortBuffer slab = world.sectionSlab(section);
+        if (slab == null) Arrays.fill(ids, (short) World.AIR);
+        else slab.duplicate().get(ids);
+        for (int i = 0; i < SlabPool.SLAB_SHORTS; i += 4) {
+            h = mix(h, (ids[i] & 0xFFFFL) | (ids[i + 1] & 0xFFFFL) << 16 | (ids[i + 2] & 0xFFFFL) << 32 | (long) ids[i + 3] << 48);
+        }
+        int sx = section / (World.SECTIONS_Y * World.SECTIONS_Z);
+        int sy = (section / World.SECTIONS_Z) % World.SECTIONS_Y;
+        int sz = section % World.SECTIONS_Z;
+        int bx = sx * World.SECTION_SIZE, by = sy * World.SECTION_SIZE, bz = sz * World.SECTION_SIZE;
+        for (int x = bx - 1; x <= bx + World.SECTION_SIZE; x++)
+            for (int y = by - 1; y <= by + World.SECTION_SIZE; y++) {
+                // Inside the section's x/y footprint only the two z ends belong to the border
+                boolean inside = x >= bx && x < bx + World.SECTION_SIZE && y >= by && y < by + World.SECTION_SIZE;
+                int step = inside ? World.SECTION_SIZE + 1 : 1;
+                for (int z = bz - 1; z <= bz + World.SECTION_SIZE; z += step) {
+                    // Outside the world reads as air to the mesher, but keep it distinct anyway
+                    h = mix(h, World.inBounds(x, y, z) ? world.getRaw(x, y, z) : -1);
+                }
+            }
+        return finish(h);
+    }
+
+    // Opacity, transparency and colour of every block; rehashed when blocks are registered.
+    private long registryFingerprint() {
+        int count = BlockRegistry.count();
+        if (count == registryCount) return registry;
+        long h = SEED;
+        float[] colors = BlockRegistry.colors();
+        for (int id = 0; id < count; id++) {
+            h = mix(h, (BlockRegistry.isOpaque(id) ? 1 : 0) | (BlockRegistry.isTransparent(id) ? 2 : 0));
+            int c = BlockRegistry.colorOffset(id);
+            for (int k = 0; k < 4; k++) h = mix(h, Float.floatToIntBits(colors[c + k]));
+        }
+        registry = h;
+        registryCount = count;
+        return registry;
+    }
+
+    private static long mix(long h, long v) {
+        return Long.rotateLeft(h ^ Long.rotateLeft(v * P2, 31) * P1, 27) * P1 + P3;
+    }
+
+    private static long finish(long h) {
+        h ^= h >>> 33;
+        h *= P2;
+        h ^= h >>> 29;
+        h *= P3;
+        return h ^ (h >>> 32);
+    }
+
+    // The section's cached mesh as the world stands now, or null on a miss. While the index is
+    // empty (a first launch) nothing can hit, so the section isn't even hashed.
+    public SectionMeshData load(World world, int section) {
+        synchronized (this) {
+            if (entries.isEmpty()) {
+                misses++;
+                if (missCounter != null) missCounter.increment();
+                return null;
+            }
+        }
+        return load(key(world, section), section);
+    }
+
+    // The cached mesh for `key`, or null on a miss.
+    public synchronized SectionMeshData load(long key, int section) {
+        Entry entry = entries.get(key); // most recently used
+        if (entry == null) {
+            misses++;
+            if (missCounter != null) missCounter.increment();
+            return null;
+        }
+        Path file = entry.file;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            int size = (int) Math.min(channel.size(), Integer.MAX_VALUE);
+            if (readBuffer.capacity() < size) readBuffer = ByteBuffer.allocateDirect(size).order(ByteOrder.nativeOrder());
+            readBuffer.clear().limit(size);
+            while (readBuffer.hasRemaining()) {
+                if (channel.read(readBuffer) < 0) break;
+            }
+            readBuffer.flip();
+            SectionMeshData data = read(readBuffer, section);
+            if (data != null) {
+                used.remove(key);
+                used.add(key);
+                hits++;
+                if (hitCounter != null) hitCounter.increment();
+                return data;
+            }
+            System.err.println("Rejected cached mesh " + file + ", rebuilding");
+        } catch (IOException e) {
+            System.err.println("Failed to read cached mesh " + file + ": " + e.getMessage());
+        }
+        remove(key);
+        misses++;
+        if (missCounter != null) missCounter.increment();
+        return null;
+    }
+
+    private static SectionMeshData read(ByteBuffer in, int section) {
+        if (in.remaining() < HEADER_BYTES || in.getInt() != MAGIC || in.getInt() != FORMAT) return null;
+        int[] lengths = new int[6];
+        long payload = 0;
+        for (int k = 0; k < lengths.length; k++) {
+            lengths[k] = in.getInt();
+            if (lengths[k] < 0) return null;
+            payload += 4L * lengths[k];
+        }
+        if (payload != in.remaining()) return null;
+        float[] opaquePos = new float[lengths[0]], opaqueCol = new float[lengths[1]];
+        float[] translucentPos = new float[lengths[2]], translucentCol = new float[lengths[3]];
+        int[] indices = new int[lengths[4]];
+        float[] centers = new float[lengths[5]];
+        in.asFloatBuffer().get(opaquePos).get(opaqueCol).get(translucentPos).get(translucentCol);
+        in.position(in.position() + 4 * (opaquePos.length + opaqueCol.length + translucentPos.length + translucentCol.length));
+        in.asIntBuffer().get(indices);
+        in.position(in.position() + 4 * indices.length);
+        in.asFloatBuffer().get(centers);
+        return new SectionMeshData(section, new MeshData(opaquePos, opaqueCol), new MeshData(translucentPos, translucentCol), indices, centers);
+    }
+
+    // Holds the section's freshly built mesh until writePending(); `data` must not be changed
+    // afterwards (meshes never are).
+    public void store(World world, int section, SectionMeshData data) {
+        pending.add(new Pending(world, section, data));
+    }
+
+    // Hashes the meshes stored so far and hands them to the writer thread, which serializes and
+    // writes them. Call after the frame that built them. A section edited since its mesh was
+    // built would be stored under the wrong key, so it's skipped.
+    public void writePending() {
+        if (pending.isEmpty()) return;
+        long[] keys = new long[pending.size()];
+        SectionMeshData[] meshes = new SectionMeshData[pending.size()];
+        int n = 0;
+        for (Pending p : pending) {
+            if (p.world.getSectionVersion(p.section) != p.version) continue;
+            keys[n] = key(p.world, p.section);
+            meshes[n++] = p.data;
+        }
+        pending.clear();
+        int count = n;
+        writer().execute(() -> {
+            for (int k = 0; k < count; k++) write(keys[k], serialize(meshes[k]));
+        });
+    }
+
+    private ExecutorService writer() {
+        if (writer == null) {
+            writer = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "mesh-cache-writer");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return writer;
+    }
+
+    private static byte[] serialize(SectionMeshData data) {
+        float[][] floats = {data.opaque.positions, data.opaque.colors, data.translucent.positions, data.translucent.colors};
+        int size = HEADER_BYTES + 4 * (floats[0].length + floats[1].length + floats[2].length + floats[3].length
+                + data.translucentIndices.length + data.quadCenters.length);
+        ByteBuffer out = ByteBuffer.allocate(size).order(ByteOrder.nativeOrder());
+        out.putInt(MAGIC).putInt(FORMAT);
+        for (float[] f : floats) out.putInt(f.length);
+        out.putInt(data.translucentIndices.length).putInt(data.quadCenters.length);
+        for (float[] f : floats) {
+            out.asFloatBuffer().put(f);
+            out.position(out.position() + 4 * f.length);
+        }
+        out.asIntBuffer().put(data.translucentIndices);
+        out.position(out.position() + 4 * data.translucentIndices.length);
+        out.asFloatBuffer().put(data.quadCenters);
+        return out.array();
+    }
+
+    private void write(long key, byte[] bytes) {
+        Path file = file(key);
+        try {
+            Files.createDirectories(dir);
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(tmp, bytes);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Failed to cache mesh " + file + ": " + e.getMessage());
+            return;
+        }
+        synchronized (this) {
+            Entry old = entries.put(key, new Entry(file, bytes.length));
+            totalBytes += bytes.length - (old != null ? old.bytes : 0);
+            evict();
+        }
+    }
+
+    // Waits for every store() so far to reach the disk.
+    public void flush() {
+        writePending();
+        if (writer == null) return;
+        try {
+            writer.submit(() -> { }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<Long, Entry>> it = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Map.Entry<Long, Entry> eldest = it.next();
+            it.remove();
+            used.remove(eldest.getKey());
+            totalBytes -= eldest.getValue().bytes;
+            evictions++;
+            delete(eldest.getValue().file);
+        }
+    }
+
+    private void remove(long key) {
+        used.remove(key);
+        Entry entry = entries.remove(key);
+        if (entry == null) return;
+        totalBytes -= entry.bytes;
+        delete(entry.file);
+    }
+
+    private void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // The next run's scan retries
+            System.err.println("Failed to delete cached mesh " + file + ": " + e.getMessage());
+        }
+    }
+
+    // Finishes queued writes and records this run's hits for the next run's eviction order: one
+    // millisecond apart, oldest first.
+    @Override
+    public void close() {
+        writePending();
+        // Not under the lock: the writer takes it to index what it wrote
+        if (writer != null) {
+            writer.shutdown();
+            try {
+                if (!writer.awaitTermination(10, TimeUnit.SECONDS)) System.err.println("Mesh cache writes still pending at close");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            long now = System.currentTimeMillis() - used.size();
+            for (long key : used) {
+                Path file = entries.get(key).file;
+                try {
+                    Files.setLastModifiedTime(file, FileTime.fromMillis(now++));
+                } catch (IOException e) {
+                    System.err.println("Failed to touch cached mesh " + file + ": " + e.getMessage());
+                }
+            }
+            used.clear();
+        }
+    }
+
+    // The entry's file, named by the key in hex.
+    Path file(long key) {
+        String hex = Long.toHexString(key);
+        return dir.resolve("0000000000000000".substring(hex.length()) + hex + SUFFIX);
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    // meshCache.hits and meshCache.misses counters, meshCache.bytes and meshCache.entries gauges.
+    public void registerMetrics(MetricsRegistry metrics) {
+        hitCounter = metrics.counter("meshCache.hits");
+        missCounter = metrics.counter("meshCache.misses");
+        metrics.gauge("meshCache.bytes", this::getTotalBytes);
+        metrics.gauge("meshCache.entries", this::getEntryCount);
+    }
+}
@@ -0,0 +1,221 @@
+package com.games.simpleminecraft;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Time to first frame: each launch is a fresh JVM that starts a Simulation (generating the world)
+// as Game does and meshes every section at full detail the way WorldRenderer does before its
+// first frame -- without a cache, against an empty MeshCache (cold start: mesh and hold the
+// stores; they're hashed and written after the timing, as WorldRenderer does after its first
+// frame) and against the cache that run left (warm start: hash and load). Reports the median of
+// `launches` of each and fails unless the warm start meshes fastest and the cold start's first
+// frame is within COLD_SLACK of no cache's. Then, in this JVM, checks:
+//   - every cached mesh equals a freshly built one;
+//   - an edit misses for the edited section and its neighbours (their keys cover the border)
+//     and nowhere else;
+//   - a damaged entry is rejected, deleted and rebuilt;
+//   - with a limit below the total, the least recently used entries go first, also when the
+//     use happened in an earlier run.
+// Usage: MeshCacheBenchmark [launches=9]
+//        MeshCacheBenchmark --launch DIR|none (one timed start, run by the above)
+public class MeshCacheBenchmark {
+    private static final double COLD_SLACK = 1.20;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--launch")) {
+            launch(args[1].equals("none") ? null : Paths.get(args[1]));
+            return;
+        }
+        int launches = args.length > 0 ? Integer.parseInt(args[0]) : 9;
+        Path dir = Files.createTempDirectory("mesh-cache");
+        try {
+            // no cache, cold (mesh + store), warm (hash + load); startup, meshing
+            double[][][] ms = new double[3][2][launches];
+            for (int l = 0; l < launches; l++) {
+                clear(dir);
+                ms[0] = record(ms[0], l, startJvm("none"));
+                ms[1] = record(ms[1], l, startJvm(dir.toString()));
+                ms[2] = record(ms[2], l, startJvm(dir.toString()));
+            }
+            String[] names = {"no cache", "cold cache", "warm cache"};
+            for (int k = 0; k < 3; k++) {
+                System.out.printf("first frame, %s: %.1fms (startup %.1fms + meshes %.1fms), median of %d launches%n",
+                        names[k], median(ms[k][0]) + median(ms[k][1]), median(ms[k][0]), median(ms[k][1]), launches);
+            }
+            check(median(ms[2][1]) < median(ms[0][1]), "warm cache start is no faster than meshing");
+            // First frames, not meshing alone: on one core the JIT's background compiles shift time
+            // between the two parts from launch to launch.
+            check(median(ms[1][0]) + median(ms[1][1]) < (median(ms[0][0]) + median(ms[0][1])) * COLD_SLACK,
+                    "cold cache start is slower than no cache");
+
+            World world = new World();
+            Mesher mesher = new Mesher();
+            SectionMeshData[] fresh = new SectionMeshData[World.SECTION_COUNT];
+            for (int i = 0; i < World.SECTION_COUNT; i++) fresh[i] = mesh(world, mesher, i);
+
+            // Cold then warm in this JVM: the cache must hand back exactly what was stored.
+            clear(dir);
+            SectionMeshData[] loaded = new SectionMeshData[World.SECTION_COUNT];
+            MeshCache first = new MeshCache(dir, MeshCache.DEFAULT_MAX_BYTES);
+            int stored = buildAll(world, first, mesher, loaded);
+            first.close();
+            check(first.getHits() == 0, "cold start hit " + first.getHits() + " times");
+            MeshCache restarted = new MeshCache(dir, MeshCache.DEFAULT_MAX_BYTES);
+            check(restarted.getEntryCount() == stored, "restart indexed " + restarted.getEntryCount() + " of " + stored + " entries");
+            buildAll(world, restarted, mesher, loaded);
+            check(restarted.getMisses() == 0, "warm start missed " + restarted.getMisses() + " times");
+            restarted.close();
+            for (int i = 0; i < World.SECTION_COUNT; i++) check(same(loaded[i], fresh[i]), "cached mesh of section " + i + " differs");
+            System.out.printf("%d entries, %d KB; cached meshes match fresh ones%n", restarted.getEntryCount(), restarted.getTotalBytes() >> 10);
+
+            // An edit changes the keys of its section and of the neighbours whose border holds it.
+            MeshCache cache = new MeshCache(dir, MeshCache.DEFAULT_MAX_BYTES);
+            int x = 16, y = 15, z = 40;
+            world.setBlock(x, y, z, world.getBlock(x, y, z) == World.BlockType.STONE ? World.BlockType.DIRT : World.BlockType.STONE);
+            int misses = buildAll(world, cache, mesher, new SectionMeshData[World.SECTION_COUNT]);
+            int expected = 0;
+            for (int i = 0; i < World.SECTION_COUNT; i++) {
+                if (world.sectionSlab(i) != null && bordersOn(i, x, y, z)) expected++;
+            }
+            System.out.printf("after one edit: %d misses, %d sections reach the block%n", misses, expected);
+            check(misses == expected, "edit caused " + misses + " misses, expected " + expected);
+
+            // A truncated entry is rejected and replaced.
+            int section = World.sectionIndex(1, 0, 1);
+            long key = cache.key(world, section);
+            Path file = cache.file(key);
+            byte[] content = Files.readAllBytes(file);
+            Files.write(file, Arrays.copyOf(content, content.length / 2));
+            check(cache.load(key, section) == null, "truncated entry was accepted");
+            check(!Files.exists(file), "truncated entry was not deleted");
+            cache.store(world, section, fresh[section]);
+            cache.flush();
+            check(same(cache.load(key, section), fresh[section]), "rebuilt entry differs");
+            System.out.println("damaged entry rejected and rebuilt");
+
+            // LRU: use the three lowest non-air sections (the ones stored first), end the run, and
+            // restart with room for just those three; they must outlive everything else.
+            int[] recent = new int[3];
+            for (int i = 0, n = 0; n < recent.length; i++) if (world.sectionSlab(i) != null) recent[n++] = i;
+            long limit = 0;
+            for (int s : recent) {
+                check(cache.load(cache.key(world, s), s) != null, "section " + s + " not cached");
+                limit += Files.size(cache.file(cache.key(world, s)));
+            }
+            cache.close();
+            MeshCache small = new MeshCache(dir, limit);
+            for (int s : recent) check(small.load(small.key(world, s), s) != null, "recently used section " + s + " was evicted");
+            check(small.getEntryCount() == recent.length, small.getEntryCount() + " entries left under a " + limit + " byte limit");
+            System.out.printf("LRU: limit %d KB kept the %d most recently used entries, evicted %d%n", limit >> 10, recent.length, small.getEvictions());
+        } finally {
+            clear(dir);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    // One timed start in this (fresh) JVM, with a cache over `dir` or none: prints the startup
+    // (what Game builds before its first frame, less GL) and meshing times. Held cache stores are
+    // hashed and written after the timing.
+    private static void launch(Path dir) {
+        long start = System.nanoTime();
+        Simulation simulation = new Simulation();
+        simulation.registerMetrics(new MetricsRegistry());
+        World world = simulation.getWorld();
+        long generated = System.nanoTime();
+        MeshCache cache = dir != null ? new MeshCache(dir, MeshCache.DEFAULT_MAX_BYTES) : null;
+        Mesher mesher = new Mesher();
+        SectionMeshData[] out = new SectionMeshData[World.SECTION_COUNT];
+        if (cache != null) buildAll(world, cache, mesher, out);
+        else for (int i = 0; i < World.SECTION_COUNT; i++) out[i] = mesh(world, mesher, i);
+        long meshed = System.nanoTime();
+        if (cache != null) cache.close();
+        System.out.printf("%.3f %.3f%n", (generated - start) / 1e6, (meshed - generated) / 1e6);
+    }
+
+    // Runs one --launch in a new JVM on this classpath and returns its two times.
+    private static double[] startJvm(String dir) throws IOException, InterruptedException {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        Process p = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                MeshCacheBenchmark.class.getName(), "--launch", dir).redirectErrorStream(true).start();
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(p.getInputStream(), StandardCharsets.UTF_8))) {
+            for (String line; (line = in.readLine()) != null; ) lines.add(line);
+        }
+        if (p.waitFor() != 0 || lines.isEmpty()) throw new IllegalStateException("Launch failed: " + lines);
+        String[] times = lines.get(lines.size() - 1).trim().split(" ");
+        return new double[] {Double.parseDouble(times[0]), Double.parseDouble(times[1])};
+    }
+
+    private static double[][] record(double[][] into, int launch, double[] times) {
+        into[0][launch] = times[0];
+        into[1][launch] = times[1];
+        return into;
+    }
+
+    private static double median(double[] v) {
+        double[] sorted = v.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    // What WorldRenderer.build does per section, results into `out`; returns the misses.
+    private static int buildAll(World world, MeshCache cache, Mesher mesher, SectionMeshData[] out) {
+        int misses = 0;
+        for (int i = 0; i < World.SECTION_COUNT; i++) {
+            if (world.sectionSlab(i) == null) {
+                out[i] = mesh(world, mesher, i);
+                continue;
+            }
+            SectionMeshData data = cache.load(world, i);
+            if (data == null) {
+                misses++;
+                data = mesh(world, mesher, i);
+                cache.store(world, i, data);
+            }
+            out[i] = data;
+        }
+        return misses;
+    }
+
+    private static SectionMeshData mesh(World world, Mesher mesher, int i) {
+        return mesher.build(world, i / (World.SECTIONS_Y * World.SECTIONS_Z), (i / World.SECTIONS_Z) % World.SECTIONS_Y, i % World.SECTIONS_Z);
+    }
+
+    // Whether (x, y, z) lies in the section or the one-block border around it.
+    private static boolean bordersOn(int i, int x, int y, int z) {
+        int sx = i / (World.SECTIONS_Y * World.SECTIONS_Z);
+        int sy = (i / World.SECTIONS_Z) % World.SECTIONS_Y;
+        int sz = i % World.SECTIONS_Z;
+        return near(x, sx) && near(y, sy) && near(z, sz);
+    }
+
+    private static boolean near(int v, int s) {
+        return v >= s * World.SECTION_SIZE - 1 && v <= (s + 1) * World.SECTION_SIZE;
+    }
+
+    private static boolean same(SectionMeshData a, SectionMeshData b) {
+        return a != null && a.section == b.section
+                && Arrays.equals(a.opaque.positions, b.opaque.positions) && Arrays.equals(a.opaque.colors, b.opaque.colors)
+                && Arrays.equals(a.translucent.positions, b.translucent.positions) && Arrays.equals(a.translucent.colors, b.translucent.colors)
+                && Arrays.equals(a.translucentIndices, b.translucentIndices) && Arrays.equals(a.quadCenters, b.quadCenters);
+    }
+
+    private static void clear(Path dir) throws Exception {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path f : files) Files.delete(f);
+        }
+    }
+
+    private static void check(boolean ok, String what) {
+        if (!ok) throw new IllegalStateException("Check failed: " + what);
+    }
+}
@@ -0,0 +1,14 @@
+package com.games.simpleminecraft;
+
+// CPU-side result of meshing: interleaving-free position (xyz) and color (rgba) streams.
+public class MeshData {
+    public final float[] positions;
+    public final float[] colors;
+    public final int vertexCount;
+
+    public MeshData(float[] positions, float[] colors) {
+        this.positions = positions;
+        this.colors = colors;
+        this.vertexCount = positions.length / 3;
+    }
+}
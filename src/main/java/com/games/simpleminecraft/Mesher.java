@@ -0,0 +1,176 @@
+package com.games.simpleminecraft;
+
+import java.util.Arrays;
+
+// Builds section meshes on the CPU (no GL calls), so it can run and be checked headless.
+// Each visible face gets per-vertex ambient occlusion baked into its vertex colors.
+// Transparent blocks go to a separate, indexed translucent mesh that the renderer sorts.
+public class Mesher {
+    // Bump whenever the output for the same blocks changes; MeshCache keys include it.
+    public static final int VERSION = 1;
+
+    // Brightness of a face corner by how many of its three neighbours are open (0..3).
+    static final float[] AO_CURVE = {0.5f, 0.7f, 0.85f, 1.0f};
+
+    // Face order matches the old World.Face enum: FRONT, BACK, LEFT, RIGHT, TOP, BOTTOM.
+    static final int[][] NORMALS = {
+        {0, 0, 1}, {0, 0, -1}, {-1, 0, 0}, {1, 0, 0}, {0, 1, 0}, {0, -1, 0}
+    };
+
+    // Quad corners per face (offsets from the block origin), in the winding the faces always had.
+    // Triangles are (0,1,2)(2,3,0), or (1,2,3)(3,0,1) when the quad is flipped.
+    static final int[][][] CORNERS = {
+        {{0,0,1}, {0,1,1}, {1,1,1}, {1,0,1}}, // FRONT  z1
+        {{1,0,0}, {1,1,0}, {0,1,0}, {0,0,0}}, // BACK   z0
+        {{0,0,0}, {0,1,0}, {0,1,1}, {0,0,1}}, // LEFT   x0
+        {{1,0,1}, {1,1,1}, {1,1,0}, {1,0,0}}, // RIGHT  x1
+        {{0,1,0}, {1,1,0}, {1,1,1}, {0,1,1}}, // TOP    y1
+        {{0,0,1}, {1,0,1}, {1,0,0}, {0,0,0}}  // BOTTOM y0
+    };
+
+    private static final int[] DIAGONAL_02 = {0, 1, 2, 2, 3, 0};
+    private static final int[] DIAGONAL_13 = {1, 2, 3, 3, 0, 1};
+
+    private final Batch opaque = new Batch();
+    private final Batch translucent = new Batch();
+    private final int[] ao = new int[4];
+
+    public SectionMeshData build(World world, int sx, int sy, int sz) {
+        opaque.reset();
+        translucent.reset();
+        int bx = sx * World.SECTION_SIZE, by = sy * World.SECTION_SIZE, bz = sz * World.SECTION_SIZE;
+        for (int x = bx; x < bx + World.SECTION_SIZE; x++)
+            for (int y = by; y < by + World.SECTION_SIZE; y++)
+                for (int z = bz; z < bz + World.SECTION_SIZE; z++) {
+                    int id = world.getBlockId(x, y, z);
+                    if (id == World.AIR) continue;
+                    boolean transparent = BlockRegistry.isTransparent(id);
+
+                    // The six face neighbours decide visibility; fully buried blocks stop here.
+                    // Only opaque neighbours hide a face or cast AO (leaves do neither), and
+                    // transparent blocks also hide faces between two blocks of the same type.
+                    int occ = 0;
+                    int hidden = 0;
+                    for (int[] n : NORMALS) {
+                        int b = bit(n[0], n[1], n[2]);
+                        if (world.isOpaque(x + n[0], y + n[1], z + n[2])) occ |= b;
+                        else if (transparent && world.getBlockId(x + n[0], y + n[1], z + n[2]) == id) hidden |= b;
+                    }
+                    hidden |= occ;
+                    if (hidden == FACE_BITS) continue;
+
+                    // Exposed block: fill in the edge and corner neighbours for the AO lookups.
+                    for (int dx = -1; dx <= 1; dx++)
+                        for (int dy = -1; dy <= 1; dy++)
+                            for (int dz = -1; dz <= 1; dz++) {
+                                int b = bit(dx, dy, dz);
+                                if ((FACE_BITS & b) != 0 || (dx == 0 && dy == 0 && dz == 0)) continue;
+                                if (world.isOpaque(x + dx, y + dy, z + dz)) occ |= b;
+                            }
+
+                    int c = BlockRegistry.colorOffset(id);
+                    Batch batch = transparent ? translucent : opaque;
+                    for (int f = 0; f < 6; f++) {
+                        int[] n = NORMALS[f];
+                        if ((hidden & bit(n[0], n[1], n[2])) == 0) addFace(batch, x, y, z, f, occ, c);
+                    }
+                }
+        return new SectionMeshData(World.sectionIndex(sx, sy, sz),
+                new MeshData(Arrays.copyOf(opaque.pos, opaque.posLen), Arrays.copyOf(opaque.col, opaque.colLen)),
+                new MeshData(Arrays.copyOf(translucent.pos, translucent.posLen), Arrays.copyOf(translucent.col, translucent.colLen)),
+                Arrays.copyOf(translucent.idx, translucent.idxLen),
+                Arrays.copyOf(translucent.centers, translucent.centersLen));
+    }
+
+    private void addFace(Batch b, int x, int y, int z, int face, int occ, int c) {
+        float[] colors = BlockRegistry.colors();
+        int[] n = NORMALS[face];
+        int[][] corners = CORNERS[face];
+        for (int i = 0; i < 4; i++) ao[i] = cornerAO(occ, n, corners[i]);
+
+        // Split along the brighter diagonal so a single dark corner doesn't smear across the quad.
+        int[] order = ao[0] + ao[2] >= ao[1] + ao[3] ? DIAGONAL_02 : DIAGONAL_13;
+        b.ensureCapacity();
+        if (b == translucent) {
+            // Indexed: four shared corners, the diagonal lives in the index pattern.
+            int base = b.posLen / 3;
+            for (int i = 0; i < 4; i++) b.vertex(x, y, z, corners[i], colors, c, AO_CURVE[ao[i]]);
+            for (int k = 0; k < 6; k++) b.idx[b.idxLen++] = base + order[k];
+            b.centers[b.centersLen++] = x + 0.5f + n[0] * 0.5f;
+            b.centers[b.centersLen++] = y + 0.5f + n[1] * 0.5f;
+            b.centers[b.centersLen++] = z + 0.5f + n[2] * 0.5f;
+        } else {
+            for (int k = 0; k < 6; k++) {
+                int i = order[k];
+                b.vertex(x, y, z, corners[i], colors, c, AO_CURVE[ao[i]]);
+            }
+        }
+    }
+
+    // AO level (0 = darkest, 3 = open) of one face corner from the 3x3x3 occupancy mask.
+    static int cornerAO(int occ, int[] n, int[] corner) {
+        // Step into the layer in front of the face, then towards the corner along both tangents.
+        int ox = n[0] != 0 ? n[0] : corner[0] * 2 - 1;
+        int oy = n[1] != 0 ? n[1] : corner[1] * 2 - 1;
+        int oz = n[2] != 0 ? n[2] : corner[2] * 2 - 1;
+        boolean side1, side2;
+        if (n[0] != 0) {
+            side1 = occluded(occ, ox, oy, 0);
+            side2 = occluded(occ, ox, 0, oz);
+        } else if (n[1] != 0) {
+            side1 = occluded(occ, ox, oy, 0);
+            side2 = occluded(occ, 0, oy, oz);
+        } else {
+            side1 = occluded(occ, ox, 0, oz);
+            side2 = occluded(occ, 0, oy, oz);
+        }
+        return vertexAO(side1, side2, occluded(occ, ox, oy, oz));
+    }
+
+    static int vertexAO(boolean side1, boolean side2, boolean corner) {
+        if (side1 && side2) return 0; // corner is hidden, fully occluded
+        return 3 - ((side1 ? 1 : 0) + (side2 ? 1 : 0) + (corner ? 1 : 0));
+    }
+
+    private static final int FACE_BITS = bit(0, 0, 1) | bit(0, 0, -1) | bit(-1, 0, 0)
+            | bit(1, 0, 0) | bit(0, 1, 0) | bit(0, -1, 0);
+
+    static int bit(int dx, int dy, int dz) {
+        return 1 << ((dx + 1) * 9 + (dy + 1) * 3 + (dz + 1));
+    }
+
+    private static boolean occluded(int occ, int dx, int dy, int dz) {
+        return (occ & bit(dx, dy, dz)) != 0;
+    }
+
+    // Growable primitive streams for one render pass, reused between builds.
+    private static final class Batch {
+        float[] pos = new float[1 << 12];
+        float[] col = new float[1 << 12];
+        int[] idx = new int[1 << 10];
+        float[] centers = new float[1 << 9];
+        int posLen, colLen, idxLen, centersLen;
+
+        void reset() {
+            posLen = colLen = idxLen = centersLen = 0;
+        }
+
+        void vertex(int x, int y, int z, int[] v, float[] colors, int c, float shade) {
+            pos[posLen++] = x + v[0];
+            pos[posLen++] = y + v[1];
+            pos[posLen++] = z + v[2];
+            col[colLen++] = colors[c] * shade;
+            col[colLen++] = colors[c + 1] * shade;
+            col[colLen++] = colors[c + 2] * shade;
+            col[colLen++] = colors[c + 3];
+        }
+
+        // Room for one more face: 6 vertices, 6 indices, one center.
+        void ensureCapacity() {
+            if (posLen + 18 > pos.length) pos = Arrays.copyOf(pos, pos.length * 2);
+            if (colLen + 24 > col.length) col = Arrays.copyOf(col, col.length * 2);
+            if (idxLen + 6 > idx.length) idx = Arrays.copyOf(idx, idx.length * 2);
+            if (centersLen + 3 > centers.length) centers = Arrays.copyOf(centers, centers.length * 2);
+        }
+    }
+}
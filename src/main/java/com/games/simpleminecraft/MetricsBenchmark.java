@@ -0,0 +1,109 @@
+package com.games.simpleminecraft;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import javax.management.MBeanServer;
+
+// Checks the metrics registry end to end and measures what recording costs:
+//   1. ticks a simulation and saves its chunks with metrics registered, then checks the snapshot
+//      (tick count, entity gauge, chunks saved, save queue) and reads the same values through the
+//      platform MBean server the way JConsole does;
+//   2. checks histogram percentiles against a known distribution (within the 12.5% bucket error);
+//   3. times LatencyHistogram.record and Counter.increment on one thread and on several.
+// Usage: MetricsBenchmark [ticks=600] [threads=4]
+public class MetricsBenchmark {
+    public static void main(String[] args) throws Exception {
+        int ticks = args.length > 0 ? Integer.parseInt(args[0]) : 600;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+
+        MetricsRegistry metrics = new MetricsRegistry();
+        Simulation simulation = new Simulation(new World(), 500);
+        simulation.getEntities().getStore().spawnRandom(500, new Random(42));
+        simulation.registerMetrics(metrics);
+        Path dir = Files.createTempDirectory("metrics-bench");
+        ChunkStore store = new ChunkStore(dir);
+        store.registerMetrics(metrics, simulation.getWorld());
+        metrics.registerMBean("benchmark");
+
+        for (int t = 0; t < ticks; t++) simulation.tick();
+        simulation.setBlock(5, 20, 5, World.BlockType.STONE.id());
+        simulation.setBlock(40, 20, 40, World.BlockType.STONE.id());
+        long queuedBeforeSave = metrics.snapshot().gauge("save.queue");
+        int saved = store.save(simulation.getWorld());
+        MetricsSnapshot s = metrics.snapshot();
+        System.out.print(s);
+
+        check(s.histogram("tick.time").getCount() == ticks, "tick.time count " + s.histogram("tick.time").getCount());
+        check(s.gauge("entities") == simulation.getEntities().getStore().count(), "entities gauge");
+        check(s.counter("chunks.saved") == saved, "chunks.saved " + s.counter("chunks.saved") + " vs " + saved);
+        check(queuedBeforeSave == saved && s.gauge("save.queue") == 0, "save.queue " + queuedBeforeSave + " -> " + s.gauge("save.queue"));
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        Object jmxTicks = server.getAttribute(metrics.getMBeanName(), "tick.time.count");
+        Object jmxSaved = server.getAttribute(metrics.getMBeanName(), "chunks.saved");
+        Object jmxP99 = server.getAttribute(metrics.getMBeanName(), "tick.time.p99Ms");
+        int attributes = server.getMBeanInfo(metrics.getMBeanName()).getAttributes().length;
+        check(Long.valueOf(ticks).equals(jmxTicks) && Long.valueOf(saved).equals(jmxSaved), "MBean attributes " + jmxTicks + ", " + jmxSaved);
+        System.out.printf("MBean %s: %d attributes, tick.time.p99Ms=%.3f%n", metrics.getMBeanName(), attributes, (Double) jmxP99);
+        metrics.unregisterMBean();
+        for (int cx = 0; cx < World.CHUNKS_X; cx++)
+            for (int cz = 0; cz < World.CHUNKS_Z; cz++) Files.deleteIfExists(dir.resolve("chunk_" + cx + "_" + cz + ".bin"));
+        Files.delete(dir);
+
+        // Uniform 1..100000: the q-quantile is q * 100000.
+        LatencyHistogram h = new LatencyHistogram();
+        for (long v = 1; v <= 100_000; v++) h.record(v);
+        LatencyHistogram.Snapshot hs = h.snapshot();
+        for (double q : new double[] {0.5, 0.9, 0.99}) {
+            double expected = q * 100_000;
+            double error = Math.abs(hs.valueAt(q) - expected) / expected;
+            check(error <= 1.0 / LatencyHistogram.SUB_BUCKETS, "p" + (int) (q * 100) + "=" + hs.valueAt(q) + " expected ~" + (long) expected);
+        }
+        check(hs.getMax() == 100_000 && hs.getCount() == 100_000, "max/count");
+        System.out.printf("histogram uniform 1..100000: p50=%d p90=%d p99=%d max=%d%n",
+                hs.valueAt(0.5), hs.valueAt(0.9), hs.valueAt(0.99), hs.getMax());
+
+        timeRecording(1);
+        timeRecording(threads);
+    }
+
+    private static void timeRecording(int threads) throws InterruptedException {
+        int ops = 5_000_000;
+        LatencyHistogram histogram = new LatencyHistogram();
+        Counter counter = new Counter();
+        for (int round = 0; round < 2; round++) { // first round warms up
+            Thread[] workers = new Thread[threads];
+            long start = System.nanoTime();
+            for (int w = 0; w < threads; w++) {
+                workers[w] = new Thread(() -> {
+                    for (int i = 0; i < ops; i++) histogram.record(i & 0xFFFFF);
+                });
+                workers[w].start();
+            }
+            for (Thread w : workers) w.join();
+            long histogramNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int w = 0; w < threads; w++) {
+                workers[w] = new Thread(() -> {
+                    for (int i = 0; i < ops; i++) counter.increment();
+                });
+                workers[w].start();
+            }
+            for (Thread w : workers) w.join();
+            long counterNanos = System.nanoTime() - start;
+            if (round == 1) {
+                long total = (long) ops * threads;
+                System.out.printf("%d thread(s) on %d cpu(s): histogram.record %.1fns/op, counter.increment %.1fns/op%n",
+                        threads, Runtime.getRuntime().availableProcessors(), (double) histogramNanos / total, (double) counterNanos / total);
+            }
+        }
+    }
+
+    private static void check(boolean ok, String what) {
+        if (!ok) throw new IllegalStateException("Metrics check failed: " + what);
+    }
+}
@@ -0,0 +1,99 @@
+package com.games.simpleminecraft;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.ReflectionException;
+
+// Read-only JMX view of a MetricsRegistry. Counters and gauges are Long attributes under their
+// own names; a histogram h shows up as h.count plus h.meanMs, h.p50Ms, h.p90Ms, h.p99Ms and h.maxMs.
+// The attribute list follows the registry, so metrics registered later appear on the next refresh.
+class MetricsMBean implements DynamicMBean {
+    private static final String[] HISTOGRAM_FIELDS = {"meanMs", "p50Ms", "p90Ms", "p99Ms", "maxMs"};
+
+    private final MetricsRegistry registry;
+
+    MetricsMBean(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        Map<String, Object> metrics = registry.metrics();
+        Object m = metrics.get(attribute);
+        if (m instanceof Counter) return ((Counter) m).get();
+        if (m instanceof LongSupplier) return ((LongSupplier) m).getAsLong();
+        int dot = attribute.lastIndexOf('.');
+        if (dot > 0 && metrics.get(attribute.substring(0, dot)) instanceof LatencyHistogram) {
+            LatencyHistogram.Snapshot h = ((LatencyHistogram) metrics.get(attribute.substring(0, dot))).snapshot();
+            switch (attribute.substring(dot + 1)) {
+                case "count": return h.getCount();
+                case "meanMs": return h.getMean() / 1e6;
+                case "p50Ms": return h.valueAt(0.50) / 1e6;
+                case "p90Ms": return h.valueAt(0.90) / 1e6;
+                case "p99Ms": return h.valueAt(0.99) / 1e6;
+                case "maxMs": return h.getMax() / 1e6;
+                default: break;
+            }
+        }
+        throw new AttributeNotFoundException(attribute);
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        AttributeList list = new AttributeList();
+        for (String a : attributes) {
+            try {
+                list.add(new Attribute(a, getAttribute(a)));
+            } catch (AttributeNotFoundException e) {
+                // JMX convention: unknown attributes are left out of the result
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Metrics are read-only: " + attribute.getName());
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        throw new ReflectionException(new NoSuchMethodException(actionName));
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        List<MBeanAttributeInfo> attributes = new ArrayList<>();
+        for (Map.Entry<String, Object> e : registry.metrics().entrySet()) {
+            String name = e.getKey();
+            Object m = e.getValue();
+            if (m instanceof Counter) {
+                attributes.add(new MBeanAttributeInfo(name, "java.lang.Long", "counter", true, false, false));
+            } else if (m instanceof LongSupplier) {
+                attributes.add(new MBeanAttributeInfo(name, "java.lang.Long", "gauge", true, false, false));
+            } else {
+                attributes.add(new MBeanAttributeInfo(name + ".count", "java.lang.Long", "samples recorded", true, false, false));
+                for (String f : HISTOGRAM_FIELDS) {
+                    attributes.add(new MBeanAttributeInfo(name + "." + f, "java.lang.Double", "latency in milliseconds", true, false, false));
+                }
+            }
+        }
+        return new MBeanInfo(getClass().getName(), "Simple Minecraft engine metrics",
+                attributes.toArray(new MBeanAttributeInfo[0]), null, new MBeanOperationInfo[0], null);
+    }
+}
@@ -0,0 +1,99 @@
+package com.games.simpleminecraft;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.LongSupplier;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// Named engine metrics: counters, gauges (read on demand) and latency histograms. Hot paths hold
+// on to the Counter/LatencyHistogram they were given at registration, so recording is a lock-free
+// update with no lookup. snapshot() reads everything at once, for checks and reports;
+// registerMBean() publishes the same values to JConsole and other JMX collectors.
+public class MetricsRegistry {
+    public static final String DOMAIN = "com.games.simpleminecraft";
+
+    private final Map<String, Object> metrics = new ConcurrentSkipListMap<>();
+    private ObjectName mbeanName;
+
+    public Counter counter(String name) {
+        return register(name, Counter.class, new Counter());
+    }
+
+    public LatencyHistogram histogram(String name) {
+        return register(name, LatencyHistogram.class, new LatencyHistogram());
+    }
+
+    // Replaces any earlier gauge of that name; the supplier is called on every read, from the
+    // reading thread, so it should only read fields.
+    public void gauge(String name, LongSupplier value) {
+        Object existing = metrics.get(name);
+        if (existing != null && !(existing instanceof LongSupplier)) throw new IllegalArgumentException(name + " is not a gauge");
+        metrics.put(name, value);
+    }
+
+    private <T> T register(String name, Class<T> type, T created) {
+        Object existing = metrics.putIfAbsent(name, created);
+        if (existing == null) return created;
+        if (!type.isInstance(existing)) throw new IllegalArgumentException(name + " is already registered as another metric type");
+        return type.cast(existing);
+    }
+
+    // Direct and mapped NIO buffer usage, which covers LWJGL's BufferUtils allocations and the
+    // section slabs; the latter also on their own, reserved and live.
+    public void registerJvmGauges() {
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            gauge("memory." + pool.getName() + ".bytes", pool::getMemoryUsed);
+        }
+        SlabPool slabs = SlabPool.shared();
+        gauge("memory.sectionSlabs.bytes", slabs::getReservedBytes);
+        gauge("memory.sectionSlabs.live", slabs::getLiveSlabs);
+    }
+
+    public MetricsSnapshot snapshot() {
+        MetricsSnapshot s = new MetricsSnapshot();
+        for (Map.Entry<String, Object> e : metrics.entrySet()) {
+            Object m = e.getValue();
+            if (m instanceof Counter) s.counters.put(e.getKey(), ((Counter) m).get());
+            else if (m instanceof LongSupplier) s.gauges.put(e.getKey(), ((LongSupplier) m).getAsLong());
+            else s.histograms.put(e.getKey(), ((LatencyHistogram) m).snapshot());
+        }
+        return s;
+    }
+
+    Map<String, Object> metrics() {
+        return metrics;
+    }
+
+    // Publishes this registry on the platform MBean server as DOMAIN:type=Metrics,name=<name>,
+    // replacing one registered earlier under the same name.
+    public void registerMBean(String name) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(DOMAIN + ":type=Metrics,name=" + name);
+            if (server.isRegistered(objectName)) server.unregisterMBean(objectName);
+            server.registerMBean(new MetricsMBean(this), objectName);
+            mbeanName = objectName;
+        } catch (JMException e) {
+            throw new IllegalStateException("Failed to register metrics MBean " + name, e);
+        }
+    }
+
+    public ObjectName getMBeanName() {
+        return mbeanName;
+    }
+
+    public void unregisterMBean() {
+        if (mbeanName == null) return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(mbeanName);
+        } catch (JMException e) {
+            System.err.println("Failed to unregister " + mbeanName + ": " + e.getMessage());
+        }
+        mbeanName = null;
+    }
+}
@@ -0,0 +1,44 @@
+package com.games.simpleminecraft;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+// Values of every metric in a MetricsRegistry at one moment.
+public class MetricsSnapshot {
+    final Map<String, Long> counters = new TreeMap<>();
+    final Map<String, Long> gauges = new TreeMap<>();
+    final Map<String, LatencyHistogram.Snapshot> histograms = new TreeMap<>();
+
+    public long counter(String name) {
+        return require(counters.get(name), name);
+    }
+
+    public long gauge(String name) {
+        return require(gauges.get(name), name);
+    }
+
+    public LatencyHistogram.Snapshot histogram(String name) {
+        LatencyHistogram.Snapshot h = histograms.get(name);
+        if (h == null) throw new IllegalArgumentException("No histogram named " + name);
+        return h;
+    }
+
+    private static long require(Long value, String name) {
+        if (value == null) throw new IllegalArgumentException("No metric named " + name);
+        return value;
+    }
+
+    // One line per metric; histograms in milliseconds.
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Long> e : counters.entrySet()) sb.append(e.getKey()).append(" = ").append(e.getValue()).append('\n');
+        for (Map.Entry<String, Long> e : gauges.entrySet()) sb.append(e.getKey()).append(" = ").append(e.getValue()).append('\n');
+        for (Map.Entry<String, LatencyHistogram.Snapshot> e : histograms.entrySet()) {
+            LatencyHistogram.Snapshot h = e.getValue();
+            sb.append(String.format("%s: count=%d mean=%.3fms p50=%.3fms p99=%.3fms max=%.3fms%n", e.getKey(), h.getCount(),
+                    h.getMean() / 1e6, h.valueAt(0.5) / 1e6, h.valueAt(0.99) / 1e6, h.getMax() / 1e6));
+        }
+        return sb.toString();
+    }
+}
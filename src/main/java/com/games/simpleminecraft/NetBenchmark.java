@@ -0,0 +1,133 @@
+package com.games.simpleminecraft;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Loopback benchmark: a NetServer on its own thread and simulated clients on this one.
+// Measures full-world streaming (sections/s) and edit round trips (edits/s), then checks
+// every client's world matches the server's.
+// Usage: NetBenchmark [clients=8] [syncRounds=20] [editRounds=200] [editsPerRound=50]
+public class NetBenchmark {
+    private static final long TIMEOUT_NANOS = 60_000_000_000L;
+    private static final int MARKER = World.BlockType.WOOD.id();
+
+    public static void main(String[] args) throws Exception {
+        int clientCount = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int syncRounds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int editRounds = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        int editsPerRound = args.length > 3 ? Integer.parseInt(args[3]) : 50;
+
+        Simulation simulation = new Simulation(new World(), 0);
+        NetServer server = new NetServer(simulation, 0);
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicBoolean ticking = new AtomicBoolean(true);
+        Thread serverThread = new Thread(() -> {
+            try {
+                while (running.get()) {
+                    server.poll(1);
+                    if (ticking.get()) simulation.tick();
+                    server.flush(simulation.getEdits());
+                    simulation.getEdits().clear();
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }, "net-server");
+        serverThread.start();
+
+        InetSocketAddress address = new InetSocketAddress("127.0.0.1", server.getPort());
+        NetClient[] clients = new NetClient[clientCount];
+        World[] worlds = new World[clientCount];
+        for (int i = 0; i < clientCount; i++) {
+            worlds[i] = World.empty();
+            clients[i] = new NetClient(worlds[i], address);
+        }
+
+        // Full world streaming; each extra round is a resync request.
+        long start = System.nanoTime();
+        for (int round = 0; round < syncRounds; round++) {
+            if (round > 0) for (NetClient c : clients) c.requestSync();
+            long target = (long) (round + 1) * World.SECTION_COUNT;
+            waitFor(clients, c -> c.getSectionsReceived() >= target);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long sections = (long) clientCount * syncRounds * World.SECTION_COUNT;
+        System.out.printf("streaming: %d clients, %d sections in %.3fs = %.0f sections/s%n",
+                clientCount, sections, seconds, sections / seconds);
+
+        // Batched edits: every client sends a batch per round; the server applies and rebroadcasts
+        // all of them, so each client must see every client's edits.
+        Random rnd = new Random(7);
+        BlockDeltaBatch batch = new BlockDeltaBatch();
+        start = System.nanoTime();
+        for (int round = 0; round < editRounds; round++) {
+            for (NetClient c : clients) {
+                batch.clear();
+                for (int e = 0; e < editsPerRound; e++) {
+                    World.BlockType t = rnd.nextBoolean() ? World.BlockType.AIR : World.BlockType.STONE;
+                    batch.add(rnd.nextInt(World.SIZE_X), rnd.nextInt(World.SIZE_Y), rnd.nextInt(World.SIZE_Z), t.id());
+                }
+                c.sendEdits(batch);
+            }
+            for (NetClient c : clients) c.poll();
+        }
+        long expected = (long) clientCount * editRounds * editsPerRound;
+        waitFor(clients, c -> c.getEditsReceived() >= expected);
+        seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("edits: %d applied by server, %d delivered in %.3fs = %.0f edits/s applied, %.0f edits/s delivered%n",
+                server.getEditsReceived(), expected * clientCount, seconds,
+                server.getEditsReceived() / seconds, expected * clientCount / seconds);
+
+        // Block behaviours (grass spreading) keep changing the server's world, and a client can have
+        // every edit counted above and still be a tick behind. Stop ticking, then have each client
+        // place a marker: deltas arrive in order, so a client that sees every marker has every
+        // change made before them.
+        ticking.set(false);
+        for (int i = 0; i < clientCount; i++) {
+            batch.clear();
+            batch.add(i % World.SIZE_X, World.SIZE_Y - 1, i / World.SIZE_X, MARKER);
+            clients[i].sendEdits(batch);
+        }
+        for (World w : worlds) waitFor(clients, c -> hasMarkers(w, clientCount));
+
+        running.set(false);
+        serverThread.join();
+        int mismatched = 0;
+        for (World w : worlds) {
+            if (!w.sameBlocks(simulation.getWorld())) mismatched++;
+        }
+        System.out.printf("server sent %d bytes, pooled buffers allocated: %d; client worlds matching server: %d/%d%n",
+                server.getBytesSent(), server.getBufferPool().getAllocatedCount(), clientCount - mismatched, clientCount);
+
+        for (NetClient c : clients) c.close();
+        server.close();
+        if (mismatched > 0) System.exit(1);
+    }
+
+    private static boolean hasMarkers(World w, int clientCount) {
+        for (int i = 0; i < clientCount; i++) {
+            if (w.getBlockId(i % World.SIZE_X, World.SIZE_Y - 1, i / World.SIZE_X) != MARKER) return false;
+        }
+        return true;
+    }
+
+    private interface Done {
+        boolean test(NetClient c);
+    }
+
+    private static void waitFor(NetClient[] clients, Done done) throws IOException {
+        long deadline = System.nanoTime() + TIMEOUT_NANOS;
+        while (true) {
+            boolean all = true;
+            for (NetClient c : clients) {
+                c.poll();
+                all &= done.test(c);
+            }
+            if (all) return;
+            if (System.nanoTime() > deadline) throw new IllegalStateException("Timed out waiting for clients");
+            Thread.onSpinWait();
+        }
+    }
+}
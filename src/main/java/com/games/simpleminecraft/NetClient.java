@@ -0,0 +1,77 @@
+package com.games.simpleminecraft;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+// Client side of the world protocol. Mirrors the server's world into a local World:
+// sections overwrite whole 16^3 blocks, deltas apply single edits. poll() never blocks.
+public class NetClient implements Closeable {
+    private final World world;
+    private final BufferPool pool = new BufferPool(Protocol.MAX_FRAME);
+    private final SectionCodec codec = new SectionCodec();
+    private final Connection connection;
+    private final Connection.FrameHandler handler = this::onFrame;
+
+    private long sectionsReceived;
+    private long editsReceived;
+
+    public NetClient(World world, InetSocketAddress address) throws IOException {
+        this.world = world;
+        SocketChannel ch = SocketChannel.open(address);
+        ch.configureBlocking(false);
+        ch.socket().setTcpNoDelay(true);
+        connection = new Connection(ch, null, pool);
+        requestSync();
+    }
+
+    // Asks the server to (re)send every section.
+    public void requestSync() throws IOException {
+        Protocol.sendHello(connection, pool);
+        connection.flush();
+    }
+
+    public void poll() throws IOException {
+        if (!connection.read(handler)) throw new IOException("Server closed the connection");
+        connection.flush();
+    }
+
+    public void sendEdits(BlockDeltaBatch edits) throws IOException {
+        if (edits.isEmpty()) return;
+        Protocol.sendDeltas(connection, pool, edits);
+        connection.flush();
+    }
+
+    public boolean isSynced() {
+        return sectionsReceived >= World.SECTION_COUNT;
+    }
+
+    public long getSectionsReceived() { return sectionsReceived; }
+    public long getEditsReceived() { return editsReceived; }
+
+    private void onFrame(Connection c, byte type, ByteBuffer payload) {
+        switch (type) {
+            case Protocol.SECTION:
+                codec.decode(payload, world);
+                sectionsReceived++;
+                break;
+            case Protocol.BLOCK_DELTAS:
+                int count = payload.getInt();
+                for (int i = 0; i < count; i++) {
+                    int x = payload.getShort(), y = payload.getShort(), z = payload.getShort(), id = payload.getShort();
+                    world.setBlockId(x, y, z, id);
+                }
+                editsReceived += count;
+                break;
+            default:
+                System.err.println("Unknown frame type " + type);
+        }
+    }
+
+    @Override
+    public void close() {
+        connection.close();
+    }
+}
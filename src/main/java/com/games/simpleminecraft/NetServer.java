@@ -0,0 +1,178 @@
+package com.games.simpleminecraft;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+// Non-blocking world server on a single selector, driven from the tick thread so it can touch
+// the Simulation without locks: poll() before a tick applies client edits, flush() after it
+// broadcasts that tick's edits and streams sections to clients that are still syncing.
+public class NetServer implements Closeable {
+    // Stop streaming sections to a client while this much is still queued for it.
+    public static final long STREAM_WATERMARK = 256 * 1024;
+    // Drop clients that fall this far behind.
+    public static final long MAX_QUEUED_BYTES = 8L * 1024 * 1024;
+
+    private final Simulation simulation;
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final BufferPool pool = new BufferPool(Protocol.MAX_FRAME);
+    private final SectionCodec codec = new SectionCodec();
+    private final List<Connection> connections = new ArrayList<>();
+    private final Connection.FrameHandler handler = this::onFrame;
+
+    private long sectionsSent;
+    private long editsReceived;
+    private long bytesSent;
+
+    public NetServer(Simulation simulation, int port) throws IOException {
+        this.simulation = simulation;
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port));
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    public int getConnectionCount() {
+        return connections.size();
+    }
+
+    public long getSectionsSent() { return sectionsSent; }
+    public long getEditsReceived() { return editsReceived; }
+    public long getBytesSent() { return bytesSent; }
+
+    public BufferPool getBufferPool() {
+        return pool;
+    }
+
+    // Accepts clients, reads their frames and applies their edits. Waits up to timeoutMillis
+    // for activity (0 = don't wait).
+    public void poll(long timeoutMillis) throws IOException {
+        if (timeoutMillis > 0) selector.select(timeoutMillis);
+        else selector.selectNow();
+        Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+        while (it.hasNext()) {
+            SelectionKey key = it.next();
+            it.remove();
+            if (!key.isValid()) continue;
+            if (key.isAcceptable()) {
+                SocketChannel ch = serverChannel.accept();
+                if (ch == null) continue;
+                ch.configureBlocking(false);
+                ch.socket().setTcpNoDelay(true);
+                SelectionKey ck = ch.register(selector, SelectionKey.OP_READ);
+                Connection c = new Connection(ch, ck, pool);
+                ck.attach(c);
+                connections.add(c);
+                continue;
+            }
+            Connection c = (Connection) key.attachment();
+            try {
+                if (key.isReadable() && !c.read(handler)) {
+                    drop(c);
+                    continue;
+                }
+                if (key.isValid() && key.isWritable()) bytesSent += c.flush();
+            } catch (IOException e) {
+                System.err.println("Dropping client: " + e.getMessage());
+                drop(c);
+            }
+        }
+    }
+
+    // Sends the tick's edits to every client, tops up section streams and writes what the
+    // sockets accept. The caller clears the batch afterwards.
+    public void flush(BlockDeltaBatch edits) {
+        for (int i = connections.size() - 1; i >= 0; i--) {
+            Connection c = connections.get(i);
+            if (c.nextSection < 0) continue;
+            if (!edits.isEmpty()) Protocol.sendDeltas(c, pool, edits);
+            while (c.nextSection < World.SECTION_COUNT && c.getQueuedBytes() < STREAM_WATERMARK) {
+                ByteBuffer b = Protocol.begin(pool, Protocol.SECTION);
+                codec.encode(simulation.getWorld(), c.nextSection++, b);
+                c.enqueue(Protocol.finish(b));
+                sectionsSent++;
+            }
+            try {
+                bytesSent += c.flush();
+                if (c.getQueuedBytes() > MAX_QUEUED_BYTES) {
+                    System.err.println("Dropping client: send queue over " + MAX_QUEUED_BYTES + " bytes");
+                    drop(c);
+                }
+            } catch (IOException e) {
+                System.err.println("Dropping client: " + e.getMessage());
+                drop(c);
+            }
+        }
+    }
+
+    // A frame shorter than its type or its count says is dropped with its client rather than read
+    // past: a BufferUnderflowException would escape poll() and stop the server.
+    private void onFrame(Connection c, byte type, ByteBuffer payload) {
+        switch (type) {
+            case Protocol.HELLO:
+                if (payload.remaining() < 4) {
+                    malformed(c, "HELLO frame too short", payload);
+                    return;
+                }
+                int version = payload.getInt();
+                if (version != Protocol.VERSION) {
+                    System.err.println("Client protocol " + version + " != " + Protocol.VERSION);
+                    drop(c);
+                    return;
+                }
+                c.nextSection = 0; // (re)stream the whole world
+                break;
+            case Protocol.BLOCK_DELTAS:
+                if (payload.remaining() < 4) {
+                    malformed(c, "BLOCK_DELTAS frame too short", payload);
+                    return;
+                }
+                int count = payload.getInt();
+                if (count < 0 || payload.remaining() < (long) count * Protocol.DELTA_BYTES) {
+                    malformed(c, "BLOCK_DELTAS frame too short for " + count + " edits", payload);
+                    return;
+                }
+                for (int i = 0; i < count; i++) {
+                    int x = payload.getShort(), y = payload.getShort(), z = payload.getShort(), id = payload.getShort();
+                    if (id < 0 || id >= BlockRegistry.count()) continue;
+                    simulation.setBlock(x, y, z, id);
+                    editsReceived++;
+                }
+                break;
+            default:
+                System.err.println("Unknown frame type " + type);
+        }
+    }
+
+    private void malformed(Connection c, String what, ByteBuffer payload) {
+        System.err.println("Dropping client: " + what + " (" + payload.remaining() + " bytes left)");
+        drop(c);
+    }
+
+    private void drop(Connection c) {
+        connections.remove(c);
+        c.close();
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Connection c : connections) c.close();
+        connections.clear();
+        serverChannel.close();
+        selector.close();
+    }
+}
@@ -0,0 +1,115 @@
+package com.games.simpleminecraft;
+
+import java.util.Arrays;
+
+// Cave culling: per-section face connectivity (SectionVisibility) plus a breadth-first walk from
+// the camera's section, leaving it through the faces the camera's own block connects to, that
+// only crosses a section from the face it was entered through to faces
+// connected to it, and never heads back towards the camera. Sections the walk doesn't reach are
+// hidden behind solid terrain. Cost is proportional to the sections reached.
+//
+// update() recomputes only sections whose World version changed. No GL, so it runs headless.
+public class OcclusionGraph {
+    private static final int[] OPPOSITE = {1, 0, 3, 2, 5, 4};
+
+    private final SectionVisibility visibility = new SectionVisibility();
+    private final long[] masks = new long[World.SECTION_COUNT];
+    private final int[] versions = new int[World.SECTION_COUNT];
+
+    // BFS state, reused between frames.
+    private final int[] queue = new int[World.SECTION_COUNT];
+    private final int[] entryFace = new int[World.SECTION_COUNT];
+    private final int[] directions = new int[World.SECTION_COUNT];
+    private final boolean[] visible = new boolean[World.SECTION_COUNT];
+
+    // Faces reachable from the camera block, cached until the camera block or its section changes.
+    private int startCell = -1;
+    private int startVersion;
+    private int startFaces;
+
+    public OcclusionGraph() {
+        Arrays.fill(versions, -1);
+    }
+
+    // Returns how many sections were recomputed.
+    public int update(World world) {
+        int updated = 0;
+        for (int i = 0; i < masks.length; i++) {
+            int version = world.getSectionVersion(i);
+            if (version == versions[i]) continue;
+            int sx = i / (World.SECTIONS_Y * World.SECTIONS_Z);
+            int sy = (i / World.SECTIONS_Z) % World.SECTIONS_Y;
+            int sz = i % World.SECTIONS_Z;
+            masks[i] = visibility.compute(world, sx, sy, sz);
+            versions[i] = version;
+            updated++;
+        }
+        return updated;
+    }
+
+    public long getMask(int section) {
+        return masks[section];
+    }
+
+    public boolean isVisible(int section) {
+        return visible[section];
+    }
+
+    // Fills out with the sections visible from the camera and returns their count. A camera
+    // outside the world starts from the nearest section.
+    public int findVisible(World world, float camX, float camY, float camZ, int[] out) {
+        Arrays.fill(visible, false);
+        int bx = (int) Math.floor(camX), by = (int) Math.floor(camY), bz = (int) Math.floor(camZ);
+        int sx = clamp(bx >> World.SECTION_SHIFT, World.SECTIONS_X);
+        int sy = clamp(by >> World.SECTION_SHIFT, World.SECTIONS_Y);
+        int sz = clamp(bz >> World.SECTION_SHIFT, World.SECTIONS_Z);
+        int start = World.sectionIndex(sx, sy, sz);
+        int faces = startFaces(world, start, bx, by, bz);
+
+        int head = 0, tail = 0;
+        queue[tail++] = start;
+        entryFace[start] = -1;
+        directions[start] = 0;
+        visible[start] = true;
+        while (head < tail) {
+            int s = queue[head++];
+            int x = s / (World.SECTIONS_Y * World.SECTIONS_Z);
+            int y = (s / World.SECTIONS_Z) % World.SECTIONS_Y;
+            int z = s % World.SECTIONS_Z;
+            int entry = entryFace[s];
+            for (int f = 0; f < 6; f++) {
+                if (s == start && (faces & (1 << f)) == 0) continue;
+                if ((directions[s] & (1 << OPPOSITE[f])) != 0) continue;
+                if (entry >= 0 && !SectionVisibility.connected(masks[s], entry, f)) continue;
+                int[] d = Mesher.NORMALS[f];
+                int nx = x + d[0], ny = y + d[1], nz = z + d[2];
+                if (nx < 0 || nx >= World.SECTIONS_X || ny < 0 || ny >= World.SECTIONS_Y || nz < 0 || nz >= World.SECTIONS_Z) continue;
+                int n = World.sectionIndex(nx, ny, nz);
+                if (visible[n]) continue;
+                visible[n] = true;
+                entryFace[n] = OPPOSITE[f];
+                directions[n] = directions[s] | (1 << f);
+                queue[tail++] = n;
+            }
+        }
+        System.arraycopy(queue, 0, out, 0, tail);
+        return tail;
+    }
+
+    private int startFaces(World world, int start, int x, int y, int z) {
+        if (!World.inBounds(x, y, z)) return 0x3F;
+        int cell = World.index(x, y, z);
+        int version = world.getSectionVersion(start);
+        if (cell != startCell || version != startVersion) {
+            startFaces = visibility.facesFrom(world, x >> World.SECTION_SHIFT, y >> World.SECTION_SHIFT, z >> World.SECTION_SHIFT,
+                    x & (World.SECTION_SIZE - 1), y & (World.SECTION_SIZE - 1), z & (World.SECTION_SIZE - 1));
+            startCell = cell;
+            startVersion = version;
+        }
+        return startFaces;
+    }
+
+    private static int clamp(int v, int count) {
+        return v < 0 ? 0 : v >= count ? count - 1 : v;
+    }
+}
@@ -0,0 +1,67 @@
+package com.games.simpleminecraft;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.joml.Vector3f;
+
+// Headless comparison of dense block storage and VoxelOctree: memory, point lookups and long
+// raycasts on the default island and on a mostly empty flat world. Checks both answer alike.
+// Usage: OctreeBenchmark [rays=200000] [maxDist=128]
+public class OctreeBenchmark {
+    public static void main(String[] args) throws Exception {
+        int rays = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        float maxDist = args.length > 1 ? Float.parseFloat(args[1]) : 128f;
+
+        World flat = World.empty();
+        for (int x = 0; x < World.SIZE_X; x++)
+            for (int z = 0; z < World.SIZE_Z; z++) flat.setBlock(x, 0, z, World.BlockType.STONE);
+
+        boolean ok = run("island", new World(), rays, maxDist);
+        ok &= run("flat", flat, rays, maxDist);
+        System.out.println(ok ? "octree answers match dense storage" : "MISMATCH between octree and dense storage");
+    }
+
+    private static boolean run(String label, World world, int rays, float maxDist) throws Exception {
+        long start = System.nanoTime();
+        VoxelOctree tree = VoxelOctree.buildAsync(world, ForkJoinPool.commonPool()).get();
+        double buildMs = (System.nanoTime() - start) / 1e6;
+        long dense = (long) World.SIZE_X * World.SIZE_Y * World.SIZE_Z * Short.BYTES;
+        System.out.printf("%s: built in %.2fms, %d node slots, %d bytes vs %d dense (%.1f%%)%n",
+                label, buildMs, tree.nodeCount(), tree.memoryBytes(), dense, 100.0 * tree.memoryBytes() / dense);
+
+        boolean ok = true;
+        for (int x = 0; x < World.SIZE_X; x++)
+            for (int y = 0; y < World.SIZE_Y; y++)
+                for (int z = 0; z < World.SIZE_Z; z++)
+                    if (tree.getBlockId(x, y, z) != world.getBlockId(x, y, z)) ok = false;
+
+        // Rays from above the terrain in random downward-ish directions, the long-range case.
+        Vector3f[] origins = new Vector3f[rays];
+        Vector3f[] dirs = new Vector3f[rays];
+        Random rnd = new Random(5);
+        for (int i = 0; i < rays; i++) {
+            origins[i] = new Vector3f(rnd.nextFloat() * World.SIZE_X, World.SIZE_Y - 1 - rnd.nextFloat() * 4, rnd.nextFloat() * World.SIZE_Z);
+            dirs[i] = new Vector3f(rnd.nextFloat() * 2 - 1, -rnd.nextFloat(), rnd.nextFloat() * 2 - 1).normalize();
+        }
+        Vector3f hitA = new Vector3f(), hitB = new Vector3f(), normal = new Vector3f();
+        int mismatches = 0;
+        for (int i = 0; i < rays; i++) {
+            boolean a = world.raycast(origins[i], dirs[i], maxDist, hitA, normal);
+            boolean b = tree.raycast(origins[i], dirs[i], maxDist, hitB, normal);
+            if (a != b || (a && !hitA.equals(hitB))) mismatches++;
+        }
+        ok &= mismatches == 0;
+
+        int hits = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < rays; i++) if (world.raycast(origins[i], dirs[i], maxDist, hitA, normal)) hits++;
+        double denseNs = (double) (System.nanoTime() - start) / rays;
+        start = System.nanoTime();
+        for (int i = 0; i < rays; i++) if (tree.raycast(origins[i], dirs[i], maxDist, hitB, normal)) hits++;
+        double treeNs = (double) (System.nanoTime() - start) / rays;
+        System.out.printf("%s: %d rays, dense %.0fns/ray, octree %.0fns/ray, %d hit mismatches (hits %d)%n",
+                label, rays, denseNs, treeNs, mismatches, hits);
+        return ok;
+    }
+}
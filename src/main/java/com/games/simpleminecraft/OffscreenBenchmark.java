@@ -0,0 +1,271 @@
+package com.games.simpleminecraft;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL30.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.CRC32;
+
+import org.joml.Vector3f;
+import org.lwjgl.BufferUtils;
+import org.lwjgl.glfw.GLFW;
+import org.lwjgl.glfw.GLFWErrorCallback;
+import org.lwjgl.opengl.GL;
+import org.lwjgl.system.MemoryUtil;
+
+// Render benchmark without a visible window: a hidden GLFW window provides the context, frames
+// go to an FBO, vsync is off and glFinish() closes every frame so the time covers the GPU work.
+// The camera follows a scripted path through the default (deterministic) island driven by the
+// frame index, and translucent quads are sorted on the render thread rather than whenever the
+// sorter thread gets to them, so two runs render exactly the same frames. With Mesa's llvmpipe this runs on a
+// GPU-less box, e.g. under xvfb-run, or without X at all using --context egl|osmesa.
+//
+// Prints a JSON report (frame-time percentiles, draw calls, vertices, mesh upload bytes) to
+// stdout or --report. With --warmup 0 the timed frames include meshing and uploading the whole
+// world, which shows whether --upload-budget KB keeps those frames in line.
+// Every --capture-every frames the FBO is read back and its CRC32 recorded, so two builds or
+// drivers can be compared frame by frame; --capture-dir also writes those frames as PPM files.
+//
+// Usage: OffscreenBenchmark [--frames 600] [--warmup 60] [--size 1280x720]
+//                           [--context native|egl|osmesa] [--report FILE]
+//                           [--capture-every N] [--capture-dir DIR] [--upload-budget KB]
+public class OffscreenBenchmark {
+    private int width = 1280;
+    private int height = 720;
+    private int frames = 600;
+    private int warmup = 60;
+    private int captureEvery;
+    private Path captureDir;
+    private Path reportFile;
+    private int contextApi = GLFW.GLFW_NATIVE_CONTEXT_API;
+    private long uploadBudget = UploadManager.DEFAULT_BUDGET;
+
+    private long window;
+    private int fbo;
+    private int colorRbo;
+    private int depthRbo;
+
+    public static void main(String[] args) throws IOException {
+        OffscreenBenchmark bench = new OffscreenBenchmark();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--frames": bench.frames = Integer.parseInt(args[++i]); break;
+                case "--warmup": bench.warmup = Integer.parseInt(args[++i]); break;
+                case "--size": {
+                    String[] wh = args[++i].split("x");
+                    bench.width = Integer.parseInt(wh[0]);
+                    bench.height = Integer.parseInt(wh[1]);
+                    break;
+                }
+                case "--context": bench.contextApi = contextApi(args[++i]); break;
+                case "--report": bench.reportFile = Paths.get(args[++i]); break;
+                case "--capture-every": bench.captureEvery = Integer.parseInt(args[++i]); break;
+                case "--capture-dir": bench.captureDir = Paths.get(args[++i]); break;
+                case "--upload-budget": bench.uploadBudget = Long.parseLong(args[++i]) * 1024; break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        if (bench.frames <= 0) throw new IllegalArgumentException("--frames must be positive");
+        bench.run();
+    }
+
+    private static int contextApi(String name) {
+        switch (name) {
+            case "native": return GLFW.GLFW_NATIVE_CONTEXT_API;
+            case "egl": return GLFW.GLFW_EGL_CONTEXT_API;
+            case "osmesa": return GLFW.GLFW_OSMESA_CONTEXT_API;
+            default: throw new IllegalArgumentException("Unknown context API: " + name);
+        }
+    }
+
+    private void run() throws IOException {
+        initContext();
+        try {
+            createFramebuffer();
+            ShaderProgram shader = new ShaderCache(ShaderCache.defaultDir()).load("/shaders/vertex.vs", "/shaders/fragment.fs");
+            World world = new World();
+            WorldRenderer renderer = new WorldRenderer(world);
+            renderer.setUploadBudget(uploadBudget);
+            renderer.setSortInline(true);
+            Camera camera = new Camera(width, height);
+            if (captureDir != null) Files.createDirectories(captureDir);
+
+            long[] times = new long[frames];
+            long drawCalls = 0;
+            long vertices = 0;
+            long[] uploaded = new long[frames];
+            List<String> captures = new ArrayList<>();
+            ByteBuffer pixels = captureEvery > 0 ? BufferUtils.createByteBuffer(width * height * 4) : null;
+            Vector3f eye = new Vector3f();
+            // Warmup frames hold the first pose so every section is meshed before timing.
+            for (int f = -warmup; f < frames; f++) {
+                pose(camera, eye, Math.max(f, 0));
+                long start = System.nanoTime();
+                glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
+                shader.bind();
+                shader.setUniform("projectionMatrix", camera.getProjectionMatrix());
+                shader.setUniform("viewMatrix", camera.getViewMatrix());
+                renderer.render(shader, camera.getPosition());
+                shader.unbind();
+                glFinish();
+                if (f < 0) continue;
+                times[f] = System.nanoTime() - start;
+                drawCalls += renderer.getLastDrawCalls();
+                vertices += renderer.getLastVertices();
+                uploaded[f] = renderer.getLastUploadBytes();
+                if (pixels != null && f % captureEvery == 0) captures.add(capture(pixels, f));
+            }
+            shader.cleanup();
+            renderer.cleanup();
+            writeReport(times, drawCalls, vertices, uploaded, captures);
+        } finally {
+            destroy();
+        }
+    }
+
+    // Two laps around the island: a high orbit looking at the centre, then a low pass skimming
+    // the surface, so the run covers both the distant LOD levels and full-detail terrain.
+    private void pose(Camera camera, Vector3f eye, int frame) {
+        float t = (float) frame / frames;
+        float cx = World.SIZE_X / 2f, cz = World.SIZE_Z / 2f;
+        boolean high = t < 0.5f;
+        double angle = (high ? t : t - 0.5f) * 2 * 2 * Math.PI;
+        float radius = high ? World.SIZE_X * 0.9f : World.SIZE_X * 0.35f;
+        float y = high ? World.SIZE_Y * 1.5f : World.SIZE_Y * 0.75f;
+        eye.set(cx + (float) Math.cos(angle) * radius, y, cz + (float) Math.sin(angle) * radius);
+        float dx = cx - eye.x, dy = World.SIZE_Y * 0.4f - eye.y, dz = cz - eye.z;
+        float horizontal = (float) Math.sqrt(dx * dx + dz * dz);
+        // Camera yaw 0 looks down -z and positive pitch looks down.
+        camera.getRotation().set((float) Math.toDegrees(Math.atan2(-dy, horizontal)),
+                (float) Math.toDegrees(Math.atan2(dx, -dz)), 0);
+        camera.setPosition(eye);
+    }
+
+    private void initContext() {
+        GLFWErrorCallback.createPrint(System.err).set();
+        if (!GLFW.glfwInit()) throw new IllegalStateException("Unable to initialize GLFW");
+        GLFW.glfwDefaultWindowHints();
+        GLFW.glfwWindowHint(GLFW.GLFW_VISIBLE, GLFW.GLFW_FALSE);
+        GLFW.glfwWindowHint(GLFW.GLFW_CONTEXT_CREATION_API, contextApi);
+        // The window only hosts the context; its own framebuffer is never drawn to.
+        window = GLFW.glfwCreateWindow(1, 1, "offscreen", MemoryUtil.NULL, MemoryUtil.NULL);
+        if (window == MemoryUtil.NULL) throw new RuntimeException("Failed to create a hidden GLFW window");
+        GLFW.glfwMakeContextCurrent(window);
+        GLFW.glfwSwapInterval(0);
+        GL.createCapabilities();
+    }
+
+    private void createFramebuffer() {
+        fbo = glGenFramebuffers();
+        glBindFramebuffer(GL_FRAMEBUFFER, fbo);
+        colorRbo = glGenRenderbuffers();
+        glBindRenderbuffer(GL_RENDERBUFFER, colorRbo);
+        glRenderbufferStorage(GL_RENDERBUFFER, GL_RGBA8, width, height);
+        glFramebufferRenderbuffer(GL_FRAMEBUFFER, GL_COLOR_ATTACHMENT0, GL_RENDERBUFFER, colorRbo);
+        depthRbo = glGenRenderbuffers();
+        glBindRenderbuffer(GL_RENDERBUFFER, depthRbo);
+        glRenderbufferStorage(GL_RENDERBUFFER, GL_DEPTH_COMPONENT24, width, height);
+        glFramebufferRenderbuffer(GL_FRAMEBUFFER, GL_DEPTH_ATTACHMENT, GL_RENDERBUFFER, depthRbo);
+        int status = glCheckFramebufferStatus(GL_FRAMEBUFFER);
+        if (status != GL_FRAMEBUFFER_COMPLETE) throw new IllegalStateException("Framebuffer incomplete: 0x" + Integer.toHexString(status));
+
+        glViewport(0, 0, width, height);
+        glClearColor(0.53f, 0.81f, 0.98f, 0.0f);
+        glEnable(GL_DEPTH_TEST);
+    }
+
+    private String capture(ByteBuffer pixels, int frame) throws IOException {
+        pixels.clear();
+        glReadPixels(0, 0, width, height, GL_RGBA, GL_UNSIGNED_BYTE, pixels);
+        CRC32 crc = new CRC32();
+        crc.update(pixels);
+        pixels.rewind();
+        String checksum = String.format("%08x", crc.getValue());
+        if (captureDir != null) writePpm(captureDir.resolve(String.format("frame_%05d.ppm", frame)), pixels);
+        return String.format("{\"frame\": %d, \"crc32\": \"%s\"}", frame, checksum);
+    }
+
+    // GL rows start at the bottom; PPM rows start at the top.
+    private void writePpm(Path file, ByteBuffer pixels) throws IOException {
+        byte[] row = new byte[width * 3];
+        try (OutputStream out = Files.newOutputStream(file)) {
+            out.write(("P6\n" + width + " " + height + "\n255\n").getBytes(StandardCharsets.US_ASCII));
+            for (int y = height - 1; y >= 0; y--) {
+                int base = y * width * 4;
+                for (int x = 0; x < width; x++) {
+                    row[x * 3] = pixels.get(base + x * 4);
+                    row[x * 3 + 1] = pixels.get(base + x * 4 + 1);
+                    row[x * 3 + 2] = pixels.get(base + x * 4 + 2);
+                }
+                out.write(row);
+            }
+        }
+    }
+
+    private void writeReport(long[] times, long drawCalls, long vertices, long[] uploaded, List<String> captures) throws IOException {
+        long[] sorted = times.clone();
+        Arrays.sort(sorted);
+        long total = 0;
+        for (long t : sorted) total += t;
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append(String.format(Locale.ROOT, "  \"renderer\": \"%s\",%n", escape(glGetString(GL_RENDERER))));
+        json.append(String.format(Locale.ROOT, "  \"version\": \"%s\",%n", escape(glGetString(GL_VERSION))));
+        json.append(String.format(Locale.ROOT, "  \"width\": %d, \"height\": %d, \"frames\": %d, \"warmup\": %d,%n", width, height, frames, warmup));
+        json.append(String.format(Locale.ROOT, "  \"frame_ms\": {\"mean\": %.3f, \"p50\": %.3f, \"p90\": %.3f, \"p99\": %.3f, \"max\": %.3f},%n",
+                total / 1e6 / frames, percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+                sorted[frames - 1] / 1e6));
+        json.append(String.format(Locale.ROOT, "  \"draw_calls_per_frame\": %.1f,%n", (double) drawCalls / frames));
+        json.append(String.format(Locale.ROOT, "  \"vertices_per_frame\": %.0f,%n", (double) vertices / frames));
+        long uploadTotal = 0, uploadMax = 0;
+        int uploadFrames = 0;
+        for (long u : uploaded) {
+            uploadTotal += u;
+            uploadMax = Math.max(uploadMax, u);
+            if (u > 0) uploadFrames++;
+        }
+        json.append(String.format(Locale.ROOT, "  \"upload_bytes\": {\"budget\": %d, \"total\": %d, \"max_per_frame\": %d, \"frames_with_uploads\": %d},%n",
+                uploadBudget, uploadTotal, uploadMax, uploadFrames));
+        json.append("  \"captures\": [");
+        for (int i = 0; i < captures.size(); i++) json.append(i == 0 ? "\n    " : ",\n    ").append(captures.get(i));
+        json.append(captures.isEmpty() ? "]\n" : "\n  ]\n");
+        json.append("}\n");
+
+        if (reportFile == null) {
+            System.out.print(json);
+        } else {
+            Files.write(reportFile, json.toString().getBytes(StandardCharsets.UTF_8));
+            System.out.println("report written to " + reportFile);
+        }
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))] / 1e6;
+    }
+
+    private static String escape(String s) {
+        return s == null ? "" : s.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private void destroy() {
+        if (fbo != 0) {
+            glBindFramebuffer(GL_FRAMEBUFFER, 0);
+            glDeleteRenderbuffers(colorRbo);
+            glDeleteRenderbuffers(depthRbo);
+            glDeleteFramebuffers(fbo);
+        }
+        GLFW.glfwDestroyWindow(window);
+        GLFW.glfwTerminate();
+        GLFW.glfwSetErrorCallback(null).free();
+    }
+}
@@ -0,0 +1,65 @@
+package com.games.simpleminecraft;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+
+// Headless benchmark: random path queries across the default island on a worker pool.
+// Runs a cold round (graphs built on demand) and a warm round, then edits one block and shows
+// that only the chunks around it are rebuilt.
+// Usage: PathBenchmark [queries=5000] [threads=available processors]
+public class PathBenchmark {
+    public static void main(String[] args) {
+        int queries = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        World world = new World();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        Pathfinder pathfinder = new Pathfinder(world, pool);
+
+        List<int[]> cells = new ArrayList<>();
+        for (int x = 0; x < World.SIZE_X; x++)
+            for (int y = 0; y < World.SIZE_Y; y++)
+                for (int z = 0; z < World.SIZE_Z; z++)
+                    if (pathfinder.isStandable(x, y, z)) cells.add(new int[]{x, y, z});
+        System.out.printf("standable cells: %d, graph builds: %d%n", cells.size(), pathfinder.getGraphBuilds());
+
+        Pathfinder cold = new Pathfinder(world, pool);
+        run(cold, cells, queries, "cold", threads);
+        run(cold, cells, queries, "warm", threads);
+
+        int builds = cold.getGraphBuilds();
+        int[] c = cells.get(cells.size() / 2);
+        world.setBlock(c[0], c[1], c[2], World.BlockType.STONE);
+        run(cold, cells, queries, "after one edit", threads);
+        System.out.printf("chunks rebuilt after editing (%d,%d,%d): %d of %d%n",
+                c[0], c[1], c[2], cold.getGraphBuilds() - builds, World.CHUNK_COUNT);
+        pool.shutdown();
+    }
+
+    private static void run(Pathfinder pathfinder, List<int[]> cells, int queries, String label, int threads) {
+        Random rnd = new Random(11);
+        List<CompletableFuture<int[]>> futures = new ArrayList<>(queries);
+        long start = System.nanoTime();
+        for (int q = 0; q < queries; q++) {
+            int[] a = cells.get(rnd.nextInt(cells.size()));
+            int[] b = cells.get(rnd.nextInt(cells.size()));
+            futures.add(pathfinder.findPathAsync(a[0], a[1], a[2], b[0], b[1], b[2]));
+        }
+        int found = 0;
+        long steps = 0;
+        for (CompletableFuture<int[]> f : futures) {
+            int[] path = f.join();
+            if (path != null) {
+                found++;
+                steps += path.length;
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%s: %d queries on %d threads in %.3fs = %.0f paths/s, found %d (mean length %.1f), graph builds so far %d%n",
+                label, queries, threads, seconds, queries / seconds, found, found > 0 ? (double) steps / found : 0.0,
+                pathfinder.getGraphBuilds());
+    }
+}
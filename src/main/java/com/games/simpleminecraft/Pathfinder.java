@@ -0,0 +1,177 @@
+package com.games.simpleminecraft;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// A* over cached per-chunk walkability graphs for player-sized agents (Camera.PLAYER_HEIGHT tall,
+// narrower than a block). Graphs are built on first use and rebuilt only when one of the chunk's
+// section versions has moved, so an edit invalidates just the chunks around it.
+//
+// Queries are safe from any thread and normally run on the executor via findPathAsync. They read
+// the live world without locking, bracketed by World.beginRead/endRead so no section's slab is
+// recycled under them: a graph built while the world changes underneath is stamped with the
+// version read before building, so it is simply rebuilt on the next query.
+//
+// Paths are arrays of World.index values of the standable cells from start to goal.
+public class Pathfinder {
+    public static final int CLEARANCE = (int) Math.ceil(Camera.PLAYER_HEIGHT);
+    public static final int MAX_FALL = 3;
+    public static final int DEFAULT_MAX_EXPANSIONS = 32768;
+
+    // Costs in tenths of a block walked.
+    private static final int WALK_COST = 10;
+    private static final int JUMP_COST = 15;
+    private static final int FALL_COST_PER_BLOCK = 2;
+
+    private final World world;
+    private final Executor executor;
+    private final AtomicReferenceArray<WalkGraph> graphs = new AtomicReferenceArray<>(World.CHUNK_COUNT);
+    private final ThreadLocal<Search> searches = ThreadLocal.withInitial(Search::new);
+    private final AtomicInteger graphBuilds = new AtomicInteger();
+    private volatile int maxExpansions = DEFAULT_MAX_EXPANSIONS;
+
+    // Per-thread A* state sized to the world; stamps avoid clearing it between queries.
+    private static final class Search {
+        final int[] stamp = new int[World.SIZE_X * World.SIZE_Y * World.SIZE_Z];
+        final int[] cost = new int[stamp.length];
+        final int[] from = new int[stamp.length];
+        final boolean[] closed = new boolean[stamp.length];
+        final LongHeap open = new LongHeap();
+        int generation;
+    }
+
+    public Pathfinder(World world, Executor executor) {
+        this.world = world;
+        this.executor = executor;
+    }
+
+    public void setMaxExpansions(int maxExpansions) {
+        this.maxExpansions = Math.max(1, maxExpansions);
+    }
+
+    public int getGraphBuilds() {
+        return graphBuilds.get();
+    }
+
+    public CompletableFuture<int[]> findPathAsync(int sx, int sy, int sz, int gx, int gy, int gz) {
+        return CompletableFuture.supplyAsync(() -> findPath(sx, sy, sz, gx, gy, gz), executor);
+    }
+
+    public boolean isStandable(int x, int y, int z) {
+        world.beginRead();
+        try {
+            return standable(x, y, z);
+        } finally {
+            world.endRead();
+        }
+    }
+
+    // Path from start to goal inclusive, or null if either end isn't standable or no path was
+    // found within the expansion limit.
+    public int[] findPath(int sx, int sy, int sz, int gx, int gy, int gz) {
+        world.beginRead();
+        try {
+            return search(sx, sy, sz, gx, gy, gz);
+        } finally {
+            world.endRead();
+        }
+    }
+
+    private boolean standable(int x, int y, int z) {
+        return World.inBounds(x, y, z) && graph(x, z).node(x, y, z) >= 0;
+    }
+
+    private int[] search(int sx, int sy, int sz, int gx, int gy, int gz) {
+        if (!standable(sx, sy, sz) || !standable(gx, gy, gz)) return null;
+        Search s = searches.get();
+        int gen = ++s.generation;
+        if (gen == 0) { // wrapped: stale stamps could collide
+            Arrays.fill(s.stamp, 0);
+            gen = s.generation = 1;
+        }
+        s.open.clear();
+        int start = World.index(sx, sy, sz), goal = World.index(gx, gy, gz);
+        visit(s, gen, start, 0, start);
+        s.open.add(((long) heuristic(sx, sz, gx, gz) << 32) | start);
+
+        int limit = maxExpansions;
+        for (int expanded = 0; !s.open.isEmpty() && expanded < limit; ) {
+            int idx = (int) s.open.poll();
+            if (s.closed[idx]) continue;
+            s.closed[idx] = true;
+            if (idx == goal) return reconstruct(s, start, goal);
+            expanded++;
+
+            int x = x(idx), y = y(idx), z = z(idx);
+            WalkGraph g = graph(x, z);
+            int node = g.node(x, y, z);
+            for (int l = g.linkStart(node); l < g.linkEnd(node); l++) {
+                int t = g.link(l);
+                int ty = y(t);
+                int step = ty > y ? JUMP_COST : ty < y ? WALK_COST + (y - ty) * FALL_COST_PER_BLOCK : WALK_COST;
+                int c = s.cost[idx] + step;
+                if (s.stamp[t] == gen && (s.closed[t] || s.cost[t] <= c)) continue;
+                visit(s, gen, t, c, idx);
+                s.open.add(((long) (c + heuristic(x(t), z(t), gx, gz)) << 32) | t);
+            }
+        }
+        return null;
+    }
+
+    private static void visit(Search s, int gen, int idx, int cost, int from) {
+        if (s.stamp[idx] != gen) {
+            s.stamp[idx] = gen;
+            s.closed[idx] = false;
+        }
+        s.cost[idx] = cost;
+        s.from[idx] = from;
+    }
+
+    // Every link moves one block horizontally, so this never overestimates.
+    private static int heuristic(int x, int z, int gx, int gz) {
+        return WALK_COST * (Math.abs(gx - x) + Math.abs(gz - z));
+    }
+
+    private static int[] reconstruct(Search s, int start, int goal) {
+        int length = 1;
+        for (int i = goal; i != start; i = s.from[i]) length++;
+        int[] path = new int[length];
+        for (int i = goal, k = length - 1; k >= 0; i = s.from[i], k--) path[k] = i;
+        return path;
+    }
+
+    private WalkGraph graph(int x, int z) {
+        int chunk = World.chunkIndex(x >> World.SECTION_SHIFT, z >> World.SECTION_SHIFT);
+        long version = chunkVersion(chunk);
+        WalkGraph g = graphs.get(chunk);
+        if (g == null || g.version != version) {
+            g = new WalkGraph(world, chunk, version);
+            graphs.set(chunk, g);
+            graphBuilds.incrementAndGet();
+        }
+        return g;
+    }
+
+    // Section versions only grow, so their sum changes whenever any of them does.
+    private long chunkVersion(int chunk) {
+        int sx = chunk / World.CHUNKS_Z, sz = chunk % World.CHUNKS_Z;
+        long sum = 0;
+        for (int sy = 0; sy < World.SECTIONS_Y; sy++) sum += world.getSectionVersion(World.sectionIndex(sx, sy, sz));
+        return sum;
+    }
+
+    public static int x(int index) {
+        return index / (World.SIZE_Y * World.SIZE_Z);
+    }
+
+    public static int y(int index) {
+        return (index / World.SIZE_Z) % World.SIZE_Y;
+    }
+
+    public static int z(int index) {
+        return index % World.SIZE_Z;
+    }
+}
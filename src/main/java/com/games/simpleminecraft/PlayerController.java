@@ -0,0 +1,84 @@
+package com.games.simpleminecraft;
+
+import org.joml.Vector3f;
+
+// Applies one frame of player input to the camera and the simulation: mouse look, movement,
+// ticking, and mining/placing on button presses. Has no GLFW or GL dependency, so a recorded
+// session can be replayed headless and end in exactly the state the live game reached.
+public class PlayerController {
+    public static final World.BlockType[] HOTBAR = {
+        World.BlockType.DIRT, World.BlockType.STONE, World.BlockType.WOOD, World.BlockType.SAND,
+        World.BlockType.WATER, World.BlockType.LAVA
+    };
+    public static final float REACH = 6f;
+
+    private final Camera camera;
+    private final Simulation simulation;
+    private World.BlockType selectedBlock = HOTBAR[0];
+    private int prevButtons;
+
+    // Raycast scratch, reused every frame.
+    private final Vector3f origin = new Vector3f();
+    private final Vector3f dir = new Vector3f();
+    private final Vector3f hit = new Vector3f();
+    private final Vector3f normal = new Vector3f();
+
+    public PlayerController(Camera camera, Simulation simulation) {
+        this.camera = camera;
+        this.simulation = simulation;
+    }
+
+    // Starting point above the middle of the island.
+    public void spawn() {
+        camera.setPosition(new Vector3f(World.SIZE_X / 2f, 20f, World.SIZE_Z / 2f));
+    }
+
+    public World.BlockType getSelectedBlock() {
+        return selectedBlock;
+    }
+
+    // physics false keeps the player in place, e.g. while a client's world is still arriving.
+    public void update(InputFrame input, boolean physics) {
+        if (input.hotbarSlot >= 0 && input.hotbarSlot < HOTBAR.length) selectedBlock = HOTBAR[input.hotbarSlot];
+
+        // Mouse look
+        camera.rotate(input.cursorX, input.cursorY);
+
+        World world = simulation.getWorld();
+        if (physics) {
+            camera.updatePhysics(world, input.dt, input.isDown(InputFrame.FORWARD), input.isDown(InputFrame.BACK),
+                    input.isDown(InputFrame.LEFT), input.isDown(InputFrame.RIGHT), input.isDown(InputFrame.JUMP));
+        }
+        simulation.advance(input.dt);
+
+        // Mining/Placing act on the press, not while held
+        int pressed = input.buttons & ~prevButtons;
+        prevButtons = input.buttons;
+        if ((pressed & (InputFrame.MINE | InputFrame.PLACE)) == 0) return;
+        origin.set(camera.getPosition());
+        camera.getForwardVector(dir);
+        if ((pressed & InputFrame.MINE) != 0) {
+            if (world.raycast(origin, dir, REACH, hit, normal)) {
+                simulation.setBlock((int) hit.x, (int) hit.y, (int) hit.z, World.BlockType.AIR.id());
+            }
+        }
+        if ((pressed & InputFrame.PLACE) != 0) {
+            if (world.raycast(origin, dir, REACH, hit, normal)) {
+                int px = (int) hit.x + (int) normal.x;
+                int py = (int) hit.y + (int) normal.y;
+                int pz = (int) hit.z + (int) normal.z;
+                simulation.setBlock(px, py, pz, selectedBlock.id());
+            }
+        }
+    }
+
+    // World contents plus player position and tick count; two runs that ended alike hash alike.
+    public long stateHash() {
+        long h = simulation.getWorld().contentHash();
+        Vector3f p = camera.getPosition();
+        h = h * 31 + Float.floatToIntBits(p.x);
+        h = h * 31 + Float.floatToIntBits(p.y);
+        h = h * 31 + Float.floatToIntBits(p.z);
+        return h * 31 + simulation.getTickCount();
+    }
+}
@@ -0,0 +1,57 @@
+package com.games.simpleminecraft;
+
+import java.nio.ByteBuffer;
+
+// Wire format shared by NetServer and NetClient. Every frame is
+//   int length (of what follows), byte type, payload
+// and fits in one pooled buffer of MAX_FRAME bytes.
+public final class Protocol {
+    public static final int VERSION = 1;
+
+    public static final byte HELLO = 1;        // C->S: int version. Also requests a full resync.
+    public static final byte SECTION = 2;      // S->C: SectionCodec payload
+    public static final byte BLOCK_DELTAS = 3; // both: int count, count x (short x, y, z, id)
+
+    public static final int MAX_FRAME = 16 * 1024;
+    public static final int DELTA_BYTES = 8;
+    public static final int MAX_DELTAS_PER_FRAME = (MAX_FRAME - 4 - 1 - 4) / DELTA_BYTES;
+
+    private Protocol() {
+    }
+
+    public static ByteBuffer begin(BufferPool pool, byte type) {
+        ByteBuffer b = pool.acquire();
+        b.putInt(0);
+        b.put(type);
+        return b;
+    }
+
+    // Patches the length prefix and flips the buffer for writing to a channel.
+    public static ByteBuffer finish(ByteBuffer b) {
+        b.putInt(0, b.position() - 4);
+        b.flip();
+        return b;
+    }
+
+    public static void sendHello(Connection c, BufferPool pool) {
+        ByteBuffer b = begin(pool, HELLO);
+        b.putInt(VERSION);
+        c.enqueue(finish(b));
+    }
+
+    // Splits the batch into as few frames as fit and queues them on the connection.
+    public static void sendDeltas(Connection c, BufferPool pool, BlockDeltaBatch batch) {
+        for (int from = 0; from < batch.size(); from += MAX_DELTAS_PER_FRAME) {
+            int to = Math.min(batch.size(), from + MAX_DELTAS_PER_FRAME);
+            ByteBuffer b = begin(pool, BLOCK_DELTAS);
+            b.putInt(to - from);
+            for (int i = from; i < to; i++) {
+                b.putShort((short) batch.x(i));
+                b.putShort((short) batch.y(i));
+                b.putShort((short) batch.z(i));
+                b.putShort((short) batch.id(i));
+            }
+            c.enqueue(finish(b));
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.games.simpleminecraft;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Keeps frames inside a time budget by trading render quality for speed. Each frame reports its
+// CPU time (update and render, not the vsync wait) and the latest GPU time; every WINDOW frames
+// the 90th percentile of the larger of the two is compared with the budget:
+//   above budget * DOWNGRADE_RATIO, DOWNGRADE_WINDOWS windows in a row -> one level down
+//   below budget * UPGRADE_RATIO, UPGRADE_WINDOWS windows in a row     -> one level up
+// The gap between the ratios, the longer wait before going up and the COOLDOWN_WINDOWS ignored
+// after any change (their frames still carry the old settings' cost) keep it from flapping
+// between two levels. An upgrade that is undone before it has held for STABLE_WINDOWS doubles
+// the wait before the next try (up to MAX_UPGRADE_WINDOWS); one that holds resets it.
+//
+// Levels turn the cheapest knobs first: the per-frame mesh upload budget (edits and LOD changes
+// show up a few frames late), then LOD distances (coarser terrain at range), then render distance
+// (far terrain disappears), and last the worker thread count (the simulation steps on fewer
+// cores, leaving them to the render thread and the driver). Going up undoes them in reverse.
+public class QualityGovernor {
+    public static final int WINDOW = 30;
+    public static final float DOWNGRADE_RATIO = 1.1f;
+    public static final float UPGRADE_RATIO = 0.7f;
+    public static final int DOWNGRADE_WINDOWS = 2;
+    public static final int UPGRADE_WINDOWS = 4;
+    public static final int COOLDOWN_WINDOWS = 1;
+    public static final int MAX_UPGRADE_WINDOWS = 64;
+    public static final int STABLE_WINDOWS = 20;
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    // One rung of the ladder; level 0 is full quality.
+    public static final class Level {
+        public final int meshBudget;
+        public final float lodScale;
+        public final float renderDistance;
+        public final int workerThreads;
+
+        Level(int meshBudget, float lodScale, float renderDistance, int workerThreads) {
+            this.meshBudget = meshBudget;
+            this.lodScale = lodScale;
+            this.renderDistance = renderDistance;
+            this.workerThreads = workerThreads;
+        }
+
+        // The knob that differs from an adjacent level, for the decision log.
+        String describeChange(Level from) {
+            if (meshBudget != from.meshBudget) return "mesh uploads " + budgetName(from.meshBudget) + " -> " + budgetName(meshBudget) + "/frame";
+            if (lodScale != from.lodScale) return String.format("LOD distances x%.2f -> x%.2f", from.lodScale, lodScale);
+            if (renderDistance != from.renderDistance) return "render distance " + distanceName(from.renderDistance) + " -> " + distanceName(renderDistance);
+            return "worker threads " + from.workerThreads + " -> " + workerThreads;
+        }
+
+        private static String budgetName(int budget) {
+            return budget == UNLIMITED ? "unlimited" : Integer.toString(budget);
+        }
+
+        private static String distanceName(float distance) {
+            return Float.isInfinite(distance) ? "unlimited" : Math.round(distance) + " blocks";
+        }
+    }
+
+    private final long budgetNanos;
+    private final Level[] levels;
+    private int level;
+
+    private final long[] window = new long[WINDOW];
+    private final long[] sorted = new long[WINDOW];
+    private final long[] gpuWindow = new long[WINDOW];
+    private int frames;
+    private long lastGpu = -1;
+    private int cooldown;
+    private int slowWindows;
+    private int fastWindows;
+    private int upgradeWindows = UPGRADE_WINDOWS;
+    private int sinceUpgrade = -1;
+    private long lastP90;
+
+    private Counter downgrades;
+    private Counter upgrades;
+
+    // maxWorkers: worker threads at full quality; 1 steps the simulation on the calling thread.
+    public QualityGovernor(float budgetMs, int maxWorkers) {
+        if (budgetMs <= 0) throw new IllegalArgumentException("Frame budget must be positive");
+        if (maxWorkers < 1) throw new IllegalArgumentException("Need at least one worker thread");
+        this.budgetNanos = (long) (budgetMs * 1_000_000L);
+        this.levels = buildLevels(maxWorkers);
+    }
+
+    private static Level[] buildLevels(int maxWorkers) {
+        int[] budgets = {UNLIMITED, 8, 2};
+        float[] lodScales = {1f, 0.5f, 0.25f};
+        float[] distances = {Float.POSITIVE_INFINITY, 96f, 64f, 40f};
+        int[] workers = {maxWorkers, Math.max(1, maxWorkers / 2), 1};
+
+        List<Level> ladder = new ArrayList<>();
+        int b = 0, l = 0, d = 0, w = 0;
+        ladder.add(new Level(budgets[b], lodScales[l], distances[d], workers[w]));
+        while (b + 1 < budgets.length) ladder.add(new Level(budgets[++b], lodScales[l], distances[d], workers[w]));
+        while (l + 1 < lodScales.length) ladder.add(new Level(budgets[b], lodScales[++l], distances[d], workers[w]));
+        while (d + 1 < distances.length) ladder.add(new Level(budgets[b], lodScales[l], distances[++d], workers[w]));
+        while (w + 1 < workers.length) {
+            // Few cores: halving may already be 1, don't add a rung that changes nothing.
+            if (workers[++w] != ladder.get(ladder.size() - 1).workerThreads) {
+                ladder.add(new Level(budgets[b], lodScales[l], distances[d], workers[w]));
+            }
+        }
+        return ladder.toArray(new Level[0]);
+    }
+
+    // cpuNanos: this frame's CPU time. gpuNanos: a GPU time that became available this frame,
+    // or -1 (the last one is reused). Returns true when the level changed and getSettings()
+    // should be applied.
+    public boolean onFrame(long cpuNanos, long gpuNanos) {
+        if (gpuNanos >= 0) lastGpu = gpuNanos;
+        window[frames] = Math.max(cpuNanos, lastGpu);
+        gpuWindow[frames] = lastGpu;
+        if (++frames < WINDOW) return false;
+        frames = 0;
+
+        System.arraycopy(window, 0, sorted, 0, WINDOW);
+        Arrays.sort(sorted);
+        lastP90 = sorted[WINDOW * 9 / 10];
+        if (sinceUpgrade >= 0 && ++sinceUpgrade > STABLE_WINDOWS) {
+            upgradeWindows = UPGRADE_WINDOWS;
+            sinceUpgrade = -1;
+        }
+        if (cooldown > 0) {
+            cooldown--;
+            return false;
+        }
+        if (lastP90 > budgetNanos * DOWNGRADE_RATIO) {
+            fastWindows = 0;
+            if (++slowWindows < DOWNGRADE_WINDOWS) return false;
+            slowWindows = 0;
+            if (sinceUpgrade >= 0) upgradeWindows = Math.min(upgradeWindows * 2, MAX_UPGRADE_WINDOWS);
+            sinceUpgrade = -1;
+            return change(level + 1, downgrades);
+        }
+        slowWindows = 0;
+        if (lastP90 < budgetNanos * UPGRADE_RATIO) {
+            if (++fastWindows < upgradeWindows) return false;
+            fastWindows = 0;
+            if (level > 0) sinceUpgrade = 0;
+            return change(level - 1, upgrades);
+        }
+        fastWindows = 0;
+        return false;
+    }
+
+    private boolean change(int to, Counter counter) {
+        if (to < 0 || to >= levels.length) return false;
+        int from = level;
+        level = to;
+        cooldown = COOLDOWN_WINDOWS;
+        if (counter != null) counter.increment();
+        System.arraycopy(gpuWindow, 0, sorted, 0, WINDOW);
+        Arrays.sort(sorted);
+        long gpuP90 = sorted[WINDOW * 9 / 10];
+        System.out.printf("quality: level %d -> %d/%d, %s (frame p90 %.1fms, gpu p90 %s, budget %.1fms)%n",
+                from, to, levels.length - 1, levels[to].describeChange(levels[from]),
+                lastP90 / 1e6, gpuP90 < 0 ? "n/a" : String.format("%.1fms", gpuP90 / 1e6), budgetNanos / 1e6);
+        return true;
+    }
+
+    public Level getSettings() {
+        return levels[level];
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public int getLevelCount() {
+        return levels.length;
+    }
+
+    // 90th percentile frame time of the last full window.
+    public long getLastP90() {
+        return lastP90;
+    }
+
+    // quality.level, quality.meshBudget (-1 for unlimited), quality.lodPercent,
+    // quality.renderDistance (-1 for unlimited), quality.workers, quality.frameP90 (ns),
+    // and the quality.downgrades / quality.upgrades counters.
+    public void registerMetrics(MetricsRegistry metrics) {
+        downgrades = metrics.counter("quality.downgrades");
+        upgrades = metrics.counter("quality.upgrades");
+        metrics.gauge("quality.level", () -> level);
+        metrics.gauge("quality.meshBudget", () -> levels[level].meshBudget == UNLIMITED ? -1 : levels[level].meshBudget);
+        metrics.gauge("quality.lodPercent", () -> Math.round(levels[level].lodScale * 100));
+        metrics.gauge("quality.renderDistance", () -> Float.isInfinite(levels[level].renderDistance) ? -1 : Math.round(levels[level].renderDistance));
+        metrics.gauge("quality.workers", () -> levels[level].workerThreads);
+        metrics.gauge("quality.frameP90", () -> lastP90);
+    }
+}
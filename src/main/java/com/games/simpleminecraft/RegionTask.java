@@ -0,0 +1,38 @@
+package com.games.simpleminecraft;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+// Runs task(0..count-1) on a fork-join pool, one leaf per region, or inline when pool is null.
+// Shared by the per-region simulation steps (entities, fluids).
+final class RegionTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final IntConsumer task;
+    private final int from, to;
+
+    private RegionTask(IntConsumer task, int from, int to) {
+        this.task = task;
+        this.from = from;
+        this.to = to;
+    }
+
+    static void run(ForkJoinPool pool, int count, IntConsumer task) {
+        if (pool == null) {
+            for (int r = 0; r < count; r++) task.accept(r);
+        } else if (count > 0) {
+            pool.invoke(new RegionTask(task, 0, count));
+        }
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from == 1) {
+            task.accept(from);
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        invokeAll(new RegionTask(task, from, mid), new RegionTask(task, mid, to));
+    }
+}
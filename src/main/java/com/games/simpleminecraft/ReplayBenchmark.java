@@ -0,0 +1,82 @@
+package com.games.simpleminecraft;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+
+// Headless replay of a Game --record session: drives PlayerController and the simulation from
+// the recording with no window, times every frame, and checks each run ends in the recorded
+// state hash. Meant to run under a profiler as the regression harness for edit-heavy sessions.
+// --generate writes a scripted session (walking, turning and mining/placing every few frames)
+// so the harness can run without anyone recording by hand.
+// Usage: ReplayBenchmark FILE [runs=3]
+//        ReplayBenchmark --generate FILE [frames=3600]
+public class ReplayBenchmark {
+    public static void main(String[] args) throws IOException {
+        if (args.length > 1 && args[0].equals("--generate")) {
+            Path file = Paths.get(args[1]);
+            int frames = args.length > 2 ? Integer.parseInt(args[2]) : 3600;
+            generate(file, frames);
+            args = new String[] {args[1]};
+        }
+        if (args.length == 0) throw new IllegalArgumentException("Usage: ReplayBenchmark FILE [runs] | --generate FILE [frames]");
+        Path file = Paths.get(args[0]);
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        int failed = 0;
+        for (int run = 1; run <= runs; run++) {
+            if (!replay(file, "run " + run)) failed++;
+        }
+        if (failed > 0) {
+            System.out.printf("%d/%d runs ended in a different state%n", failed, runs);
+            System.exit(1);
+        }
+    }
+
+    private static boolean replay(Path file, String label) throws IOException {
+        Simulation simulation = new Simulation();
+        PlayerController player = new PlayerController(new Camera(1280, 720), simulation);
+        player.spawn();
+        InputFrame frame = new InputFrame();
+        long[] times = new long[1024];
+        int count = 0;
+        long edits = 0;
+        try (InputReplay replay = new InputReplay(file)) {
+            while (replay.next(frame)) {
+                long start = System.nanoTime();
+                player.update(frame, true);
+                if (count == times.length) times = Arrays.copyOf(times, count * 2);
+                times[count++] = System.nanoTime() - start;
+                edits += simulation.getEdits().size();
+                simulation.getEdits().clear();
+            }
+            if (count == 0) throw new IllegalStateException("Recording has no frames: " + file);
+            long[] sorted = Arrays.copyOf(times, count);
+            Arrays.sort(sorted);
+            long total = 0;
+            for (long t : sorted) total += t;
+            long hash = player.stateHash();
+            boolean ok = !replay.hasExpectedHash() || hash == replay.getExpectedHash();
+            System.out.printf("%s: frames=%d ticks=%d edits=%d mean=%.3fms p50=%.3fms p99=%.3fms max=%.3fms hash=%016x %s%n",
+                    label, count, simulation.getTickCount(), edits, total / 1e6 / count, sorted[count / 2] / 1e6,
+                    sorted[(int) (count * 0.99)] / 1e6, sorted[count - 1] / 1e6, hash,
+                    !replay.hasExpectedHash() ? "(unchecked)" : ok ? "matches" : "MISMATCH");
+            return ok;
+        }
+    }
+
+    // Records a scripted session the same way Game --record does.
+    private static void generate(Path file, int frames) throws IOException {
+        Simulation simulation = new Simulation();
+        PlayerController player = new PlayerController(new Camera(1280, 720), simulation);
+        player.spawn();
+        InputFrame frame = new InputFrame();
+        try (InputRecorder recorder = new InputRecorder(new ScriptedInput(frames, new Random(99)), file)) {
+            while (recorder.next(frame)) player.update(frame, true);
+            recorder.finish(player.stateHash());
+        }
+        System.out.printf("generated %d frames in %s%n", frames, file);
+    }
+}
@@ -0,0 +1,36 @@
+package com.games.simpleminecraft;
+
+import java.util.Random;
+
+// Scripted player input for headless runs: frame-rate jitter, steady turning with bursts of
+// movement, and a mine or place press every few frames with the hotbar slot changing as it goes.
+final class ScriptedInput implements InputSource {
+    private final int frames;
+    private final Random rnd;
+    private int frame;
+    private float cursorX;
+    private float cursorY;
+
+    ScriptedInput(int frames, Random rnd) {
+        this.frames = frames;
+        this.rnd = rnd;
+    }
+
+    @Override
+    public boolean next(InputFrame out) {
+        if (frame >= frames) return false;
+        out.dt = 1f / 60f + (rnd.nextFloat() - 0.5f) * 0.004f;
+        cursorX += 2f + rnd.nextFloat() * 3f;
+        cursorY = 150f + (float) Math.sin(frame * 0.02) * 250f; // look down, then up, then down
+        out.cursorX = cursorX;
+        out.cursorY = cursorY;
+        int buttons = 0;
+        if ((frame / 90) % 2 == 0) buttons |= InputFrame.FORWARD;
+        if (rnd.nextInt(120) == 0) buttons |= InputFrame.JUMP;
+        if (frame % 4 == 0) buttons |= rnd.nextInt(3) == 0 ? InputFrame.PLACE : InputFrame.MINE;
+        out.buttons = buttons;
+        out.hotbarSlot = (frame / 300) % PlayerController.HOTBAR.length;
+        frame++;
+        return true;
+    }
+}
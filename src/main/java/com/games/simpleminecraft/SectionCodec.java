@@ -0,0 +1,81 @@
+package com.games.simpleminecraft;
+
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+
+// Palette encoding of one 16^3 section, read straight from the section's slab into a ByteBuffer.
+//   int section, short paletteSize, short[paletteSize] ids, then
+//   nothing (uniform section), byte[4096] palette indices (<= 256 ids) or, with paletteSize 0,
+//   short[4096] raw ids.
+public class SectionCodec {
+    public static final int VOLUME = World.SECTION_SIZE * World.SECTION_SIZE * World.SECTION_SIZE;
+    public static final int MAX_ENCODED_BYTES = 4 + 2 + VOLUME * 2;
+
+    private final int[] paletteIndex = new int[BlockRegistry.MAX_BLOCKS];
+    private final short[] palette = new short[BlockRegistry.MAX_BLOCKS];
+
+    public SectionCodec() {
+        Arrays.fill(paletteIndex, -1);
+    }
+
+    public void encode(World world, int section, ByteBuffer out) {
+        ShortBuffer slab = world.sectionSlab(section);
+        out.putInt(section);
+        if (slab == null) {
+            out.putShort((short) 1);
+            out.putShort((short) World.AIR);
+            return;
+        }
+
+        // Slab order (x, then y, then z) is the order the encoding uses.
+        int size = 0;
+        for (int i = 0; i < VOLUME; i++) {
+            int id = SlabPool.get(slab, i);
+            if (paletteIndex[id] < 0) {
+                paletteIndex[id] = size;
+                palette[size++] = (short) id;
+            }
+        }
+
+        if (size > 256) {
+            out.putShort((short) 0);
+            for (int i = 0; i < VOLUME; i++) out.putShort(SlabPool.get(slab, i));
+        } else {
+            out.putShort((short) size);
+            for (int p = 0; p < size; p++) out.putShort(palette[p]);
+            if (size > 1) {
+                for (int i = 0; i < VOLUME; i++) out.put((byte) paletteIndex[SlabPool.get(slab, i)]);
+            }
+        }
+        for (int p = 0; p < size; p++) paletteIndex[palette[p]] = -1;
+    }
+
+    // Decodes one section into the world and marks it changed. Returns the section index.
+    public int decode(ByteBuffer in, World world) {
+        int section = decodeBlocks(in, world);
+        world.touchSection(section);
+        return section;
+    }
+
+    // Decodes one section's blocks only; the caller marks the section changed.
+    int decodeBlocks(ByteBuffer in, World world) {
+        int section = in.getInt();
+        int bx = (section / (World.SECTIONS_Y * World.SECTIONS_Z)) * World.SECTION_SIZE;
+        int by = ((section / World.SECTIONS_Z) % World.SECTIONS_Y) * World.SECTION_SIZE;
+        int bz = (section % World.SECTIONS_Z) * World.SECTION_SIZE;
+        int size = in.getShort();
+        for (int p = 0; p < size; p++) palette[p] = in.getShort();
+
+        if (size == 1) {
+            world.fillSection(section, palette[0]);
+            return section;
+        }
+        for (int x = bx; x < bx + World.SECTION_SIZE; x++)
+            for (int y = by; y < by + World.SECTION_SIZE; y++)
+                for (int z = bz; z < bz + World.SECTION_SIZE; z++) {
+                    world.setRaw(x, y, z, size == 0 ? in.getShort() : palette[in.get() & 0xFF]);
+                }
+        return section;
+    }
+}
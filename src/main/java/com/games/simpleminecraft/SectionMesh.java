@@ -0,0 +1,162 @@
+package com.games.simpleminecraft;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL20.*;
+import static org.lwjgl.opengl.GL30.*;
+
+// GPU buffers of one section: an opaque triangle list and an indexed translucent mesh.
+// Uploads pass the mesher's arrays straight to GL instead of copying them into fresh direct
+// buffers, so remeshing leaves no NIO garbage behind. With an UploadManager the arrays go through
+// its staging buffer instead, and a buffer's storage is only reallocated when the mesh outgrows it.
+public class SectionMesh {
+    private static final int OPAQUE_POS = 0, OPAQUE_COL = 1, TRANSLUCENT_POS = 2, TRANSLUCENT_COL = 3, TRANSLUCENT_INDEX = 4;
+
+    private int opaqueVao;
+    private int opaquePosVbo;
+    private int opaqueColVbo;
+    private int opaqueCount;
+
+    private int translucentVao;
+    private int translucentPosVbo;
+    private int translucentColVbo;
+    private int translucentEbo;
+    private int translucentIndexCount;
+
+    // Kept for re-sorting; generation drops sort results that belong to an older upload.
+    private int[] translucentIndices = new int[0];
+    private float[] quadCenters = new float[0];
+    private int generation;
+
+    // Bytes of storage behind each buffer, indexed by OPAQUE_POS etc.
+    private final long[] capacity = new long[5];
+
+    // Staging space upload(data, uploads) takes from an UploadManager.
+    public static long stagingBytes(SectionMeshData data) {
+        return UploadManager.align(4L * data.opaque.positions.length) + UploadManager.align(4L * data.opaque.colors.length)
+                + UploadManager.align(4L * data.translucent.positions.length) + UploadManager.align(4L * data.translucent.colors.length)
+                + UploadManager.align(4L * data.translucentIndices.length);
+    }
+
+    public void upload(SectionMeshData data) {
+        upload(data, null);
+    }
+
+    // uploads: stage through it (fits(stagingBytes(data)) must hold), or null to upload directly.
+    public void upload(SectionMeshData data, UploadManager uploads) {
+        generation++;
+        if (opaqueVao == 0) {
+            opaqueVao = glGenVertexArrays();
+            opaquePosVbo = glGenBuffers();
+            opaqueColVbo = glGenBuffers();
+        }
+        opaqueCount = data.opaque.vertexCount;
+        glBindVertexArray(opaqueVao);
+        uploadAttributes(opaquePosVbo, OPAQUE_POS, opaqueColVbo, OPAQUE_COL, data.opaque, uploads);
+
+        translucentIndices = data.translucentIndices;
+        quadCenters = data.quadCenters;
+        translucentIndexCount = translucentIndices.length;
+        if (translucentIndexCount > 0) {
+            if (translucentVao == 0) {
+                translucentVao = glGenVertexArrays();
+                translucentPosVbo = glGenBuffers();
+                translucentColVbo = glGenBuffers();
+                translucentEbo = glGenBuffers();
+            }
+            glBindVertexArray(translucentVao);
+            uploadAttributes(translucentPosVbo, TRANSLUCENT_POS, translucentColVbo, TRANSLUCENT_COL, data.translucent, uploads);
+            glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, translucentEbo);
+            if (uploads == null) {
+                glBufferData(GL_ELEMENT_ARRAY_BUFFER, translucentIndices, GL_DYNAMIC_DRAW);
+                capacity[TRANSLUCENT_INDEX] = 4L * translucentIndices.length;
+            } else {
+                reserve(GL_ELEMENT_ARRAY_BUFFER, TRANSLUCENT_INDEX, 4L * translucentIndices.length, GL_DYNAMIC_DRAW);
+                uploads.stage(translucentIndices, translucentEbo);
+            }
+        }
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+        glBindVertexArray(0);
+    }
+
+    private void uploadAttributes(int posVbo, int pos, int colVbo, int col, MeshData mesh, UploadManager uploads) {
+        glBindBuffer(GL_ARRAY_BUFFER, posVbo);
+        uploadFloats(posVbo, pos, mesh.positions, uploads);
+        glVertexAttribPointer(0, 3, GL_FLOAT, false, 0, 0);
+        glEnableVertexAttribArray(0);
+
+        glBindBuffer(GL_ARRAY_BUFFER, colVbo);
+        uploadFloats(colVbo, col, mesh.colors, uploads);
+        glVertexAttribPointer(1, 4, GL_FLOAT, false, 0, 0);
+        glEnableVertexAttribArray(1);
+    }
+
+    // Expects the buffer bound to GL_ARRAY_BUFFER.
+    private void uploadFloats(int vbo, int slot, float[] data, UploadManager uploads) {
+        if (uploads == null) {
+            glBufferData(GL_ARRAY_BUFFER, data, GL_STATIC_DRAW);
+            capacity[slot] = 4L * data.length;
+            return;
+        }
+        reserve(GL_ARRAY_BUFFER, slot, 4L * data.length, GL_STATIC_DRAW);
+        if (data.length > 0) uploads.stage(data, vbo);
+    }
+
+    // Grows the bound buffer's storage (contents undefined) by half again when it's too small.
+    private void reserve(int target, int slot, long bytes, int usage) {
+        if (bytes <= capacity[slot] && capacity[slot] > 0) return;
+        long size = Math.max(bytes + bytes / 2, 64);
+        glBufferData(target, size, usage);
+        capacity[slot] = size;
+    }
+
+    // Replaces the draw order of the translucent quads; the vertex data is untouched.
+    public void uploadIndices(int[] sorted) {
+        if (translucentVao == 0 || sorted.length != translucentIndexCount) return;
+        glBindVertexArray(translucentVao);
+        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, translucentEbo);
+        glBufferSubData(GL_ELEMENT_ARRAY_BUFFER, 0, sorted);
+        glBindVertexArray(0);
+    }
+
+    // Both draws return the number of vertices submitted, 0 when nothing was drawn.
+    public int drawOpaque() {
+        if (opaqueCount == 0) return 0;
+        glBindVertexArray(opaqueVao);
+        glDrawArrays(GL_TRIANGLES, 0, opaqueCount);
+        return opaqueCount;
+    }
+
+    public int drawTranslucent() {
+        if (translucentIndexCount == 0) return 0;
+        glBindVertexArray(translucentVao);
+        glDrawElements(GL_TRIANGLES, translucentIndexCount, GL_UNSIGNED_INT, 0);
+        return translucentIndexCount;
+    }
+
+    public boolean hasTranslucent() {
+        return translucentIndexCount > 0;
+    }
+
+    public int[] getTranslucentIndices() {
+        return translucentIndices;
+    }
+
+    public float[] getQuadCenters() {
+        return quadCenters;
+    }
+
+    public int getGeneration() {
+        return generation;
+    }
+
+    public void cleanup() {
+        if (opaquePosVbo != 0) glDeleteBuffers(opaquePosVbo);
+        if (opaqueColVbo != 0) glDeleteBuffers(opaqueColVbo);
+        if (opaqueVao != 0) glDeleteVertexArrays(opaqueVao);
+        if (translucentPosVbo != 0) glDeleteBuffers(translucentPosVbo);
+        if (translucentColVbo != 0) glDeleteBuffers(translucentColVbo);
+        if (translucentEbo != 0) glDeleteBuffers(translucentEbo);
+        if (translucentVao != 0) glDeleteVertexArrays(translucentVao);
+    }
+}
@@ -0,0 +1,30 @@
+package com.games.simpleminecraft;
+
+// CPU-side meshes of one section, split by render pass.
+// The opaque part is drawn as plain triangles. The translucent part is indexed (4 vertices and
+// 6 indices per quad) so its draw order can be re-sorted without touching the vertex data.
+public class SectionMeshData {
+    public final int section;
+    public final MeshData opaque;
+    public final MeshData translucent;
+    public final int[] translucentIndices; // unsorted, 6 per quad
+    public final float[] quadCenters;      // xyz per translucent quad, used for sorting
+
+    public SectionMeshData(int section, MeshData opaque, MeshData translucent, int[] translucentIndices, float[] quadCenters) {
+        this.section = section;
+        this.opaque = opaque;
+        this.translucent = translucent;
+        this.translucentIndices = translucentIndices;
+        this.quadCenters = quadCenters;
+    }
+
+    public int quadCount() {
+        return quadCenters.length / 3;
+    }
+
+    // Bytes SectionMesh.upload sends to the GPU for this mesh.
+    public long uploadBytes() {
+        return 4L * (opaque.positions.length + opaque.colors.length + translucent.positions.length
+                + translucent.colors.length + translucentIndices.length);
+    }
+}
@@ -0,0 +1,83 @@
+package com.games.simpleminecraft;
+
+// Which faces of a section can see each other through its non-opaque blocks (no GL calls).
+// Flood-fills the open cells of the section; every region that touches faces a and b connects
+// them. The result is a 36-bit mask with bit a * 6 + b (and b * 6 + a) set for each connected
+// pair, faces numbered as in Mesher.NORMALS.
+public class SectionVisibility {
+    public static final long ALL = (1L << 36) - 1;
+
+    private static final int N = World.SECTION_SIZE;
+    private static final int VOLUME = N * N * N;
+
+    private final boolean[] visited = new boolean[VOLUME];
+    private final int[] queue = new int[VOLUME];
+
+    public static boolean connected(long mask, int a, int b) {
+        return (mask & (1L << (a * 6 + b))) != 0;
+    }
+
+    public long compute(World world, int sx, int sy, int sz) {
+        int open = load(world, sx, sy, sz);
+        if (open == 0) return 0;
+        if (open == VOLUME) return ALL;
+
+        long mask = 0;
+        for (int i = 0; i < VOLUME; i++) {
+            if (visited[i]) continue;
+            int faces = fill(i);
+            for (int a = 0; a < 6; a++) {
+                if ((faces & (1 << a)) == 0) continue;
+                for (int b = 0; b < 6; b++) {
+                    if ((faces & (1 << b)) != 0) mask |= 1L << (a * 6 + b);
+                }
+            }
+            if (mask == ALL) break;
+        }
+        return mask;
+    }
+
+    // Faces of the section reachable from the open block at local (lx, ly, lz); 0 if it's opaque.
+    public int facesFrom(World world, int sx, int sy, int sz, int lx, int ly, int lz) {
+        load(world, sx, sy, sz);
+        int start = (lx << 8) | (ly << 4) | lz;
+        return visited[start] ? 0 : fill(start);
+    }
+
+    // Marks opaque blocks as visited and returns the number of open ones.
+    private int load(World world, int sx, int sy, int sz) {
+        int bx = sx * N, by = sy * N, bz = sz * N;
+        int open = 0;
+        for (int i = 0; i < VOLUME; i++) {
+            boolean opaque = world.isOpaque(bx + (i >> 8), by + ((i >> 4) & 15), bz + (i & 15));
+            visited[i] = opaque;
+            if (!opaque) open++;
+        }
+        return open;
+    }
+
+    // Marks the open region containing start and returns the set of faces it touches.
+    private int fill(int start) {
+        int head = 0, tail = 0;
+        queue[tail++] = start;
+        visited[start] = true;
+        int faces = 0;
+        while (head < tail) {
+            int i = queue[head++];
+            int x = i >> 8, y = (i >> 4) & 15, z = i & 15;
+            if (z == N - 1) faces |= 1;      // FRONT  +z
+            if (z == 0) faces |= 1 << 1;     // BACK   -z
+            if (x == 0) faces |= 1 << 2;     // LEFT   -x
+            if (x == N - 1) faces |= 1 << 3; // RIGHT  +x
+            if (y == N - 1) faces |= 1 << 4; // TOP    +y
+            if (y == 0) faces |= 1 << 5;     // BOTTOM -y
+            if (x > 0 && !visited[i - 256]) { visited[i - 256] = true; queue[tail++] = i - 256; }
+            if (x < N - 1 && !visited[i + 256]) { visited[i + 256] = true; queue[tail++] = i + 256; }
+            if (y > 0 && !visited[i - 16]) { visited[i - 16] = true; queue[tail++] = i - 16; }
+            if (y < N - 1 && !visited[i + 16]) { visited[i + 16] = true; queue[tail++] = i + 16; }
+            if (z > 0 && !visited[i - 1]) { visited[i - 1] = true; queue[tail++] = i - 1; }
+            if (z < N - 1 && !visited[i + 1]) { visited[i + 1] = true; queue[tail++] = i + 1; }
+        }
+        return faces;
+    }
+}
@@ -0,0 +1,178 @@
+package com.games.simpleminecraft;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+// Headless dedicated server: world generation, block edits, entity physics and ticking at a
+// fixed rate, with no GLFW or OpenGL classes loaded. Also used for performance soak runs.
+//
+// Options:
+//   --ticks N           stop after N ticks and print a summary (default: run until killed)
+//   --entities N        spawn N entities at startup (default 0)
+//   --edits N           random block edits per tick, to exercise remesh-free edit paths (default 0)
+//   --threads N         worker threads for entity stepping (default: available processors)
+//   --unthrottled       don't sleep between ticks, measure raw throughput
+//   --port N            accept clients on this TCP port (default: no networking)
+//   --world DIR         load chunks saved in DIR at startup, autosave changed chunks there
+public class Server {
+    private static final int REPORT_INTERVAL = Simulation.TICKS_PER_SECOND * 5;
+    private static final int AUTOSAVE_INTERVAL = Simulation.TICKS_PER_SECOND * 30;
+
+    private final Simulation simulation;
+    private final NetServer net;
+    private final int editsPerTick;
+    private final Random random = new Random(1234);
+    private ChunkStore store;
+
+    public Server(Simulation simulation, NetServer net, int editsPerTick) {
+        this.simulation = simulation;
+        this.net = net;
+        this.editsPerTick = editsPerTick;
+    }
+
+    // Chunks are saved here every AUTOSAVE_INTERVAL ticks and when run() returns.
+    public void setChunkStore(ChunkStore store) {
+        this.store = store;
+    }
+
+    public void run(long maxTicks, boolean throttled) {
+        long tickNanos = 1_000_000_000L / Simulation.TICKS_PER_SECOND;
+        long[] window = new long[REPORT_INTERVAL];
+        long[] all = maxTicks > 0 ? new long[(int) maxTicks] : null;
+        long next = System.nanoTime();
+        long ticks = 0;
+        while (maxTicks <= 0 || ticks < maxTicks) {
+            long start = System.nanoTime();
+            pollNetwork();
+            applyRandomEdits();
+            simulation.tick();
+            if (net != null) net.flush(simulation.getEdits());
+            simulation.getEdits().clear();
+            long elapsed = System.nanoTime() - start;
+            window[(int) (ticks % REPORT_INTERVAL)] = elapsed;
+            if (all != null) all[(int) ticks] = elapsed;
+            ticks++;
+            if (ticks % REPORT_INTERVAL == 0) report("tick " + ticks, window, REPORT_INTERVAL);
+            if (ticks % AUTOSAVE_INTERVAL == 0) save();
+
+            if (throttled) {
+                next += tickNanos;
+                long sleep = next - System.nanoTime();
+                if (sleep > 0) {
+                    try {
+                        Thread.sleep(sleep / 1_000_000L, (int) (sleep % 1_000_000L));
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                } else {
+                    next = System.nanoTime(); // overloaded: don't try to catch up
+                }
+            }
+        }
+        if (all != null && ticks == all.length) report("summary", all, all.length);
+        save();
+    }
+
+    private void save() {
+        if (store == null) return;
+        try {
+            long start = System.nanoTime();
+            int chunks = store.save(simulation.getWorld());
+            if (chunks > 0) System.out.printf("saved %d chunks in %.1fms%n", chunks, (System.nanoTime() - start) / 1e6);
+        } catch (IOException e) {
+            System.err.println("Failed to save world: " + e.getMessage());
+        }
+    }
+
+    private void pollNetwork() {
+        if (net == null) return;
+        try {
+            net.poll(0);
+        } catch (IOException e) {
+            System.err.println("Network error: " + e.getMessage());
+        }
+    }
+
+    private void applyRandomEdits() {
+        for (int i = 0; i < editsPerTick; i++) {
+            int x = random.nextInt(World.SIZE_X);
+            int y = random.nextInt(World.SIZE_Y);
+            int z = random.nextInt(World.SIZE_Z);
+            World.BlockType t = random.nextBoolean() ? World.BlockType.AIR : World.BlockType.STONE;
+            simulation.setBlock(x, y, z, t.id());
+        }
+    }
+
+    private void report(String label, long[] times, int count) {
+        long[] sorted = Arrays.copyOf(times, count);
+        Arrays.sort(sorted);
+        long total = 0;
+        for (long t : sorted) total += t;
+        System.out.printf("%s: ticks=%d mean=%.3fms p50=%.3fms p99=%.3fms max=%.3fms entities=%d scheduled=%d%n",
+                label, count, total / 1e6 / count, sorted[count / 2] / 1e6, sorted[(int) (count * 0.99)] / 1e6,
+                sorted[count - 1] / 1e6, simulation.getEntities().getStore().count(),
+                simulation.getScheduler().getPendingCount());
+    }
+
+    public static void main(String[] args) throws IOException {
+        long maxTicks = 0;
+        int port = -1;
+        int entities = 0;
+        int edits = 0;
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean throttled = true;
+        Path worldDir = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--ticks": maxTicks = Long.parseLong(args[++i]); break;
+                case "--entities": entities = Integer.parseInt(args[++i]); break;
+                case "--edits": edits = Integer.parseInt(args[++i]); break;
+                case "--threads": threads = Integer.parseInt(args[++i]); break;
+                case "--unthrottled": throttled = false; break;
+                case "--port": port = Integer.parseInt(args[++i]); break;
+                case "--world": worldDir = Paths.get(args[++i]); break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        long start = System.nanoTime();
+        Simulation simulation = new Simulation(new World(), entities);
+        System.out.printf("world generated in %.1fms%n", (System.nanoTime() - start) / 1e6);
+        // Live counters for JConsole: DOMAIN:type=Metrics,name=server
+        MetricsRegistry metrics = new MetricsRegistry();
+        simulation.registerMetrics(metrics);
+        metrics.registerJvmGauges();
+
+        ChunkStore store = null;
+        if (worldDir != null) {
+            store = new ChunkStore(worldDir);
+            store.setFluids(simulation.getFluids());
+            store.registerMetrics(metrics, simulation.getWorld());
+            start = System.nanoTime();
+            int chunks = store.load(simulation.getWorld());
+            System.out.printf("loaded %d chunks from %s in %.1fms%n", chunks, worldDir, (System.nanoTime() - start) / 1e6);
+        }
+        simulation.getEntities().getStore().spawnRandom(entities, new Random(42));
+
+        ForkJoinPool pool = threads > 1 ? new ForkJoinPool(threads) : null;
+        simulation.setWorkerPool(pool);
+        NetServer net = null;
+        if (port >= 0) {
+            net = new NetServer(simulation, port);
+            System.out.println("listening on port " + net.getPort());
+            metrics.gauge("net.bytes.sent", net::getBytesSent);
+        }
+        metrics.registerMBean("server");
+        Server server = new Server(simulation, net, edits);
+        server.setChunkStore(store);
+        server.run(maxTicks, throttled);
+        if (net != null) net.close();
+        if (pool != null) pool.shutdown();
+        simulation.getWorld().close();
+    }
+}
@@ -0,0 +1,132 @@
+package com.games.simpleminecraft;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL41.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL;
+import org.lwjgl.opengl.GLCapabilities;
+
+// Builds shader programs from classpath sources and keeps their linked binaries on disk, so
+// later launches skip GLSL compilation. A program is keyed by a SHA-256 of its sources and the
+// driver's vendor, renderer and version strings, so a driver update or shader edit just misses.
+// Cache files hold int binaryFormat followed by the binary. Without program binary support, or
+// when the driver rejects a cached binary, the program is compiled from source as before.
+public class ShaderCache {
+    private final Path dir;
+    private final boolean supported;
+
+    public ShaderCache(Path dir) {
+        this.dir = dir;
+        GLCapabilities caps = GL.getCapabilities();
+        supported = (caps.OpenGL41 || caps.GL_ARB_get_program_binary) && glGetInteger(GL_NUM_PROGRAM_BINARY_FORMATS) > 0;
+    }
+
+    public static Path defaultDir() {
+        return Paths.get(System.getProperty("user.home"), ".simpleminecraft", "shader-cache");
+    }
+
+    public ShaderProgram load(String vertexResource, String fragmentResource) {
+        long start = System.nanoTime();
+        String vertex = readResource(vertexResource);
+        String fragment = readResource(fragmentResource);
+        Path file = supported ? dir.resolve(key(vertex, fragment) + ".bin") : null;
+
+        if (file != null && Files.exists(file)) {
+            ShaderProgram program = loadCached(file);
+            if (program != null) {
+                System.out.printf("shader %s + %s: loaded cached binary in %.1fms%n",
+                        vertexResource, fragmentResource, (System.nanoTime() - start) / 1e6);
+                return program;
+            }
+        }
+
+        ShaderProgram program = new ShaderProgram();
+        program.createVertexShader(vertex);
+        program.createFragmentShader(fragment);
+        if (file != null) program.setBinaryRetrievable();
+        program.link();
+        double compileMs = (System.nanoTime() - start) / 1e6;
+        if (file != null) store(program, file);
+        System.out.printf("shader %s + %s: compiled from source in %.1fms%s%n", vertexResource, fragmentResource,
+                compileMs, file != null ? ", binary cached" : " (program binaries unsupported)");
+        return program;
+    }
+
+    private ShaderProgram loadCached(Path file) {
+        ShaderProgram program = new ShaderProgram();
+        try {
+            byte[] bytes = Files.readAllBytes(file);
+            if (bytes.length > 4) {
+                ByteBuffer data = BufferUtils.createByteBuffer(bytes.length);
+                data.put(bytes).flip();
+                int format = data.getInt();
+                if (program.loadBinary(format, data.slice())) return program;
+            }
+            System.err.println("Rejected cached shader binary " + file + ", compiling from source");
+        } catch (IOException e) {
+            System.err.println("Failed to read cached shader " + file + ": " + e.getMessage());
+        }
+        program.cleanup();
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+        }
+        return null;
+    }
+
+    private void store(ShaderProgram program, Path file) {
+        int[] format = new int[1];
+        ByteBuffer binary = program.getBinary(format);
+        if (binary == null) return;
+        byte[] bytes = new byte[4 + binary.remaining()];
+        ByteBuffer.wrap(bytes).putInt(format[0]).put(binary);
+        try {
+            Files.createDirectories(dir);
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(tmp, bytes);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Failed to cache shader binary " + file + ": " + e.getMessage());
+        }
+    }
+
+    private static String key(String vertex, String fragment) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            for (String part : new String[]{vertex, fragment, glGetString(GL_VENDOR), glGetString(GL_RENDERER), glGetString(GL_VERSION)}) {
+                sha.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+                sha.update((byte) 0);
+            }
+            StringBuilder hex = new StringBuilder();
+            for (byte b : sha.digest()) hex.append(String.format("%02x", b));
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String readResource(String name) {
+        try (InputStream in = ShaderCache.class.getResourceAsStream(name)) {
+            if (in == null) throw new RuntimeException("Shader not found on classpath: " + name);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buf = new byte[4096];
+            for (int n; (n = in.read(buf)) > 0; ) out.write(buf, 0, n);
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read shader " + name, e);
+        }
+    }
+}
@@ -1,7 +1,14 @@
 package com.games.simpleminecraft;
 
 import static org.lwjgl.opengl.GL20.*;
+import static org.lwjgl.opengl.GL41.*;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
 import org.joml.Matrix4f;
+import org.lwjgl.BufferUtils;
+import org.lwjgl.system.MemoryStack;
 
 public class ShaderProgram {
     private int programId;
@@ -38,6 +45,30 @@ public class ShaderProgram {
         return shaderId;
     }
     
+    // Asks the driver to keep the linked binary retrievable; call before link().
+    public void setBinaryRetrievable() {
+        glProgramParameteri(programId, GL_PROGRAM_BINARY_RETRIEVABLE_HINT, GL_TRUE);
+    }
+
+    // Loads a binary from getBinary() instead of compiling; false if the driver rejects it.
+    public boolean loadBinary(int format, ByteBuffer binary) {
+        glProgramBinary(programId, format, binary);
+        return glGetProgrami(programId, GL_LINK_STATUS) != 0;
+    }
+
+    // Linked program binary; format[0] receives the driver's binary format.
+    public ByteBuffer getBinary(int[] format) {
+        int length = glGetProgrami(programId, GL_PROGRAM_BINARY_LENGTH);
+        if (length <= 0) return null;
+        ByteBuffer binary = BufferUtils.createByteBuffer(length);
+        IntBuffer written = BufferUtils.createIntBuffer(1);
+        IntBuffer formatBuf = BufferUtils.createIntBuffer(1);
+        glGetProgramBinary(programId, written, formatBuf, binary);
+        format[0] = formatBuf.get(0);
+        binary.limit(written.get(0));
+        return binary;
+    }
+
     public void link() {
         glLinkProgram(programId);
         if (glGetProgrami(programId, GL_LINK_STATUS) == 0) {
@@ -81,9 +112,9 @@ public class ShaderProgram {
     public void setUniform(String name, Matrix4f value) {
         int location = glGetUniformLocation(programId, name);
         if (location != -1) {
-            float[] matrix = new float[16];
-            value.get(matrix);
-            glUniformMatrix4fv(location, false, matrix);
+            try (MemoryStack stack = MemoryStack.stackPush()) {
+                glUniformMatrix4fv(location, false, value.get(stack.mallocFloat(16)));
+            }
         }
     }
     
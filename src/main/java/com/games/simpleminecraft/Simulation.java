@@ -0,0 +1,119 @@
+package com.games.simpleminecraft;
+
+import java.util.concurrent.ForkJoinPool;
+
+// World and simulation state with no rendering attached. Game drives it from the frame loop,
+// Server drives it from a fixed-rate loop without a window or GL context.
+public class Simulation {
+    public static final int TICKS_PER_SECOND = 20;
+    public static final float TICK_DT = 1f / TICKS_PER_SECOND;
+
+    private final World world;
+    private final EntitySystem entities;
+    private final BlockDeltaBatch edits = new BlockDeltaBatch();
+    private final BlockTickScheduler scheduler = new BlockTickScheduler();
+    private final FluidSimulator fluids;
+    private boolean authoritative = true;
+    private long tickCount;
+    private float accumulator;
+    private LatencyHistogram tickTime;
+
+    public Simulation() {
+        this(new World(), 256);
+    }
+
+    public Simulation(World world, int expectedEntities) {
+        this.world = world;
+        this.entities = new EntitySystem(world, expectedEntities);
+        this.fluids = new FluidSimulator(world);
+    }
+
+    public World getWorld() {
+        return world;
+    }
+
+    public EntitySystem getEntities() {
+        return entities;
+    }
+
+    // Gameplay block edits go through here so they can be batched out to other players.
+    public void setBlock(int x, int y, int z, int id) {
+        if (!World.inBounds(x, y, z)) return;
+        world.setBlockId(x, y, z, id);
+        edits.add(x, y, z, id);
+        if (!authoritative) return;
+        scheduler.onBlockChanged(this, x, y, z);
+        fluids.onBlockChanged(x, y, z);
+    }
+
+    // A client mirroring a server doesn't run block ticks or fluids; their results arrive as edits.
+    public void setAuthoritative(boolean authoritative) {
+        this.authoritative = authoritative;
+    }
+
+    public BlockTickScheduler getScheduler() {
+        return scheduler;
+    }
+
+    public FluidSimulator getFluids() {
+        return fluids;
+    }
+
+    // Edits since the last clear; whoever ships them (NetServer/NetClient) clears the batch.
+    public BlockDeltaBatch getEdits() {
+        return edits;
+    }
+
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    // tick.time, entities and blockTicks.pending.
+    public void registerMetrics(MetricsRegistry metrics) {
+        tickTime = metrics.histogram("tick.time");
+        metrics.gauge("entities", () -> entities.getStore().count());
+        metrics.gauge("blockTicks.pending", scheduler::getPendingCount);
+    }
+
+    // null steps entities and fluids on the calling thread.
+    public void setWorkerPool(ForkJoinPool pool) {
+        entities.setPool(pool);
+        fluids.setPool(pool);
+    }
+
+    // Runs as many fixed ticks as the elapsed frame time covers; returns how many ran.
+    public int advance(float dt) {
+        accumulator += dt;
+        int ran = 0;
+        while (accumulator >= TICK_DT) {
+            accumulator -= TICK_DT;
+            tick();
+            ran++;
+        }
+        return ran;
+    }
+
+    public void tick() {
+        FlightEvents.Tick event = FlightEvents.recording() ? new FlightEvents.Tick() : null;
+        if (event != null) event.begin();
+        long start = tickTime != null ? System.nanoTime() : 0;
+        int editsBefore = edits.size();
+        if (authoritative) {
+            scheduler.tick(this);
+            fluids.tick(this);
+        }
+        entities.tick(TICK_DT);
+        world.recycleSlabs();
+        if (tickTime != null) tickTime.record(System.nanoTime() - start);
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.tick = tickCount;
+                event.scheduled = scheduler.getPendingCount();
+                event.edits = edits.size() - editsBefore;
+                event.commit();
+            }
+        }
+        tickCount++;
+    }
+}
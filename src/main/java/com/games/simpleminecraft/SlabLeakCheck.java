@@ -0,0 +1,150 @@
+package com.games.simpleminecraft;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.ShortBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Fails (throws) if section slabs leak or the heap grows with the amount of world loaded. Each
+// cycle loads a saved world into an empty one, edits it (placing into air sections, clearing a
+// whole section) and closes it; afterwards the pool must hold no live slabs and must not have
+// reserved more than the first cycle needed, and the heap after a GC must not have grown by more
+// than HEAP_SLACK. Then holds `resident` worlds at once to report heap and off-heap bytes per
+// world, checks that a slab emptied while another thread reads the world isn't recycled until the
+// read ends and that the pool rejects a slab released twice, and finally drops a world without
+// closing it to check the cleaner returns its slabs and counts the leak. Run by
+// `mvn -P leak-check verify`.
+// Usage: SlabLeakCheck [cycles=200] [resident=32]
+public class SlabLeakCheck {
+    private static final long HEAP_SLACK = 2 * 1024 * 1024;
+    private static final long CLEANER_TIMEOUT_MS = 10_000;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int cycles = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int resident = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+
+        SlabPool pool = SlabPool.shared();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        Path dir = Files.createTempDirectory("slab-leak-check");
+        try {
+            ChunkStore store = new ChunkStore(dir);
+            try (World source = new World()) {
+                store.save(source);
+            }
+            check(pool.getLiveSlabs() == 0, pool.getLiveSlabs() + " slabs live after closing the source world");
+
+            long reserved = 0, heapBase = 0;
+            for (int c = 0; c < cycles; c++) {
+                try (World world = World.empty()) {
+                    store.load(world);
+                    edit(world, c);
+                }
+                check(pool.getLiveSlabs() == 0, "cycle " + c + ": " + pool.getLiveSlabs() + " slabs live after close()");
+                if (c == 0) {
+                    reserved = pool.getReservedBytes();
+                    heapBase = usedHeap(memory);
+                }
+                check(pool.getReservedBytes() == reserved, "cycle " + c + ": pool grew to " + pool.getReservedBytes() + " bytes");
+            }
+            long heapGrowth = usedHeap(memory) - heapBase;
+            System.out.printf("%d load/edit/close cycles: 0 live slabs, %d KB reserved, heap %+d KB%n", cycles, reserved >> 10, heapGrowth >> 10);
+            check(heapGrowth < HEAP_SLACK, "heap grew " + heapGrowth + " bytes over " + cycles + " cycles");
+
+            long heapBefore = usedHeap(memory), offHeapBefore = pool.getReservedBytes();
+            World[] worlds = new World[resident];
+            for (int i = 0; i < resident; i++) {
+                worlds[i] = World.empty();
+                store.load(worlds[i]);
+            }
+            long heapPerWorld = (usedHeap(memory) - heapBefore) / resident;
+            long offHeapPerWorld = (long) pool.getLiveSlabs() * SlabPool.SLAB_BYTES / resident;
+            System.out.printf("%d worlds resident: %d KB heap and %d KB of slabs each (pool reserved %d -> %d KB)%n",
+                    resident, heapPerWorld >> 10, offHeapPerWorld >> 10, offHeapBefore >> 10, pool.getReservedBytes() >> 10);
+            checkDeferredRelease(worlds[0], pool);
+            checkDoubleRelease(pool);
+            for (World world : worlds) world.close();
+            check(pool.getLiveSlabs() == 0, pool.getLiveSlabs() + " slabs live after closing the resident worlds");
+
+            long leaked = pool.getLeakedWorlds();
+            dropUnclosed(store);
+            long deadline = System.currentTimeMillis() + CLEANER_TIMEOUT_MS;
+            while ((pool.getLeakedWorlds() == leaked || pool.getLiveSlabs() != 0) && System.currentTimeMillis() < deadline) {
+                System.gc();
+                Thread.sleep(10);
+            }
+            check(pool.getLeakedWorlds() == leaked + 1, "unclosed world was not reported as leaked");
+            check(pool.getLiveSlabs() == 0, pool.getLiveSlabs() + " slabs live after the cleaner ran");
+            System.out.println("unclosed world: slabs returned by the cleaner and counted as a leak");
+        } finally {
+            for (int cx = 0; cx < World.CHUNKS_X; cx++)
+                for (int cz = 0; cz < World.CHUNKS_Z; cz++) Files.deleteIfExists(dir.resolve("chunk_" + cx + "_" + cz + ".bin"));
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    // Places blocks high in the air (allocating slabs for empty sections), then clears one whole
+    // section so its slab goes back while the world is still open.
+    private static void edit(World world, int cycle) {
+        for (int i = 0; i < 64; i++) {
+            world.setBlock((cycle * 7 + i * 13) % World.SIZE_X, World.SIZE_Y - 1 - i % 4, (i * 29) % World.SIZE_Z, World.BlockType.STONE);
+        }
+        int sx = cycle % World.SECTIONS_X, sz = (cycle / World.SECTIONS_X) % World.SECTIONS_Z;
+        clearSection(world, sx, sz);
+        int section = World.sectionIndex(sx, 0, sz);
+        check(world.sectionSlab(section) == null, "cleared section " + section + " kept its slab");
+    }
+
+    private static void clearSection(World world, int sx, int sz) {
+        for (int x = 0; x < World.SECTION_SIZE; x++)
+            for (int y = 0; y < World.SECTION_SIZE; y++)
+                for (int z = 0; z < World.SECTION_SIZE; z++)
+                    world.setBlockId(sx * World.SECTION_SIZE + x, y, sz * World.SECTION_SIZE + z, World.AIR);
+    }
+
+    // Clears a section while a reader is in flight: its slab must stay out of the pool through
+    // safe points until the read ends, then go back at the next one.
+    private static void checkDeferredRelease(World world, SlabPool pool) {
+        int section = World.sectionIndex(0, 0, 0);
+        check(world.sectionSlab(section) != null, "section " + section + " has no slab to clear");
+        int live = pool.getLiveSlabs();
+        world.beginRead();
+        clearSection(world, 0, 0);
+        world.recycleSlabs();
+        check(pool.getLiveSlabs() == live, "slab recycled while a read was in flight");
+        world.endRead();
+        world.recycleSlabs();
+        check(pool.getLiveSlabs() == live - 1, "slab not recycled after the read ended");
+        System.out.println("cleared section: slab held back during a read, recycled after it");
+    }
+
+    // Released twice with other slabs still live (so a live count alone wouldn't notice).
+    private static void checkDoubleRelease(SlabPool pool) {
+        ShortBuffer slab = pool.allocate();
+        pool.release(slab);
+        try {
+            pool.release(slab);
+        } catch (IllegalStateException expected) {
+            System.out.println("double release: rejected with " + pool.getLiveSlabs() + " slabs live");
+            return;
+        }
+        throw new IllegalStateException("Check failed: slab released twice without an error");
+    }
+
+    // In its own method so no local keeps the world reachable.
+    private static void dropUnclosed(ChunkStore store) throws IOException {
+        World world = World.empty();
+        store.load(world);
+        check(world.getAllocatedSections() > 0, "loaded world has no sections");
+    }
+
+    private static long usedHeap(MemoryMXBean memory) {
+        for (int i = 0; i < 3; i++) System.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private static void check(boolean ok, String what) {
+        if (!ok) throw new IllegalStateException("Check failed: " + what);
+    }
+}
@@ -0,0 +1,128 @@
+package com.games.simpleminecraft;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+// Off-heap storage for section block ids: fixed-size slabs of one section's ids each, carved out
+// of direct ByteBuffer arenas and recycled through a free list, so loading and dropping sections
+// neither grows the Java heap nor leaves garbage for the collector. Arenas are never returned;
+// the pool's footprint is the most sections ever live at once.
+//
+// Direct buffers rather than LWJGL's MemoryUtil allocator: the server and the benchmarks run
+// without LWJGL's natives. A slab is a ShortBuffer view of its arena and get/put are absolute
+// with the index masked to the slab, so the JIT drops the bounds check and no slab, stale or
+// not, can reach memory outside its own ids. Only a world's writer thread writes its slabs, and
+// it drops its reference before retiring one; readers on other threads hold recycling off (see
+// World.beginRead), so a stale slab is never read after it's handed out again.
+//
+// Live slabs are counted for leak checks (see SlabLeakCheck). World returns its slabs in close(),
+// or, as a fallback, once the World is garbage collected; the latter is counted as a leak.
+public final class SlabPool {
+    public static final int SLAB_SHORTS = World.SECTION_SIZE * World.SECTION_SIZE * World.SECTION_SIZE;
+    public static final int SLAB_BYTES = SLAB_SHORTS * Short.BYTES;
+    public static final int SLABS_PER_ARENA = 64;
+    private static final int MASK = SLAB_SHORTS - 1;
+
+    private static final SlabPool SHARED = new SlabPool();
+    private static final short[] ZERO = new short[SLAB_SHORTS];
+
+    // A slab of air that's never handed out or written: what all-air sections read from. Made
+    // like every other slab so getRaw's call site only ever sees one buffer class.
+    static final ShortBuffer EMPTY = slab(ByteBuffer.allocateDirect(SLAB_BYTES).order(ByteOrder.nativeOrder()), 0);
+
+    private int arenaCount;
+    // Slot of every slab by identity (ShortBuffer.equals compares contents), and per slot whether
+    // it's handed out, so releasing one twice is caught every time.
+    private final Map<ShortBuffer, Integer> slots = new IdentityHashMap<>();
+    private boolean[] out = new boolean[0];
+    private ShortBuffer[] free = new ShortBuffer[SLABS_PER_ARENA];
+    private int freeCount;
+    private int live;
+    private long leaked;
+
+    // The pool every World allocates from.
+    public static SlabPool shared() {
+        return SHARED;
+    }
+
+    // A zeroed (all-air) slab.
+    public synchronized ShortBuffer allocate() {
+        if (freeCount == 0) grow();
+        ShortBuffer slab = free[--freeCount];
+        free[freeCount] = null;
+        out[slots.get(slab)] = true;
+        slab.clear();
+        slab.put(ZERO);
+        slab.clear();
+        live++;
+        return slab;
+    }
+
+    public synchronized void release(ShortBuffer slab) {
+        Integer slot = slots.get(slab);
+        if (slot == null) throw new IllegalStateException("Slab isn't from this pool");
+        if (!out[slot]) throw new IllegalStateException("Slab released twice");
+        out[slot] = false;
+        free[freeCount++] = slab;
+        live--;
+    }
+
+    // i is masked to the slab; callers pass 0..SLAB_SHORTS-1 (see World.local).
+    static short get(ShortBuffer slab, int i) {
+        return slab.get(i & MASK);
+    }
+
+    static void put(ShortBuffer slab, int i, short id) {
+        slab.put(i & MASK, id);
+    }
+
+    static boolean same(ShortBuffer a, ShortBuffer b) {
+        return a.equals(b);
+    }
+
+    private void grow() {
+        ByteBuffer arena = ByteBuffer.allocateDirect(SLAB_BYTES * SLABS_PER_ARENA).order(ByteOrder.nativeOrder());
+        int base = arenaCount++ * SLABS_PER_ARENA;
+        out = Arrays.copyOf(out, arenaCount * SLABS_PER_ARENA);
+        if (free.length < arenaCount * SLABS_PER_ARENA) free = Arrays.copyOf(free, arenaCount * SLABS_PER_ARENA);
+        for (int i = SLABS_PER_ARENA - 1; i >= 0; i--) {
+            ShortBuffer slab = slab(arena, i);
+            slots.put(slab, base + i);
+            free[freeCount++] = slab;
+        }
+    }
+
+    private static ShortBuffer slab(ByteBuffer arena, int i) {
+        arena.limit((i + 1) * SLAB_BYTES).position(i * SLAB_BYTES);
+        ShortBuffer slab = arena.slice().order(ByteOrder.nativeOrder()).asShortBuffer();
+        arena.clear();
+        return slab;
+    }
+
+    // Called by World's cleaner when a World was dropped without close().
+    synchronized void countLeak() {
+        leaked++;
+    }
+
+    public synchronized int getLiveSlabs() {
+        return live;
+    }
+
+    public synchronized int getFreeSlabs() {
+        return freeCount;
+    }
+
+    // Off-heap bytes held by the pool, live and free.
+    public synchronized long getReservedBytes() {
+        return (long) arenaCount * SLABS_PER_ARENA * SLAB_BYTES;
+    }
+
+    // Worlds whose slabs came back through the garbage collector instead of close().
+    public synchronized long getLeakedWorlds() {
+        return leaked;
+    }
+}
@@ -0,0 +1,95 @@
+package com.games.simpleminecraft;
+
+import java.util.Arrays;
+
+// Uniform grid over entity positions, stored as a hashed bucket table with intrusive chains.
+// Rebuilt from scratch each tick in O(n); queries visit only the cells overlapping the range.
+public class SpatialHash {
+    private final float cellSize;
+    private final float invCellSize;
+    private int[] buckets;   // head entity per bucket, -1 = empty
+    private int[] next;      // next entity in the same bucket
+    private int mask;
+    private float maxHalfExtent;
+
+    public SpatialHash(float cellSize, int expectedEntities) {
+        this.cellSize = cellSize;
+        this.invCellSize = 1f / cellSize;
+        int size = Integer.highestOneBit(Math.max(64, expectedEntities) * 2 - 1);
+        buckets = new int[size];
+        next = new int[Math.max(16, expectedEntities)];
+        mask = size - 1;
+    }
+
+    public float getCellSize() {
+        return cellSize;
+    }
+
+    // Entities are bucketed by the cell of their AABB center.
+    public void rebuild(EntityStore e) {
+        int n = e.count();
+        if (n > buckets.length) {
+            int size = Integer.highestOneBit(n * 2 - 1);
+            buckets = new int[size];
+            mask = size - 1;
+        }
+        if (next.length < n) next = new int[e.x.length];
+        Arrays.fill(buckets, -1);
+        maxHalfExtent = 0;
+        for (int i = 0; i < n; i++) {
+            float cy = e.y[i] + e.height[i] * 0.5f;
+            int b = bucket(cell(e.x[i]), cell(cy), cell(e.z[i]));
+            next[i] = buckets[b];
+            buckets[b] = i;
+            maxHalfExtent = Math.max(maxHalfExtent, Math.max(e.halfWidth[i], e.height[i] * 0.5f));
+        }
+    }
+
+    // Writes indices of entities whose AABB overlaps the box into out; returns how many
+    // (up to out.length).
+    public int queryBox(EntityStore e, float minX, float minY, float minZ, float maxX, float maxY, float maxZ, int[] out) {
+        // Bucketed by center, so widen the cell range by the largest entity extent.
+        int cx0 = cell(minX - maxHalfExtent), cx1 = cell(maxX + maxHalfExtent);
+        int cy0 = cell(minY - maxHalfExtent), cy1 = cell(maxY + maxHalfExtent);
+        int cz0 = cell(minZ - maxHalfExtent), cz1 = cell(maxZ + maxHalfExtent);
+        int found = 0;
+        for (int cx = cx0; cx <= cx1; cx++)
+            for (int cy = cy0; cy <= cy1; cy++)
+                for (int cz = cz0; cz <= cz1; cz++) {
+                    for (int i = buckets[bucket(cx, cy, cz)]; i != -1; i = next[i]) {
+                        // Buckets are shared by hash collisions, so check the real cell too.
+                        float ecy = e.y[i] + e.height[i] * 0.5f;
+                        if (cell(e.x[i]) != cx || cell(ecy) != cy || cell(e.z[i]) != cz) continue;
+                        float hw = e.halfWidth[i];
+                        if (e.x[i] + hw < minX || e.x[i] - hw > maxX) continue;
+                        if (e.y[i] + e.height[i] < minY || e.y[i] > maxY) continue;
+                        if (e.z[i] + hw < minZ || e.z[i] - hw > maxZ) continue;
+                        if (found == out.length) return found;
+                        out[found++] = i;
+                    }
+                }
+        return found;
+    }
+
+    // Entities whose feet center lies within radius of (x, y, z).
+    public int queryRadius(EntityStore e, float x, float y, float z, float radius, int[] out) {
+        int n = queryBox(e, x - radius, y - radius, z - radius, x + radius, y + radius, z + radius, out);
+        float r2 = radius * radius;
+        int kept = 0;
+        for (int k = 0; k < n; k++) {
+            int i = out[k];
+            float dx = e.x[i] - x, dy = e.y[i] - y, dz = e.z[i] - z;
+            if (dx * dx + dy * dy + dz * dz <= r2) out[kept++] = i;
+        }
+        return kept;
+    }
+
+    private int cell(float v) {
+        return (int) Math.floor(v * invCellSize);
+    }
+
+    private int bucket(int cx, int cy, int cz) {
+        int h = cx * 73856093 ^ cy * 19349663 ^ cz * 83492791;
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
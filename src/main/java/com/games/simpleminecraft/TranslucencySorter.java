@@ -0,0 +1,63 @@
+package com.games.simpleminecraft;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Sorts translucent quads back to front on a worker thread.
+// Only index order changes, so a finished sort is a single index buffer update on the render thread.
+public class TranslucencySorter {
+    public static final class Result {
+        public final int section;
+        public final int generation;
+        public final int[] indices;
+
+        Result(int section, int generation, int[] indices) {
+            this.section = section;
+            this.generation = generation;
+            this.indices = indices;
+        }
+    }
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "translucency-sort");
+        t.setDaemon(true);
+        return t;
+    });
+    private final ConcurrentLinkedQueue<Result> done = new ConcurrentLinkedQueue<>();
+
+    // indices and centers must not be modified after submitting; the mesh keeps them read-only.
+    public void submit(int section, int generation, int[] indices, float[] centers, float cx, float cy, float cz) {
+        worker.execute(() -> done.add(new Result(section, generation, sortBackToFront(indices, centers, cx, cy, cz))));
+    }
+
+    public Result poll() {
+        return done.poll();
+    }
+
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+    static int[] sortBackToFront(int[] indices, float[] centers, float cx, float cy, float cz) {
+        int quads = centers.length / 3;
+        // Non-negative float bits sort like ints: pack (distance, quad) and sort primitives.
+        long[] keys = new long[quads];
+        for (int q = 0; q < quads; q++) {
+            float dx = centers[q * 3] - cx;
+            float dy = centers[q * 3 + 1] - cy;
+            float dz = centers[q * 3 + 2] - cz;
+            keys[q] = ((long) Float.floatToIntBits(dx * dx + dy * dy + dz * dz) << 32) | q;
+        }
+        Arrays.sort(keys);
+        int[] out = new int[indices.length];
+        int o = 0;
+        for (int k = quads - 1; k >= 0; k--) {
+            int q = (int) keys[k];
+            System.arraycopy(indices, q * 6, out, o, 6);
+            o += 6;
+        }
+        return out;
+    }
+}
@@ -0,0 +1,227 @@
+package com.games.simpleminecraft;
+
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL30.*;
+import static org.lwjgl.opengl.GL31.*;
+import static org.lwjgl.opengl.GL32.*;
+import static org.lwjgl.opengl.GL44.*;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+import org.lwjgl.opengl.GL;
+import org.lwjgl.opengl.GLCapabilities;
+
+// Streams mesh data to the GPU through a staging buffer, at most `budget` bytes per frame, and
+// lets the GPU copy it into the destination buffers (glCopyBufferSubData) so the driver never
+// has to stall on or shadow-copy a buffer that's still being drawn from.
+//
+// With ARB_buffer_storage the staging buffer is mapped once, persistently and coherently, and
+// split into SEGMENTS frame-sized slices. A fence after each frame's copies guards its slice; a
+// frame that finds its slice still in flight uploads nothing rather than waiting. Without it the
+// buffer is orphaned and mapped (write + invalidate) at the first upload of each frame, and the
+// copies are issued after unmapping. Either way copies are queued while staging and issued in
+// endFrame().
+//
+// A mesh bigger than the whole budget can't be staged; takeFrame() lets the caller upload it
+// directly instead, as the only upload of an otherwise empty frame.
+//
+// Per frame: beginFrame(), then fits()/stage() for each upload, then endFrame().
+public class UploadManager {
+    public static final long DEFAULT_BUDGET = 512 * 1024;
+    private static final int SEGMENTS = 3;
+
+    private final boolean persistent;
+    private final long segmentSize;
+    private final int staging;
+    private long budget;
+
+    private ByteBuffer mapped;
+    private boolean isMapped;
+    private FloatBuffer mappedFloats;
+    private IntBuffer mappedInts;
+    private final long[] fences = new long[SEGMENTS];
+    private int segment;
+    private long used;
+    private long frameBytes;
+    private boolean blocked;
+
+    // Copies staged this frame, issued by endFrame().
+    private int[] copyTargets = new int[16];
+    private long[] copySources = new long[16];
+    private long[] copySizes = new long[16];
+    private int copies;
+
+    private long lastFrameBytes;
+    private long blockedFrames;
+
+    // Needs glCopyBufferSubData (3.1) and fences (3.2); see isSupported().
+    public UploadManager(long budget) {
+        if (budget <= 0) throw new IllegalArgumentException("Upload budget must be positive");
+        GLCapabilities caps = GL.getCapabilities();
+        this.persistent = caps.OpenGL44 || caps.GL_ARB_buffer_storage;
+        this.budget = budget;
+        this.segmentSize = align(budget);
+        this.staging = glGenBuffers();
+        glBindBuffer(GL_COPY_READ_BUFFER, staging);
+        if (persistent) {
+            int flags = GL_MAP_WRITE_BIT | GL_MAP_PERSISTENT_BIT | GL_MAP_COHERENT_BIT;
+            glBufferStorage(GL_COPY_READ_BUFFER, segmentSize * SEGMENTS, flags);
+            setMapped(glMapBufferRange(GL_COPY_READ_BUFFER, 0, segmentSize * SEGMENTS, flags, null));
+            isMapped = true;
+        } else {
+            glBufferData(GL_COPY_READ_BUFFER, segmentSize, GL_STREAM_DRAW);
+        }
+        glBindBuffer(GL_COPY_READ_BUFFER, 0);
+    }
+
+    public static boolean isSupported() {
+        GLCapabilities caps = GL.getCapabilities();
+        return caps.OpenGL32 || caps.GL_ARB_copy_buffer && caps.GL_ARB_sync;
+    }
+
+    public boolean isPersistent() {
+        return persistent;
+    }
+
+    // Takes effect next frame; capped at the size the staging buffer was created with.
+    public void setBudget(long bytes) {
+        if (bytes <= 0) throw new IllegalArgumentException("Upload budget must be positive");
+        budget = Math.min(bytes, segmentSize);
+    }
+
+    public long getBudget() {
+        return budget;
+    }
+
+    public void beginFrame() {
+        used = 0;
+        frameBytes = 0;
+        copies = 0;
+        blocked = false;
+        long fence = fences[segment];
+        if (fence == 0) return;
+        int status = glClientWaitSync(fence, 0, 0);
+        if (status == GL_TIMEOUT_EXPIRED) {
+            // The GPU hasn't finished copying out of this slice yet; skip a frame, don't stall
+            blocked = true;
+            blockedFrames++;
+            return;
+        }
+        glDeleteSync(fence);
+        fences[segment] = 0;
+    }
+
+    // Whether `bytes` more can be staged this frame.
+    public boolean fits(long bytes) {
+        return !blocked && used + align(bytes) <= budget;
+    }
+
+    // For a mesh larger than the budget: true (and the rest of the frame is used up) if nothing
+    // was staged yet, so the caller may upload those bytes directly.
+    public boolean takeFrame(long bytes) {
+        if (blocked || used > 0) return false;
+        used = budget;
+        frameBytes = bytes;
+        return true;
+    }
+
+    // Copies `src` into the staging buffer and queues a copy to offset 0 of `target`, whose
+    // storage must already be at least that large. Call fits() first.
+    public void stage(float[] src, int target) {
+        long offset = reserve(4L * src.length, target);
+        mappedFloats.position((int) (offset >> 2));
+        mappedFloats.put(src);
+    }
+
+    public void stage(int[] src, int target) {
+        long offset = reserve(4L * src.length, target);
+        mappedInts.position((int) (offset >> 2));
+        mappedInts.put(src);
+    }
+
+    private long reserve(long bytes, int target) {
+        if (!fits(bytes)) throw new IllegalStateException("Upload of " + bytes + " bytes exceeds this frame's budget");
+        if (!isMapped) {
+            // Orphan: the driver hands out fresh storage while last frame's copies still read the old one
+            glBindBuffer(GL_COPY_READ_BUFFER, staging);
+            glBufferData(GL_COPY_READ_BUFFER, segmentSize, GL_STREAM_DRAW);
+            setMapped(glMapBufferRange(GL_COPY_READ_BUFFER, 0, segmentSize, GL_MAP_WRITE_BIT | GL_MAP_INVALIDATE_BUFFER_BIT, mapped));
+            isMapped = true;
+            glBindBuffer(GL_COPY_READ_BUFFER, 0);
+        }
+        long offset = (persistent ? segment * segmentSize : 0) + used;
+        if (copies == copyTargets.length) {
+            copyTargets = Arrays.copyOf(copyTargets, copies * 2);
+            copySources = Arrays.copyOf(copySources, copies * 2);
+            copySizes = Arrays.copyOf(copySizes, copies * 2);
+        }
+        copyTargets[copies] = target;
+        copySources[copies] = offset;
+        copySizes[copies] = bytes;
+        copies++;
+        used += align(bytes);
+        frameBytes += bytes;
+        return offset;
+    }
+
+    // Passing the previous mapping back to glMapBufferRange lets LWJGL reuse the ByteBuffer, and
+    // the views below with it, when the driver maps the same address again.
+    private void setMapped(ByteBuffer buffer) {
+        if (buffer == null) throw new IllegalStateException("Failed to map the upload staging buffer");
+        if (buffer != mapped) {
+            mapped = buffer;
+            mappedFloats = buffer.asFloatBuffer();
+            mappedInts = buffer.asIntBuffer();
+        }
+    }
+
+    public void endFrame() {
+        lastFrameBytes = frameBytes;
+        if (copies == 0) return;
+        glBindBuffer(GL_COPY_READ_BUFFER, staging);
+        if (!persistent) {
+            glUnmapBuffer(GL_COPY_READ_BUFFER);
+            isMapped = false;
+        }
+        for (int i = 0; i < copies; i++) {
+            glBindBuffer(GL_COPY_WRITE_BUFFER, copyTargets[i]);
+            glCopyBufferSubData(GL_COPY_READ_BUFFER, GL_COPY_WRITE_BUFFER, copySources[i], 0, copySizes[i]);
+        }
+        glBindBuffer(GL_COPY_WRITE_BUFFER, 0);
+        glBindBuffer(GL_COPY_READ_BUFFER, 0);
+        if (persistent) {
+            fences[segment] = glFenceSync(GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+            segment = (segment + 1) % SEGMENTS;
+        }
+        copies = 0;
+    }
+
+    // Bytes uploaded in the last frame, and frames skipped because the GPU was behind.
+    public long getLastFrameBytes() {
+        return lastFrameBytes;
+    }
+
+    public long getBlockedFrames() {
+        return blockedFrames;
+    }
+
+    // Offsets stay 16-byte aligned for the copy engine.
+    static long align(long bytes) {
+        return (bytes + 15) & ~15L;
+    }
+
+    public void cleanup() {
+        for (int i = 0; i < SEGMENTS; i++) {
+            if (fences[i] != 0) glDeleteSync(fences[i]);
+            fences[i] = 0;
+        }
+        glBindBuffer(GL_COPY_READ_BUFFER, staging);
+        if (isMapped) glUnmapBuffer(GL_COPY_READ_BUFFER);
+        glBindBuffer(GL_COPY_READ_BUFFER, 0);
+        glDeleteBuffers(staging);
+        isMapped = false;
+    }
+}
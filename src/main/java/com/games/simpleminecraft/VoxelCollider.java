@@ -0,0 +1,78 @@
+package com.games.simpleminecraft;
+
+// Axis-separated AABB vs voxel collision, shared by the player and the entity batch step.
+// Boxes are given by their feet center (x, y, z), half width and height.
+public final class VoxelCollider {
+    public static final int AXIS_X = 0;
+    public static final int AXIS_Y = 1;
+    public static final int AXIS_Z = 2;
+    public static final float EPS = 0.001f;
+
+    private VoxelCollider() {
+    }
+
+    // Moves the box by delta along one axis and pushes it out of any solid block it ends up in.
+    // Returns the resulting coordinate on that axis; it differs from (start + delta) exactly when
+    // a solid block was hit, which callers use to zero velocity or set onGround.
+    public static float moveAxis(BlockView world, float x, float y, float z, float halfW, float height, int axis, float delta) {
+        if (axis == AXIS_X) x += delta;
+        else if (axis == AXIS_Y) y += delta;
+        else z += delta;
+
+        int x0 = (int) Math.floor(x - halfW);
+        int x1 = (int) Math.floor(x + halfW);
+        int y0 = (int) Math.floor(y);
+        int y1 = (int) Math.floor(y + height);
+        int z0 = (int) Math.floor(z - halfW);
+        int z1 = (int) Math.floor(z + halfW);
+
+        float result = axis == AXIS_X ? x : axis == AXIS_Y ? y : z;
+        for (int bx = x0; bx <= x1; bx++) {
+            for (int by = y0; by <= y1; by++) {
+                for (int bz = z0; bz <= z1; bz++) {
+                    if (!world.isSolid(bx, by, bz)) continue;
+                    // Resolve penetration along the moved axis only
+                    if (axis == AXIS_X) result = delta > 0 ? bx - halfW - EPS : bx + 1 + halfW + EPS;
+                    else if (axis == AXIS_Y) result = delta > 0 ? by - height - EPS : by + 1 + EPS;
+                    else result = delta > 0 ? bz - halfW - EPS : bz + 1 + halfW + EPS;
+                }
+            }
+        }
+        return result;
+    }
+
+    // Batch step for entities [from, to): gravity, then x, y and z moves with collision.
+    public static void step(BlockView world, EntityStore e, int from, int to, float dt, float gravity) {
+        for (int i = from; i < to; i++) step(world, e, i, dt, gravity);
+    }
+
+    // Steps one entity; touches only index i, so disjoint index sets can run on separate threads.
+    public static void step(BlockView world, EntityStore e, int i, float dt, float gravity) {
+        float[] px = e.x, py = e.y, pz = e.z;
+        float[] vx = e.vx, vy = e.vy, vz = e.vz;
+        float halfW = e.halfWidth[i];
+        float height = e.height[i];
+        vy[i] -= gravity * dt;
+
+        float dx = vx[i] * dt;
+        if (dx != 0) {
+            float nx = moveAxis(world, px[i], py[i], pz[i], halfW, height, AXIS_X, dx);
+            if (nx != px[i] + dx) vx[i] = 0;
+            px[i] = nx;
+        }
+        float dy = vy[i] * dt;
+        if (dy != 0) {
+            float ny = moveAxis(world, px[i], py[i], pz[i], halfW, height, AXIS_Y, dy);
+            boolean hit = ny != py[i] + dy;
+            if (hit) vy[i] = 0;
+            if (dy < 0) e.onGround[i] = hit;
+            py[i] = ny;
+        }
+        float dz = vz[i] * dt;
+        if (dz != 0) {
+            float nz = moveAxis(world, px[i], py[i], pz[i], halfW, height, AXIS_Z, dz);
+            if (nz != pz[i] + dz) vz[i] = 0;
+            pz[i] = nz;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.games.simpleminecraft;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import org.joml.Vector3f;
+
+// Sparse voxel octree over a snapshot of the world's blocks, one tree per REGION_SIZE cube.
+// Subtrees of a single block id collapse into one leaf, so empty sky or solid rock costs
+// one int instead of a dense run of shorts, and raycasts jump across whole empty leaves
+// instead of stepping block by block.
+//
+// Nodes live in one int array: a value >= 0 is a leaf holding a block id, a negative value v
+// is an inner node whose eight children start at ~v, ordered by (x << 2 | y << 1 | z).
+// The tree is never modified after building, so any number of threads can read it.
+public class VoxelOctree implements BlockView {
+    public static final int REGION_SIZE = World.SIZE_Y;
+    public static final int REGIONS_X = World.SIZE_X / REGION_SIZE;
+    public static final int REGIONS_Z = World.SIZE_Z / REGION_SIZE;
+
+    private final int[] roots = new int[REGIONS_X * REGIONS_Z];
+    private int[] nodes = new int[1024];
+    private int nodeCount;
+
+    private VoxelOctree(short[] blocks) {
+        int[] children = new int[8 * Integer.numberOfTrailingZeros(REGION_SIZE)];
+        for (int rx = 0; rx < REGIONS_X; rx++)
+            for (int rz = 0; rz < REGIONS_Z; rz++)
+                roots[rx * REGIONS_Z + rz] = build(blocks, rx * REGION_SIZE, 0, rz * REGION_SIZE, REGION_SIZE, children, 0);
+        nodes = Arrays.copyOf(nodes, nodeCount);
+    }
+
+    public static VoxelOctree build(World world) {
+        short[] blocks = new short[World.SIZE_X * World.SIZE_Y * World.SIZE_Z];
+        world.copyBlocks(blocks);
+        return new VoxelOctree(blocks);
+    }
+
+    // Copies the blocks on the calling thread (cheap) and builds the tree on the executor.
+    public static CompletableFuture<VoxelOctree> buildAsync(World world, Executor executor) {
+        short[] blocks = new short[World.SIZE_X * World.SIZE_Y * World.SIZE_Z];
+        world.copyBlocks(blocks);
+        return CompletableFuture.supplyAsync(() -> new VoxelOctree(blocks), executor);
+    }
+
+    // children is scratch space, eight ints per tree level starting at depth * 8.
+    private int build(short[] blocks, int x0, int y0, int z0, int size, int[] children, int depth) {
+        if (size == 1) return blocks[World.index(x0, y0, z0)];
+        int half = size >> 1;
+        int base = depth * 8;
+        boolean uniform = true;
+        for (int c = 0; c < 8; c++) {
+            int child = build(blocks, x0 + ((c >> 2) & 1) * half, y0 + ((c >> 1) & 1) * half, z0 + (c & 1) * half,
+                    half, children, depth + 1);
+            children[base + c] = child;
+            if (child < 0 || child != children[base]) uniform = false;
+        }
+        if (uniform) return children[base];
+        if (nodeCount + 8 > nodes.length) nodes = Arrays.copyOf(nodes, nodes.length * 2);
+        int at = nodeCount;
+        System.arraycopy(children, base, nodes, at, 8);
+        nodeCount += 8;
+        return ~at;
+    }
+
+    @Override
+    public int getBlockId(int x, int y, int z) {
+        if (!World.inBounds(x, y, z)) return World.AIR;
+        int node = roots[(x / REGION_SIZE) * REGIONS_Z + z / REGION_SIZE];
+        int size = REGION_SIZE;
+        while (node < 0) {
+            size >>= 1;
+            node = nodes[~node + (((x & size) != 0 ? 4 : 0) | ((y & size) != 0 ? 2 : 0) | ((z & size) != 0 ? 1 : 0))];
+        }
+        return node;
+    }
+
+    @Override
+    public boolean isSolid(int x, int y, int z) {
+        return BlockRegistry.isSolid(getBlockId(x, y, z));
+    }
+
+    // Bytes held by the tree, for comparison with the dense short-per-block array.
+    public long memoryBytes() {
+        return (long) (nodes.length + roots.length) * Integer.BYTES;
+    }
+
+    public int nodeCount() {
+        return nodes.length;
+    }
+
+    // Same contract as World.raycast. Each step finds the leaf holding the current block and,
+    // if it isn't solid, moves straight to where the ray leaves that leaf.
+    public boolean raycast(Vector3f origin, Vector3f dir, float maxDist, Vector3f hit, Vector3f hitNormal) {
+        int ix = (int) Math.floor(origin.x), iy = (int) Math.floor(origin.y), iz = (int) Math.floor(origin.z);
+        float t = 0f;
+        while (t <= maxDist) {
+            if (!World.inBounds(ix, iy, iz)) {
+                // Outside the world nothing is solid: jump to where the ray enters it, if ever.
+                t = enterWorld(origin, dir, t, maxDist, hitNormal);
+                if (t < 0) return false;
+                ix = inside(origin.x + dir.x * t, 0, World.SIZE_X);
+                iy = inside(origin.y + dir.y * t, 0, World.SIZE_Y);
+                iz = inside(origin.z + dir.z * t, 0, World.SIZE_Z);
+                continue;
+            }
+            // Leaf containing the block: id, origin and edge length.
+            int lx = ix - ix % REGION_SIZE, ly = 0, lz = iz - iz % REGION_SIZE;
+            int size = REGION_SIZE;
+            int node = roots[(ix / REGION_SIZE) * REGIONS_Z + iz / REGION_SIZE];
+            while (node < 0) {
+                size >>= 1;
+                int c = 0;
+                if ((ix & size) != 0) { c |= 4; lx += size; }
+                if ((iy & size) != 0) { c |= 2; ly += size; }
+                if ((iz & size) != 0) { c |= 1; lz += size; }
+                node = nodes[~node + c];
+            }
+            int id = node;
+            if (BlockRegistry.isSolid(id)) {
+                hit.set(ix, iy, iz);
+                return true;
+            }
+
+            float tx = exit(origin.x, dir.x, lx, size);
+            float ty = exit(origin.y, dir.y, ly, size);
+            float tz = exit(origin.z, dir.z, lz, size);
+            if (tx == Float.POSITIVE_INFINITY && ty == Float.POSITIVE_INFINITY && tz == Float.POSITIVE_INFINITY) return false;
+            if (tx < ty && tx < tz) {
+                t = tx;
+                ix = dir.x > 0 ? lx + size : lx - 1;
+                iy = inside(origin.y + dir.y * t, ly, size);
+                iz = inside(origin.z + dir.z * t, lz, size);
+                if (hitNormal != null) hitNormal.set(dir.x > 0 ? -1 : 1, 0, 0);
+            } else if (ty < tz) {
+                t = ty;
+                iy = dir.y > 0 ? ly + size : ly - 1;
+                ix = inside(origin.x + dir.x * t, lx, size);
+                iz = inside(origin.z + dir.z * t, lz, size);
+                if (hitNormal != null) hitNormal.set(0, dir.y > 0 ? -1 : 1, 0);
+            } else {
+                t = tz;
+                iz = dir.z > 0 ? lz + size : lz - 1;
+                ix = inside(origin.x + dir.x * t, lx, size);
+                iy = inside(origin.y + dir.y * t, ly, size);
+                if (hitNormal != null) hitNormal.set(0, 0, dir.z > 0 ? -1 : 1);
+            }
+        }
+        return false;
+    }
+
+    // Ray parameter > t at which the ray enters the world box, or -1 if it doesn't within maxDist.
+    private static float enterWorld(Vector3f o, Vector3f d, float t, float maxDist, Vector3f hitNormal) {
+        float near = t, far = maxDist;
+        int axis = -1;
+        for (int a = 0; a < 3; a++) {
+            float oa = a == 0 ? o.x : a == 1 ? o.y : o.z;
+            float da = a == 0 ? d.x : a == 1 ? d.y : d.z;
+            int size = a == 0 ? World.SIZE_X : a == 1 ? World.SIZE_Y : World.SIZE_Z;
+            if (da == 0) {
+                if (oa < 0 || oa >= size) return -1;
+                continue;
+            }
+            float t1 = -oa / da, t2 = (size - oa) / da;
+            float lo = Math.min(t1, t2), hi = Math.max(t1, t2);
+            if (lo > near) {
+                near = lo;
+                axis = a;
+            }
+            far = Math.min(far, hi);
+        }
+        // No later entry point means the ray is on its way out.
+        if (axis < 0 || near >= far) return -1;
+        if (hitNormal != null) {
+            float da = axis == 0 ? d.x : axis == 1 ? d.y : d.z;
+            int n = da > 0 ? -1 : 1;
+            hitNormal.set(axis == 0 ? n : 0, axis == 1 ? n : 0, axis == 2 ? n : 0);
+        }
+        return near;
+    }
+
+    // Ray parameter at which the ray leaves [min, min + size) along one axis.
+    private static float exit(float o, float d, int min, int size) {
+        if (d > 0) return (min + size - o) / d;
+        if (d < 0) return (min - o) / d;
+        return Float.POSITIVE_INFINITY;
+    }
+
+    // Block coordinate of p, kept inside the leaf the ray is crossing despite rounding.
+    private static int inside(float p, int min, int size) {
+        int v = (int) Math.floor(p);
+        return v < min ? min : v >= min + size ? min + size - 1 : v;
+    }
+}
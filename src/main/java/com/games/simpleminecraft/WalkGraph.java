@@ -0,0 +1,110 @@
+package com.games.simpleminecraft;
+
+import java.util.Arrays;
+
+// Walkability graph of one chunk column: every cell a player-sized agent can stand in, and its
+// links to standable cells in the four horizontal directions (walk, one-block jump, or a fall of
+// up to Pathfinder.MAX_FALL). Links may point into neighbouring chunks.
+//
+// Everything a cell's links depend on lies within one block horizontally and World bumps the
+// sections around an edit, so the chunk's section versions tell whether the graph is stale.
+final class WalkGraph {
+    static final int LOCAL_VOLUME = World.SECTION_SIZE * World.SIZE_Y * World.SECTION_SIZE;
+
+    private static final int[] DX = {1, -1, 0, 0};
+    private static final int[] DZ = {0, 0, 1, -1};
+
+    final long version;
+    private final int baseX, baseZ;
+    // local cell -> node + 1, 0 when the cell isn't standable
+    private final short[] nodeAt = new short[LOCAL_VOLUME];
+    private final int[] linkStart;
+    private final int[] links; // world indices of link targets
+
+    WalkGraph(World world, int chunk, long version) {
+        this.version = version;
+        this.baseX = (chunk / World.CHUNKS_Z) << World.SECTION_SHIFT;
+        this.baseZ = (chunk % World.CHUNKS_Z) << World.SECTION_SHIFT;
+
+        int[] nodeIndex = new int[256];
+        int count = 0;
+        for (int lx = 0; lx < World.SECTION_SIZE; lx++)
+            for (int y = 1; y < World.SIZE_Y; y++)
+                for (int lz = 0; lz < World.SECTION_SIZE; lz++) {
+                    if (!standable(world, baseX + lx, y, baseZ + lz)) continue;
+                    if (count == nodeIndex.length) nodeIndex = Arrays.copyOf(nodeIndex, count * 2);
+                    nodeIndex[count++] = World.index(baseX + lx, y, baseZ + lz);
+                    nodeAt[local(lx, y, lz)] = (short) count;
+                }
+
+        linkStart = new int[count + 1];
+        int[] out = new int[count * 4];
+        int linkCount = 0;
+        for (int n = 0; n < count; n++) {
+            linkStart[n] = linkCount;
+            int idx = nodeIndex[n];
+            int x = idx / (World.SIZE_Y * World.SIZE_Z), y = (idx / World.SIZE_Z) % World.SIZE_Y, z = idx % World.SIZE_Z;
+            boolean headroom = !world.isSolid(x, y + Pathfinder.CLEARANCE, z);
+            for (int d = 0; d < 4; d++) {
+                int nx = x + DX[d], nz = z + DZ[d];
+                int target = -1;
+                if (standable(world, nx, y, nz)) {
+                    target = World.index(nx, y, nz);
+                } else if (headroom && standable(world, nx, y + 1, nz)) {
+                    target = World.index(nx, y + 1, nz);
+                } else if (World.inBounds(nx, y, nz) && clear(world, nx, y, nz)) {
+                    // Step off the edge and drop to the first floor within reach.
+                    for (int ty = y - 1; ty >= 1 && y - ty <= Pathfinder.MAX_FALL; ty--) {
+                        if (world.isSolid(nx, ty - 1, nz)) {
+                            target = World.index(nx, ty, nz);
+                            break;
+                        }
+                    }
+                }
+                if (target < 0) continue;
+                if (linkCount == out.length) out = Arrays.copyOf(out, out.length * 2);
+                out[linkCount++] = target;
+            }
+        }
+        linkStart[count] = linkCount;
+        links = Arrays.copyOf(out, linkCount);
+    }
+
+    // Solid floor below and room for the agent's height. The agent is narrower than a block,
+    // so one column is enough.
+    static boolean standable(World world, int x, int y, int z) {
+        return World.inBounds(x, y, z) && world.isSolid(x, y - 1, z) && clear(world, x, y, z);
+    }
+
+    private static boolean clear(World world, int x, int y, int z) {
+        for (int h = 0; h < Pathfinder.CLEARANCE; h++) {
+            if (world.isSolid(x, y + h, z)) return false;
+        }
+        return true;
+    }
+
+    private static int local(int lx, int y, int lz) {
+        return ((lx * World.SIZE_Y + y) << World.SECTION_SHIFT) | lz;
+    }
+
+    // Node of a world cell inside this chunk, or -1 if it isn't standable.
+    int node(int x, int y, int z) {
+        return nodeAt[local(x - baseX, y, z - baseZ)] - 1;
+    }
+
+    int nodeCount() {
+        return linkStart.length - 1;
+    }
+
+    int linkStart(int node) {
+        return linkStart[node];
+    }
+
+    int linkEnd(int node) {
+        return linkStart[node + 1];
+    }
+
+    int link(int i) {
+        return links[i];
+    }
+}
@@ -1,39 +1,184 @@
 package com.games.simpleminecraft;
 
-import static org.lwjgl.opengl.GL11.*;
-import static org.lwjgl.opengl.GL15.*;
-import static org.lwjgl.opengl.GL20.*;
-import static org.lwjgl.opengl.GL30.*;
+import java.lang.ref.Cleaner;
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import java.nio.FloatBuffer;
-import java.util.ArrayList;
-import java.util.List;
-
-import org.joml.Matrix4f;
 import org.joml.Vector3f;
-import org.lwjgl.BufferUtils;
 
-public class World {
+// Block ids live off the Java heap, one SlabPool slab per section that holds anything but air;
+// all-air sections have no slab. A world holds its slabs until close(), which worlds that come
+// and go (loaded, streamed, mirrored) must call.
+//
+// A slab must not be recycled while another thread may still be reading it. Reads from other threads (Pathfinder) are bracketed by beginRead/endRead, and a slab
+// dropped meanwhile is only retired; it goes back to the pool at the next safe point with no
+// reader in flight: the end of a tick, the next slab taken, or close().
+public class World implements BlockView, AutoCloseable {
     public static final int SIZE_X = 64;
     public static final int SIZE_Y = 32;
     public static final int SIZE_Z = 64;
+    private static final int Y_BITS = Integer.numberOfTrailingZeros(SIZE_Y);
+    private static final int Z_BITS = Integer.numberOfTrailingZeros(SIZE_Z);
+
+    // Render sections are 16^3 cubes; each one is meshed and drawn independently.
+    public static final int SECTION_SIZE = 16;
+    public static final int SECTION_SHIFT = 4;
+    public static final int SECTIONS_X = SIZE_X / SECTION_SIZE;
+    public static final int SECTIONS_Y = SIZE_Y / SECTION_SIZE;
+    public static final int SECTIONS_Z = SIZE_Z / SECTION_SIZE;
+    public static final int SECTION_COUNT = SECTIONS_X * SECTIONS_Y * SECTIONS_Z;
+
+    // A chunk is a full-height column of sections.
+    public static final int CHUNKS_X = SECTIONS_X;
+    public static final int CHUNKS_Z = SECTIONS_Z;
+    public static final int CHUNK_COUNT = CHUNKS_X * CHUNKS_Z;
+
+    // Built-in blocks; ordinal == registry id. Properties live in BlockRegistry.
+    public enum BlockType {
+        AIR, GRASS, DIRT, STONE, WOOD, LEAVES, SAND, WATER, LAVA;
+
+        private static final BlockType[] BY_ID = values();
+
+        public int id() {
+            return ordinal();
+        }
+
+        // null for blocks registered at runtime without an enum constant
+        public static BlockType fromId(int id) {
+            return id >= 0 && id < BY_ID.length ? BY_ID[id] : null;
+        }
+    }
+
+    public static final int AIR = 0;
+
+    private static final Cleaner CLEANER = Cleaner.create();
 
-    public enum BlockType { AIR, GRASS, DIRT, STONE, WOOD, LEAVES }
+    // Each section's slab (SlabPool.EMPTY while all air), x-major then y then z within it; see
+    // local(). nonAir counts the section's non-air blocks, so the slab is retired once it empties.
+    // Reading air from the shared empty slab rather than testing for it keeps getRaw branch-free;
+    // random lookups mispredict an all-air test often enough to triple their cost.
+    private final SlabPool pool = SlabPool.shared();
+    private final ShortBuffer[] slabs = new ShortBuffer[SECTION_COUNT];
+    private final int[] nonAir = new int[SECTION_COUNT];
+    private final AtomicInteger readers = new AtomicInteger();
+    private final Reclaim reclaim = new Reclaim(pool, slabs);
+    private final Cleaner.Cleanable cleanable = CLEANER.register(this, reclaim);
 
-    private BlockType[][][] blocks;
+    // Bumped whenever a block that can affect a section's mesh changes; consumers compare versions.
+    private final int[] sectionVersions = new int[SECTION_COUNT];
 
-    private int vaoId;
-    private int vboPosId;
-    private int vboColId;
-    private int vertexCount;
+    // Sections whose own blocks changed since they were last saved.
+    private final boolean[] unsaved = new boolean[SECTION_COUNT];
+
+    // Per-chunk column heights, updated on every write; see Heightmap.
+    private final Heightmap[] heightmaps = new Heightmap[CHUNK_COUNT];
+
+    {
+        Arrays.fill(slabs, SlabPool.EMPTY);
+        for (int i = 0; i < CHUNK_COUNT; i++) heightmaps[i] = new Heightmap();
+    }
 
     public World() {
-        generateTerrain();
-        rebuildMesh();
+        this(true);
+    }
+
+    private World(boolean generate) {
+        if (generate) {
+            generateTerrain();
+            return;
+        }
+        for (int x = 0; x < SIZE_X; x++)
+            for (int z = 0; z < SIZE_Z; z++) rescanColumn(x, z, SIZE_Y - 1);
+    }
+
+    // All-air world, filled in later (e.g. by a network client receiving sections).
+    public static World empty() {
+        return new World(false);
+    }
+
+    // Returns every slab to the pool. The world reads as all air afterwards and must not be written
+    // or read from other threads.
+    @Override
+    public void close() {
+        reclaim.markClosed();
+        cleanable.clean();
+        Arrays.fill(nonAir, 0);
+    }
+
+    // Brackets reads of this world from a thread other than its writer's. Slabs dropped until
+    // the matching endRead are not recycled, so the reader never sees another section's ids.
+    void beginRead() {
+        readers.incrementAndGet();
+    }
+
+    void endRead() {
+        readers.decrementAndGet();
+    }
+
+    // A safe point: returns retired slabs to the pool unless a reader is in flight. The CAS, a
+    // volatile write where a plain get would only read, orders the cleared slab entries before
+    // any reader that starts afterwards.
+    void recycleSlabs() {
+        if (reclaim.hasRetired() && readers.compareAndSet(0, 0)) reclaim.recycle();
+    }
+
+    private ShortBuffer takeSlab() {
+        recycleSlabs();
+        return pool.allocate();
+    }
+
+    // Holds the slabs for the pool's sake: retired ones until recycleSlabs, all of them on close()
+    // or, from the cleaner thread, once a world that was never closed has been collected -- a
+    // leak, counted by the pool. Must not reference the World itself. Synchronized because bulk
+    // writers retire slabs from several threads.
+    private static final class Reclaim implements Runnable {
+        private final SlabPool pool;
+        private final ShortBuffer[] slabs;
+        private ShortBuffer[] retired = new ShortBuffer[8];
+        private int retiredCount;
+        private boolean closed;
+
+        Reclaim(SlabPool pool, ShortBuffer[] slabs) {
+            this.pool = pool;
+            this.slabs = slabs;
+        }
+
+        void markClosed() {
+            closed = true;
+        }
+
+        synchronized void retire(ShortBuffer slab) {
+            if (retiredCount == retired.length) retired = Arrays.copyOf(retired, retiredCount * 2);
+            retired[retiredCount++] = slab;
+        }
+
+        synchronized boolean hasRetired() {
+            return retiredCount > 0;
+        }
+
+        synchronized void recycle() {
+            for (int i = 0; i < retiredCount; i++) {
+                pool.release(retired[i]);
+                retired[i] = null;
+            }
+            retiredCount = 0;
+        }
+
+        @Override
+        public void run() {
+            if (!closed) pool.countLeak();
+            recycle();
+            for (int s = 0; s < slabs.length; s++) {
+                if (slabs[s] != SlabPool.EMPTY) pool.release(slabs[s]);
+                slabs[s] = SlabPool.EMPTY;
+            }
+        }
     }
 
     private void generateTerrain() {
-        blocks = new BlockType[SIZE_X][SIZE_Y][SIZE_Z];
+        FlightEvents.WorldGeneration event = FlightEvents.recording() ? new FlightEvents.WorldGeneration() : null;
+        if (event != null) event.begin();
         Vector3f center = new Vector3f(SIZE_X / 2f, 0, SIZE_Z / 2f);
         float radius = Math.min(SIZE_X, SIZE_Z) * 0.45f;
 
@@ -57,187 +202,320 @@ public class World {
         int placed = 0;
         for (int x = 4; x < SIZE_X - 4 && placed < 8; x += 7) {
             for (int z = 4; z < SIZE_Z - 4 && placed < 8; z += 9) {
-                int y = getTopY(x, z);
+                int y = getTopLightBlockingY(x, z);
                 if (y > 0 && getBlock(x, y, z) == BlockType.GRASS) {
                     placeTree(x, y + 1, z);
                     placed++;
                 }
             }
         }
+
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                int solid = 0;
+                for (int n : nonAir) solid += n;
+                event.sizeX = SIZE_X;
+                event.sizeY = SIZE_Y;
+                event.sizeZ = SIZE_Z;
+                event.solidBlocks = solid;
+                event.commit();
+            }
+        }
     }
 
+    // Through setBlock like the terrain, so sections holding only leaves are marked unsaved and
+    // changed too; blocks past the world's edge are dropped.
     private void placeTree(int x, int y, int z) {
         int trunkH = 4;
-        for (int i = 0; i < trunkH; i++) setBlockSafe(x, y + i, z, BlockType.WOOD);
+        for (int i = 0; i < trunkH; i++) setBlock(x, y + i, z, BlockType.WOOD);
         int leavesY = y + trunkH;
         for (int dy = -2; dy <= 1; dy++) {
             int r = dy == 1 ? 1 : 2;
             for (int dx = -r; dx <= r; dx++) {
                 for (int dz = -r; dz <= r; dz++) {
-                    if (Math.abs(dx) + Math.abs(dz) <= r + 1) setBlockSafe(x + dx, leavesY + dy, z + dz, BlockType.LEAVES);
+                    if (Math.abs(dx) + Math.abs(dz) <= r + 1) setBlock(x + dx, leavesY + dy, z + dz, BlockType.LEAVES);
                 }
             }
         }
     }
 
-    private int getTopY(int x, int z) {
-        for (int y = SIZE_Y - 1; y >= 0; y--) {
-            if (blocks[x][y][z] != null && blocks[x][y][z] != BlockType.AIR) return y;
+    // Highest solid block of the column, or Heightmap.NONE. O(1).
+    public int getTopSolidY(int x, int z) {
+        if (x < 0 || x >= SIZE_X || z < 0 || z >= SIZE_Z) return Heightmap.NONE;
+        return heightmap(x, z).getSolidTop(x, z);
+    }
+
+    // Highest block that stops skylight (any non-air block), or Heightmap.NONE. O(1).
+    public int getTopLightBlockingY(int x, int z) {
+        if (x < 0 || x >= SIZE_X || z < 0 || z >= SIZE_Z) return Heightmap.NONE;
+        return heightmap(x, z).getLightBlockingTop(x, z);
+    }
+
+    public Heightmap getHeightmap(int chunk) {
+        return heightmaps[chunk];
+    }
+
+    private Heightmap heightmap(int x, int z) {
+        return heightmaps[chunkIndex(x >> SECTION_SHIFT, z >> SECTION_SHIFT)];
+    }
+
+    // A block placed above the top raises it; removing the top block rescans down from there.
+    private void updateHeightmaps(int x, int y, int z, int id) {
+        Heightmap h = heightmap(x, z);
+        int c = Heightmap.column(x, z);
+        int solidTop = h.solid[c], lightTop = h.lightBlocking[c];
+        if (BlockRegistry.isSolid(id)) {
+            if (y > solidTop) h.solid[c] = (short) y;
+        } else if (y == solidTop) {
+            h.solid[c] = (short) scanDown(x, y - 1, z, true);
+        }
+        if (Heightmap.blocksSkylight(id)) {
+            if (y > lightTop) h.lightBlocking[c] = (short) y;
+        } else if (y == lightTop) {
+            h.lightBlocking[c] = (short) scanDown(x, y - 1, z, false);
+        }
+    }
+
+    private void rescanColumn(int x, int z, int fromY) {
+        Heightmap h = heightmap(x, z);
+        int c = Heightmap.column(x, z);
+        h.solid[c] = (short) scanDown(x, fromY, z, true);
+        h.lightBlocking[c] = (short) scanDown(x, fromY, z, false);
+    }
+
+    private int scanDown(int x, int fromY, int z, boolean solid) {
+        for (int y = fromY; y >= 0; y--) {
+            int id = getRaw(x, y, z);
+            if (solid ? BlockRegistry.isSolid(id) : Heightmap.blocksSkylight(id)) return y;
         }
-        return -1;
+        return Heightmap.NONE;
     }
 
+    // null for blocks registered at runtime without an enum constant; getBlockId covers those.
     public BlockType getBlock(int x, int y, int z) {
-        if (!inBounds(x, y, z)) return BlockType.AIR;
-        BlockType t = blocks[x][y][z];
-        return t == null ? BlockType.AIR : t;
+        return BlockType.fromId(getBlockId(x, y, z));
+    }
+
+    @Override
+    public int getBlockId(int x, int y, int z) {
+        if (!inBounds(x, y, z)) return AIR;
+        return getRaw(x, y, z);
+    }
+
+    // Unchecked: (x, y, z) must be in bounds. Kept under the JIT's inlining size limit
+    // (MaxInlineSize, 35 bytecodes); it's the innermost call of every simulation and mesher loop.
+    int getRaw(int x, int y, int z) {
+        return SlabPool.get(slabs[sectionOf(x, y, z)], local(x, y, z));
+    }
+
+    static int sectionOf(int x, int y, int z) {
+        return sectionIndex(x >> SECTION_SHIFT, y >> SECTION_SHIFT, z >> SECTION_SHIFT);
+    }
+
+    // Unchecked, and only stores the id: no heightmap, version or unsaved updates. Bulk writers
+    // call touchSection afterwards. Safe from several threads as long as each writes its own sections.
+    void setRaw(int x, int y, int z, int id) {
+        int s = sectionOf(x, y, z);
+        ShortBuffer slab = slabs[s];
+        if (slab == SlabPool.EMPTY) {
+            if (id == AIR) return;
+            slab = slabs[s] = takeSlab();
+        }
+        int l = local(x, y, z);
+        int old = SlabPool.get(slab, l);
+        SlabPool.put(slab, l, (short) id);
+        if (old == AIR && id != AIR) {
+            nonAir[s]++;
+        } else if (old != AIR && id == AIR && --nonAir[s] == 0) {
+            slabs[s] = SlabPool.EMPTY;
+            reclaim.retire(slab);
+        }
+    }
+
+    // getRaw/setRaw by World.index(), for simulation loops that address cells by index. The
+    // sizes are powers of two, so the index splits with shifts and masks.
+    int idAt(int index) {
+        return getRaw(index >>> (Y_BITS + Z_BITS), (index >>> Z_BITS) & (SIZE_Y - 1), index & (SIZE_Z - 1));
+    }
+
+    void setIdAt(int index, int id) {
+        setRaw(index >>> (Y_BITS + Z_BITS), (index >>> Z_BITS) & (SIZE_Y - 1), index & (SIZE_Z - 1), id);
+    }
+
+    // A section's slab, null if it's all air. For readers in this package (SectionCodec).
+    ShortBuffer sectionSlab(int section) {
+        return slabs[section] == SlabPool.EMPTY ? null : slabs[section];
+    }
+
+    // Sets a whole section to one id; all air releases its slab. Call touchSection afterwards.
+    void fillSection(int section, int id) {
+        ShortBuffer slab = slabs[section];
+        if (id == AIR) {
+            if (slab != SlabPool.EMPTY) reclaim.retire(slab);
+            slabs[section] = SlabPool.EMPTY;
+            nonAir[section] = 0;
+            return;
+        }
+        if (slab == SlabPool.EMPTY) slab = slabs[section] = takeSlab();
+        for (int i = 0; i < SlabPool.SLAB_SHORTS; i++) SlabPool.put(slab, i, (short) id);
+        nonAir[section] = SlabPool.SLAB_SHORTS;
     }
 
     public void setBlock(int x, int y, int z, BlockType t) {
-        if (!inBounds(x, y, z)) return;
-        blocks[x][y][z] = t;
+        setBlockId(x, y, z, t.id());
     }
 
-    private void setBlockSafe(int x, int y, int z, BlockType t) {
-        if (inBounds(x, y, z)) blocks[x][y][z] = t;
+    public void setBlockId(int x, int y, int z, int id) {
+        if (!inBounds(x, y, z)) return;
+        setRaw(x, y, z, id);
+        updateHeightmaps(x, y, z, id);
+        unsaved[sectionIndex(x >> SECTION_SHIFT, y >> SECTION_SHIFT, z >> SECTION_SHIFT)] = true;
+        touchSections(x, y, z);
     }
 
+    @Override
     public boolean isSolid(int x, int y, int z) {
-        BlockType t = getBlock(x, y, z);
-        return t != BlockType.AIR && t != BlockType.LEAVES; // leaves non-solid
+        return inBounds(x, y, z) && BlockRegistry.isSolid(getRaw(x, y, z));
+    }
+
+    public boolean isOpaque(int x, int y, int z) {
+        return inBounds(x, y, z) && BlockRegistry.isOpaque(getRaw(x, y, z));
     }
 
-    private boolean inBounds(int x, int y, int z) {
+    static boolean inBounds(int x, int y, int z) {
         return x >= 0 && x < SIZE_X && y >= 0 && y < SIZE_Y && z >= 0 && z < SIZE_Z;
     }
 
-    public void rebuildMesh() {
-        List<Float> pos = new ArrayList<>();
-        List<Float> col = new ArrayList<>();
+    static int index(int x, int y, int z) {
+        return (x * SIZE_Y + y) * SIZE_Z + z;
+    }
+
+    // Position within a section's slab; a row along z is 16 consecutive ids.
+    static int local(int x, int y, int z) {
+        return ((x & (SECTION_SIZE - 1)) << (2 * SECTION_SHIFT)) | ((y & (SECTION_SIZE - 1)) << SECTION_SHIFT) | (z & (SECTION_SIZE - 1));
+    }
 
+    // FNV-1a over every block id in World.index() order; equal worlds hash equal, used to check
+    // replays and syncs.
+    public long contentHash() {
+        long h = 0xcbf29ce484222325L;
         for (int x = 0; x < SIZE_X; x++)
             for (int y = 0; y < SIZE_Y; y++)
                 for (int z = 0; z < SIZE_Z; z++) {
-                    BlockType t = getBlock(x, y, z);
-                    if (t == BlockType.AIR) continue;
-                    float[] c = colorFor(t);
-                    addCubeFaces(pos, col, x, y, z, c);
+                    int id = getRaw(x, y, z);
+                    h = (h ^ (id & 0xFF)) * 0x100000001b3L;
+                    h = (h ^ ((id >>> 8) & 0xFF)) * 0x100000001b3L;
                 }
+        return h;
+    }
 
-        float[] posArr = toArray(pos);
-        float[] colArr = toArray(col);
-        vertexCount = posArr.length / 3;
-
-        if (vaoId == 0) vaoId = glGenVertexArrays();
-        glBindVertexArray(vaoId);
-
-        if (vboPosId == 0) vboPosId = glGenBuffers();
-        glBindBuffer(GL_ARRAY_BUFFER, vboPosId);
-        FloatBuffer pbuf = BufferUtils.createFloatBuffer(posArr.length);
-        pbuf.put(posArr).flip();
-        glBufferData(GL_ARRAY_BUFFER, pbuf, GL_STATIC_DRAW);
-        glVertexAttribPointer(0, 3, GL_FLOAT, false, 0, 0);
-        glEnableVertexAttribArray(0);
-
-        if (vboColId == 0) vboColId = glGenBuffers();
-        glBindBuffer(GL_ARRAY_BUFFER, vboColId);
-        FloatBuffer cbuf = BufferUtils.createFloatBuffer(colArr.length);
-        cbuf.put(colArr).flip();
-        glBufferData(GL_ARRAY_BUFFER, cbuf, GL_STATIC_DRAW);
-        glVertexAttribPointer(1, 4, GL_FLOAT, false, 0, 0);
-        glEnableVertexAttribArray(1);
-
-        glBindBuffer(GL_ARRAY_BUFFER, 0);
-        glBindVertexArray(0);
-    }
-
-    private void addCubeFaces(List<Float> pos, List<Float> col, int x, int y, int z, float[] c) {
-        // 6 faces: only add if neighbor is air/non-solid
-        if (!isSolid(x, y, z + 1)) addFace(pos, col, x, y, z, Face.FRONT, c);
-        if (!isSolid(x, y, z - 1)) addFace(pos, col, x, y, z, Face.BACK, c);
-        if (!isSolid(x - 1, y, z)) addFace(pos, col, x, y, z, Face.LEFT, c);
-        if (!isSolid(x + 1, y, z)) addFace(pos, col, x, y, z, Face.RIGHT, c);
-        if (!isSolid(x, y + 1, z)) addFace(pos, col, x, y, z, Face.TOP, c);
-        if (!isSolid(x, y - 1, z)) addFace(pos, col, x, y, z, Face.BOTTOM, c);
-    }
-
-    private enum Face { FRONT, BACK, LEFT, RIGHT, TOP, BOTTOM }
-
-    private void addFace(List<Float> pos, List<Float> col, int x, int y, int z, Face face, float[] c) {
-        // two triangles per face, 6 vertices
-        float x0 = x, x1 = x + 1;
-        float y0 = y, y1 = y + 1;
-        float z0 = z, z1 = z + 1;
-        switch (face) {
-            case FRONT: // z1
-                v(pos, x0,y0,z1); v(pos, x0,y1,z1); v(pos, x1,y1,z1);
-                v(pos, x1,y1,z1); v(pos, x1,y0,z1); v(pos, x0,y0,z1);
-                break;
-            case BACK: // z0
-                v(pos, x1,y0,z0); v(pos, x1,y1,z0); v(pos, x0,y1,z0);
-                v(pos, x0,y1,z0); v(pos, x0,y0,z0); v(pos, x1,y0,z0);
-                break;
-            case LEFT: // x0
-                v(pos, x0,y0,z0); v(pos, x0,y1,z0); v(pos, x0,y1,z1);
-                v(pos, x0,y1,z1); v(pos, x0,y0,z1); v(pos, x0,y0,z0);
-                break;
-            case RIGHT: // x1
-                v(pos, x1,y0,z1); v(pos, x1,y1,z1); v(pos, x1,y1,z0);
-                v(pos, x1,y1,z0); v(pos, x1,y0,z0); v(pos, x1,y0,z1);
-                break;
-            case TOP: // y1, CCW when viewed from above (+Y)
-                v(pos, x0,y1,z0); v(pos, x1,y1,z0); v(pos, x1,y1,z1);
-                v(pos, x1,y1,z1); v(pos, x0,y1,z1); v(pos, x0,y1,z0);
-                break;
-            case BOTTOM: // y0, CCW when viewed from below (-Y)
-                v(pos, x0,y0,z1); v(pos, x1,y0,z1); v(pos, x1,y0,z0);
-                v(pos, x1,y0,z0); v(pos, x0,y0,z0); v(pos, x0,y0,z1);
-                break;
+    public boolean sameBlocks(World other) {
+        for (int s = 0; s < SECTION_COUNT; s++) {
+            ShortBuffer a = slabs[s], b = other.slabs[s];
+            if (a == SlabPool.EMPTY && b == SlabPool.EMPTY) continue;
+            if (a == SlabPool.EMPTY || b == SlabPool.EMPTY || !SlabPool.same(a, b)) return false;
         }
-        for (int i = 0; i < 6; i++) addColor(col, c);
+        return true;
     }
 
-    private void v(List<Float> a, float x, float y, float z) { a.add(x); a.add(y); a.add(z); }
-    private void addColor(List<Float> a, float[] c) { a.add(c[0]); a.add(c[1]); a.add(c[2]); a.add(c[3]); }
-    private float[] toArray(List<Float> list) { float[] arr = new float[list.size()]; for (int i=0;i<arr.length;i++) arr[i]=list.get(i); return arr; }
+    // Sections holding a slab, i.e. with at least one non-air block.
+    public int getAllocatedSections() {
+        int n = 0;
+        for (ShortBuffer slab : slabs) if (slab != SlabPool.EMPTY) n++;
+        return n;
+    }
+
+    // Marks a section and all sections around it as changed after a bulk write to its blocks,
+    // and rescans the heightmap columns it covers from its top down.
+    void touchSection(int section) {
+        unsaved[section] = true;
+        int sx = section / (SECTIONS_Y * SECTIONS_Z);
+        int sy = (section / SECTIONS_Z) % SECTIONS_Y;
+        int sz = section % SECTIONS_Z;
+        // Tops above the section can't have changed; anything else is somewhere at or below its top.
+        int top = (sy + 1) * SECTION_SIZE - 1;
+        Heightmap h = heightmaps[chunkIndex(sx, sz)];
+        for (int x = sx * SECTION_SIZE; x < (sx + 1) * SECTION_SIZE; x++)
+            for (int z = sz * SECTION_SIZE; z < (sz + 1) * SECTION_SIZE; z++) {
+                int c = Heightmap.column(x, z);
+                if (h.solid[c] <= top) h.solid[c] = (short) scanDown(x, top, z, true);
+                if (h.lightBlocking[c] <= top) h.lightBlocking[c] = (short) scanDown(x, top, z, false);
+            }
+        bumpAround(sx, sy, sz);
+    }
 
-    private float[] colorFor(BlockType t) {
-        switch (t) {
-            case GRASS: return new float[]{0.4f,0.8f,0.3f,1f};
-            case DIRT: return new float[]{0.59f,0.39f,0.2f,1f};
-            case STONE: return new float[]{0.6f,0.6f,0.6f,1f};
-            case WOOD: return new float[]{0.5f,0.3f,0.1f,1f};
-            case LEAVES: return new float[]{0.2f,0.7f,0.2f,1.0f};
-            default: return new float[]{1f,1f,1f,1f};
+    // After a section was read from disk: remesh it, but its blocks are saved and the chunk's
+    // heightmap is loaded alongside.
+    void touchLoadedSection(int section) {
+        unsaved[section] = false;
+        bumpAround(section / (SECTIONS_Y * SECTIONS_Z), (section / SECTIONS_Z) % SECTIONS_Y, section % SECTIONS_Z);
+    }
+
+    private void bumpAround(int sx, int sy, int sz) {
+        for (int x = Math.max(0, sx - 1); x <= Math.min(SECTIONS_X - 1, sx + 1); x++)
+            for (int y = Math.max(0, sy - 1); y <= Math.min(SECTIONS_Y - 1, sy + 1); y++)
+                for (int z = Math.max(0, sz - 1); z <= Math.min(SECTIONS_Z - 1, sz + 1); z++)
+                    sectionVersions[sectionIndex(x, y, z)]++;
+    }
+
+    // Every id into dst in World.index() order, a z row at a time.
+    public void copyBlocks(short[] dst) {
+        for (int s = 0; s < SECTION_COUNT; s++) {
+            ShortBuffer slab = slabs[s];
+            int bx = (s / (SECTIONS_Y * SECTIONS_Z)) << SECTION_SHIFT;
+            int by = ((s / SECTIONS_Z) % SECTIONS_Y) << SECTION_SHIFT;
+            int bz = (s % SECTIONS_Z) << SECTION_SHIFT;
+            for (int x = bx; x < bx + SECTION_SIZE; x++)
+                for (int y = by; y < by + SECTION_SIZE; y++) {
+                    int row = index(x, y, bz);
+                    if (slab == SlabPool.EMPTY) {
+                        Arrays.fill(dst, row, row + SECTION_SIZE, (short) AIR);
+                        continue;
+                    }
+                    int l = local(x, y, bz);
+                    for (int z = 0; z < SECTION_SIZE; z++) dst[row + z] = SlabPool.get(slab, l + z);
+                }
         }
     }
 
-    public void render(ShaderProgram shaderProgram) {
-        glBindVertexArray(vaoId);
-        glEnableVertexAttribArray(0);
-        glEnableVertexAttribArray(1);
+    public static int sectionIndex(int sx, int sy, int sz) {
+        return (sx * SECTIONS_Y + sy) * SECTIONS_Z + sz;
+    }
 
-        Matrix4f modelMatrix = new Matrix4f();
-        shaderProgram.setUniform("modelMatrix", modelMatrix);
+    public static int chunkIndex(int cx, int cz) {
+        return cx * CHUNKS_Z + cz;
+    }
 
-        glDrawArrays(GL_TRIANGLES, 0, vertexCount);
+    public int getSectionVersion(int section) {
+        return sectionVersions[section];
+    }
+
+    public boolean isSectionUnsaved(int section) {
+        return unsaved[section];
+    }
 
-        glDisableVertexAttribArray(1);
-        glDisableVertexAttribArray(0);
-        glBindVertexArray(0);
+    public void markSectionSaved(int section) {
+        unsaved[section] = false;
     }
 
-    public void cleanup() {
-        glDisableVertexAttribArray(0);
-        if (vboPosId != 0) glDeleteBuffers(vboPosId);
-        if (vboColId != 0) glDeleteBuffers(vboColId);
-        if (vaoId != 0) glDeleteVertexArrays(vaoId);
+    // A block feeds face culling and AO of its 3x3x3 neighbourhood, which may span sections.
+    private void touchSections(int x, int y, int z) {
+        int sx0 = Math.max(0, (x - 1) >> SECTION_SHIFT), sx1 = Math.min(SECTIONS_X - 1, (x + 1) >> SECTION_SHIFT);
+        int sy0 = Math.max(0, (y - 1) >> SECTION_SHIFT), sy1 = Math.min(SECTIONS_Y - 1, (y + 1) >> SECTION_SHIFT);
+        int sz0 = Math.max(0, (z - 1) >> SECTION_SHIFT), sz1 = Math.min(SECTIONS_Z - 1, (z + 1) >> SECTION_SHIFT);
+        for (int sx = sx0; sx <= sx1; sx++)
+            for (int sy = sy0; sy <= sy1; sy++)
+                for (int sz = sz0; sz <= sz1; sz++)
+                    sectionVersions[sectionIndex(sx, sy, sz)]++;
     }
 
     // Raycast utility from origin along dir, returns hit block position and normal.
     public boolean raycast(Vector3f origin, Vector3f dir, float maxDist, Vector3f hit, Vector3f hitNormal) {
+        FlightEvents.Raycast event = FlightEvents.recording() ? new FlightEvents.Raycast() : null;
+        if (event != null) event.begin();
         // 3D DDA grid traversal
-        Vector3f pos = new Vector3f((float)Math.floor(origin.x), (float)Math.floor(origin.y), (float)Math.floor(origin.z));
+        int ix = (int) Math.floor(origin.x), iy = (int) Math.floor(origin.y), iz = (int) Math.floor(origin.z);
         int stepX = dir.x > 0 ? 1 : -1;
         int stepY = dir.y > 0 ? 1 : -1;
         int stepZ = dir.z > 0 ? 1 : -1;
@@ -248,21 +526,33 @@ public class World {
         float tDeltaY = stepY / dir.y;
         float tDeltaZ = stepZ / dir.z;
         float dist = 0f;
+        int steps = 0;
+        boolean found = false;
         while (dist <= maxDist) {
-            int ix = (int) pos.x, iy = (int) pos.y, iz = (int) pos.z;
             if (inBounds(ix, iy, iz) && isSolid(ix, iy, iz)) {
                 hit.set(ix, iy, iz);
-                return true;
+                found = true;
+                break;
             }
+            steps++;
             if (tMaxX < tMaxY) {
-                if (tMaxX < tMaxZ) { pos.x += stepX; dist = tMaxX; tMaxX += tDeltaX; if (hitNormal != null) hitNormal.set(-stepX,0,0);} 
-                else { pos.z += stepZ; dist = tMaxZ; tMaxZ += tDeltaZ; if (hitNormal != null) hitNormal.set(0,0,-stepZ);} 
+                if (tMaxX < tMaxZ) { ix += stepX; dist = tMaxX; tMaxX += tDeltaX; if (hitNormal != null) hitNormal.set(-stepX,0,0);} 
+                else { iz += stepZ; dist = tMaxZ; tMaxZ += tDeltaZ; if (hitNormal != null) hitNormal.set(0,0,-stepZ);} 
             } else {
-                if (tMaxY < tMaxZ) { pos.y += stepY; dist = tMaxY; tMaxY += tDeltaY; if (hitNormal != null) hitNormal.set(0,-stepY,0);} 
-                else { pos.z += stepZ; dist = tMaxZ; tMaxZ += tDeltaZ; if (hitNormal != null) hitNormal.set(0,0,-stepZ);} 
+                if (tMaxY < tMaxZ) { iy += stepY; dist = tMaxY; tMaxY += tDeltaY; if (hitNormal != null) hitNormal.set(0,-stepY,0);} 
+                else { iz += stepZ; dist = tMaxZ; tMaxZ += tDeltaZ; if (hitNormal != null) hitNormal.set(0,0,-stepZ);} 
+            }
+        }
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.maxDistance = maxDist;
+                event.hit = found;
+                event.steps = steps;
+                event.commit();
             }
         }
-        return false;
+        return found;
     }
 
     private float intBound(float s, float ds) {
@@ -0,0 +1,401 @@
+package com.games.simpleminecraft;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL30.*;
+
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+
+// Draws the world section by section: an opaque pass first, then translucent sections
+// back to front with blending. Sections are remeshed when their World version changes.
+//
+// Sections farther than lodDistances[L-1] from the camera are meshed at LOD level L (see
+// LodMesher). A section only changes level once it is LOD_HYSTERESIS blocks past a threshold,
+// so hovering around one doesn't remesh every frame.
+//
+// Only sections the OcclusionGraph reaches from the camera are drawn, which skips terrain
+// sealed off behind solid rock.
+//
+// Two knobs for QualityGovernor: sections beyond the render distance (with the same hysteresis)
+// are neither meshed nor drawn, and at most meshBudget sections are meshed and uploaded per
+// frame. Changed sections are rebuilt nearest first.
+//
+// Where the context supports it, uploads stream through an UploadManager capped at uploadBudget
+// bytes per frame. A mesh that doesn't fit is kept and uploaded first thing next frame, and
+// nothing farther away goes ahead of it.
+//
+// With a MeshCache, full-detail meshes of sections that haven't changed since the renderer was
+// created come from disk instead of the mesher. Edited sections are meshed as usual and not
+// cached, so play doesn't write to disk; all-air sections mesh faster than a lookup and skip it.
+public class WorldRenderer {
+    public static final float[] DEFAULT_LOD_DISTANCES = {64f, 128f, 256f};
+    public static final float LOD_HYSTERESIS = 4f;
+
+    private final World world;
+    private final Mesher mesher = new Mesher();
+    private final LodMesher lodMesher = new LodMesher();
+    private final SectionMesh[] meshes = new SectionMesh[World.SECTION_COUNT];
+    private final int[] meshedVersions = new int[World.SECTION_COUNT];
+    private final int[] meshedLevels = new int[World.SECTION_COUNT];
+    private final int[] lodLevels = new int[World.SECTION_COUNT];
+    private float[] lodDistances = DEFAULT_LOD_DISTANCES.clone();
+    private final boolean[] inRange = new boolean[World.SECTION_COUNT];
+    private float renderDistance = Float.POSITIVE_INFINITY;
+    private int meshBudget = Integer.MAX_VALUE;
+    private final float[] sectionNearest = new float[World.SECTION_COUNT];
+    private final int[] rebuildOrder = new int[World.SECTION_COUNT];
+
+    // Meshes built but not uploaded yet, valid while the section's version and level still match.
+    private final SectionMeshData[] unsent = new SectionMeshData[World.SECTION_COUNT];
+    private final int[] unsentVersions = new int[World.SECTION_COUNT];
+    private final int[] unsentLevels = new int[World.SECTION_COUNT];
+    private long uploadBudget = UploadManager.DEFAULT_BUDGET;
+    private UploadManager uploads;
+    private boolean uploadsChecked;
+    private long lastUploadBytes;
+    private MeshCache meshCache;
+    private boolean sortInline;
+    private final int[] initialVersions = new int[World.SECTION_COUNT];
+    private final OcclusionGraph occlusion = new OcclusionGraph();
+    private final int[] visibleSections = new int[World.SECTION_COUNT];
+    private final TranslucencySorter sorter = new TranslucencySorter();
+    private final Matrix4f modelMatrix = new Matrix4f();
+
+    // Translucent sections are drawn in this order, re-sorted every frame starting from the last one.
+    private final int[] drawOrder = new int[World.SECTION_COUNT];
+    private final float[] sectionDistance = new float[World.SECTION_COUNT];
+
+    private int cameraSectionX = Integer.MIN_VALUE;
+    private int cameraSectionY = Integer.MIN_VALUE;
+    private int cameraSectionZ = Integer.MIN_VALUE;
+
+    // Totals for the last render() call.
+    private int lastDrawCalls;
+    private int lastVertices;
+    private int lastVisibleSections;
+
+    // GPU bytes of each section's current mesh; uploads counted when metrics are registered.
+    private final long[] meshBytes = new long[World.SECTION_COUNT];
+    private long totalMeshBytes;
+    private Counter meshesUploaded;
+
+    public WorldRenderer(World world) {
+        this.world = world;
+        for (int i = 0; i < meshes.length; i++) {
+            meshes[i] = new SectionMesh();
+            meshedVersions[i] = -1;
+            drawOrder[i] = i;
+            initialVersions[i] = world.getSectionVersion(i);
+            inRange[i] = true;
+        }
+    }
+
+    // Distances (in blocks) beyond which sections drop to LOD level 1, 2, ...; ascending.
+    public void setLodDistances(float... distances) {
+        if (distances.length > LodMesher.MAX_LEVEL) throw new IllegalArgumentException("At most " + LodMesher.MAX_LEVEL + " LOD distances");
+        for (int i = 1; i < distances.length; i++) {
+            if (distances[i] <= distances[i - 1]) throw new IllegalArgumentException("LOD distances must be ascending");
+        }
+        lodDistances = distances.clone();
+        for (int i = 0; i < lodLevels.length; i++) lodLevels[i] = Math.min(lodLevels[i], distances.length);
+    }
+
+    // Blocks from the camera to a section's nearest point; infinite draws everything.
+    public void setRenderDistance(float distance) {
+        if (!(distance > 0)) throw new IllegalArgumentException("Render distance must be positive");
+        renderDistance = distance;
+    }
+
+    // Sections (re)meshed and uploaded per render() at most; Integer.MAX_VALUE for no limit.
+    public void setMeshBudget(int sections) {
+        if (sections < 1) throw new IllegalArgumentException("Mesh budget must be at least one section");
+        meshBudget = sections;
+    }
+
+    // Bytes uploaded per frame at most (one mesh larger than that still goes alone). Set before the
+    // first render() to size the staging buffer; later calls can only lower it.
+    public void setUploadBudget(long bytes) {
+        if (bytes <= 0) throw new IllegalArgumentException("Upload budget must be positive");
+        uploadBudget = bytes;
+        if (uploads != null) uploads.setBudget(bytes);
+    }
+
+    // null turns it off.
+    public void setMeshCache(MeshCache cache) {
+        meshCache = cache;
+    }
+
+    // Sorts translucent quads on the render thread, so the order a frame draws in depends only on
+    // the camera and not on when the sorter thread finishes. For reproducible captures.
+    public void setSortInline(boolean inline) {
+        sortInline = inline;
+    }
+
+    public void render(ShaderProgram shaderProgram, Vector3f cameraPos) {
+        updateLodLevels(cameraPos);
+        rebuildChangedSections(cameraPos);
+        applySortResults();
+
+        // Quad order within a section only needs refreshing once the camera enters another section.
+        int csx = (int) Math.floor(cameraPos.x) >> World.SECTION_SHIFT;
+        int csy = (int) Math.floor(cameraPos.y) >> World.SECTION_SHIFT;
+        int csz = (int) Math.floor(cameraPos.z) >> World.SECTION_SHIFT;
+        if (csx != cameraSectionX || csy != cameraSectionY || csz != cameraSectionZ) {
+            cameraSectionX = csx;
+            cameraSectionY = csy;
+            cameraSectionZ = csz;
+            for (int i = 0; i < meshes.length; i++) {
+                if (meshes[i].hasTranslucent()) requestSort(i, cameraPos);
+            }
+        }
+
+        shaderProgram.setUniform("modelMatrix", modelMatrix.identity());
+        glEnableVertexAttribArray(0);
+        glEnableVertexAttribArray(1);
+
+        occlusion.update(world);
+        int visibleCount = occlusion.findVisible(world, cameraPos.x, cameraPos.y, cameraPos.z, visibleSections);
+        lastVisibleSections = visibleCount;
+        lastDrawCalls = 0;
+        lastVertices = 0;
+        for (int k = 0; k < visibleCount; k++) {
+            int i = visibleSections[k];
+            if (inRange[i]) count(meshes[i].drawOpaque());
+        }
+
+        // Translucent pass: farthest section first, no depth writes so nothing behind gets cut.
+        orderSectionsBackToFront(cameraPos);
+        glEnable(GL_BLEND);
+        glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
+        glDepthMask(false);
+        for (int i : drawOrder) {
+            if (inRange[i] && occlusion.isVisible(i)) count(meshes[i].drawTranslucent());
+        }
+        glDepthMask(true);
+        glDisable(GL_BLEND);
+
+        glBindVertexArray(0);
+        // The frame's draws are issued: meshes missed this frame can go to disk now.
+        if (meshCache != null) meshCache.writePending();
+    }
+
+    private void count(int vertices) {
+        if (vertices == 0) return;
+        lastDrawCalls++;
+        lastVertices += vertices;
+    }
+
+    // render.vertices, render.triangles, render.drawCalls and render.sections for the last frame;
+    // mesh.uploaded, mesh.pending (sections edited since they were last meshed) and mesh.bytes.
+    public void registerMetrics(MetricsRegistry metrics) {
+        meshesUploaded = metrics.counter("mesh.uploaded");
+        metrics.gauge("render.vertices", () -> lastVertices);
+        metrics.gauge("render.triangles", () -> lastVertices / 3);
+        metrics.gauge("render.drawCalls", () -> lastDrawCalls);
+        metrics.gauge("render.sections", () -> lastVisibleSections);
+        metrics.gauge("mesh.bytes", () -> totalMeshBytes);
+        metrics.gauge("mesh.pending", this::pendingMeshes);
+        metrics.gauge("upload.bytes", () -> lastUploadBytes);
+        metrics.gauge("upload.blockedFrames", () -> uploads != null ? uploads.getBlockedFrames() : 0);
+    }
+
+    private int pendingMeshes() {
+        int pending = 0;
+        for (int i = 0; i < meshedVersions.length; i++) {
+            if (world.getSectionVersion(i) != meshedVersions[i]) pending++;
+        }
+        return pending;
+    }
+
+    public int getLastDrawCalls() {
+        return lastDrawCalls;
+    }
+
+    public int getLastVertices() {
+        return lastVertices;
+    }
+
+    public long getLastUploadBytes() {
+        return lastUploadBytes;
+    }
+
+    private void rebuildChangedSections(Vector3f cameraPos) {
+        if (!uploadsChecked) {
+            uploadsChecked = true;
+            if (UploadManager.isSupported()) uploads = new UploadManager(uploadBudget);
+        }
+        if (uploads != null) uploads.beginFrame();
+        lastUploadBytes = 0;
+
+        int dirty = 0;
+        for (int i = 0; i < meshes.length; i++) {
+            if (inRange[i] && (world.getSectionVersion(i) != meshedVersions[i] || lodLevels[i] != meshedLevels[i])) rebuildOrder[dirty++] = i;
+        }
+        // Insertion sort, nearest first: there are few of them.
+        for (int k = 1; k < dirty; k++) {
+            int s = rebuildOrder[k];
+            int j = k - 1;
+            while (j >= 0 && sectionNearest[rebuildOrder[j]] > sectionNearest[s]) {
+                rebuildOrder[j + 1] = rebuildOrder[j];
+                j--;
+            }
+            rebuildOrder[j + 1] = s;
+        }
+
+        int built = 0;
+        for (; built < dirty && built < meshBudget; built++) {
+            int i = rebuildOrder[built];
+            int version = world.getSectionVersion(i);
+            int level = lodLevels[i];
+            SectionMeshData data = unsent[i] != null && unsentVersions[i] == version && unsentLevels[i] == level
+                    ? unsent[i] : build(i, level);
+            unsent[i] = null;
+            UploadManager staged = uploads;
+            if (uploads != null) {
+                long bytes = SectionMesh.stagingBytes(data);
+                if (bytes > uploads.getBudget() && uploads.takeFrame(bytes)) {
+                    staged = null; // too big to stage: goes directly, alone in this frame
+                } else if (!uploads.fits(bytes)) {
+                    unsent[i] = data;
+                    unsentVersions[i] = version;
+                    unsentLevels[i] = level;
+                    break;
+                }
+            }
+            upload(i, data, staged);
+            meshedVersions[i] = version;
+            meshedLevels[i] = level;
+        }
+        if (uploads != null) uploads.endFrame();
+        // After endFrame: its staging copies would otherwise overwrite an inline sort's indices
+        // with the unsorted ones the meshes were uploaded with.
+        for (int k = 0; k < built; k++) {
+            if (meshes[rebuildOrder[k]].hasTranslucent()) requestSort(rebuildOrder[k], cameraPos);
+        }
+    }
+
+    private SectionMeshData build(int i, int level) {
+        if (meshCache == null || level != 0 || world.getSectionVersion(i) != initialVersions[i] || world.sectionSlab(i) == null) return mesh(i, level);
+        SectionMeshData data = meshCache.load(world, i);
+        if (data == null) {
+            data = mesh(i, level);
+            meshCache.store(world, i, data);
+        }
+        return data;
+    }
+
+    private SectionMeshData mesh(int i, int level) {
+        int sx = i / (World.SECTIONS_Y * World.SECTIONS_Z);
+        int sy = (i / World.SECTIONS_Z) % World.SECTIONS_Y;
+        int sz = i % World.SECTIONS_Z;
+        FlightEvents.MeshBuild build = FlightEvents.recording() ? new FlightEvents.MeshBuild() : null;
+        if (build != null) build.begin();
+        SectionMeshData data = level == 0 ? mesher.build(world, sx, sy, sz) : lodMesher.build(world, sx, sy, sz, level);
+        if (build != null) {
+            build.end();
+            if (build.shouldCommit()) {
+                build.sectionX = sx;
+                build.sectionY = sy;
+                build.sectionZ = sz;
+                build.lodLevel = level;
+                build.opaqueVertices = data.opaque.vertexCount;
+                build.translucentVertices = data.translucent.vertexCount;
+                build.commit();
+            }
+        }
+        return data;
+    }
+
+    private void upload(int i, SectionMeshData data, UploadManager staged) {
+        FlightEvents.MeshUpload upload = FlightEvents.recording() ? new FlightEvents.MeshUpload() : null;
+        if (upload != null) upload.begin();
+        meshes[i].upload(data, staged);
+        totalMeshBytes += data.uploadBytes() - meshBytes[i];
+        meshBytes[i] = data.uploadBytes();
+        lastUploadBytes += data.uploadBytes();
+        if (meshesUploaded != null) meshesUploaded.increment();
+        if (upload != null) {
+            upload.end();
+            if (upload.shouldCommit()) {
+                upload.sectionX = i / (World.SECTIONS_Y * World.SECTIONS_Z);
+                upload.sectionY = (i / World.SECTIONS_Z) % World.SECTIONS_Y;
+                upload.sectionZ = i % World.SECTIONS_Z;
+                upload.bytes = data.uploadBytes();
+                upload.commit();
+            }
+        }
+    }
+
+    private void updateLodLevels(Vector3f cameraPos) {
+        for (int i = 0; i < lodLevels.length; i++) {
+            int sx = i / (World.SECTIONS_Y * World.SECTIONS_Z);
+            int sy = (i / World.SECTIONS_Z) % World.SECTIONS_Y;
+            int sz = i % World.SECTIONS_Z;
+            // Distance to the nearest point of the section's box.
+            float dx = axisDistance(cameraPos.x, sx * World.SECTION_SIZE);
+            float dy = axisDistance(cameraPos.y, sy * World.SECTION_SIZE);
+            float dz = axisDistance(cameraPos.z, sz * World.SECTION_SIZE);
+            float d = (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+            sectionNearest[i] = d;
+            int level = lodLevels[i];
+            while (level < lodDistances.length && d > lodDistances[level] + LOD_HYSTERESIS) level++;
+            while (level > 0 && d < lodDistances[level - 1] - LOD_HYSTERESIS) level--;
+            lodLevels[i] = level;
+            if (d > renderDistance + LOD_HYSTERESIS) inRange[i] = false;
+            else if (d < renderDistance - LOD_HYSTERESIS) inRange[i] = true;
+        }
+    }
+
+    private static float axisDistance(float p, int min) {
+        return p < min ? min - p : p > min + World.SECTION_SIZE ? p - (min + World.SECTION_SIZE) : 0f;
+    }
+
+    private void requestSort(int section, Vector3f cameraPos) {
+        SectionMesh mesh = meshes[section];
+        if (sortInline) {
+            mesh.uploadIndices(TranslucencySorter.sortBackToFront(mesh.getTranslucentIndices(), mesh.getQuadCenters(),
+                    cameraPos.x, cameraPos.y, cameraPos.z));
+            return;
+        }
+        sorter.submit(section, mesh.getGeneration(), mesh.getTranslucentIndices(), mesh.getQuadCenters(),
+                cameraPos.x, cameraPos.y, cameraPos.z);
+    }
+
+    private void applySortResults() {
+        TranslucencySorter.Result r;
+        while ((r = sorter.poll()) != null) {
+            SectionMesh mesh = meshes[r.section];
+            if (mesh.getGeneration() == r.generation) mesh.uploadIndices(r.indices);
+        }
+    }
+
+    private void orderSectionsBackToFront(Vector3f cameraPos) {
+        float half = World.SECTION_SIZE * 0.5f;
+        for (int i = 0; i < drawOrder.length; i++) {
+            int sx = i / (World.SECTIONS_Y * World.SECTIONS_Z);
+            int sy = (i / World.SECTIONS_Z) % World.SECTIONS_Y;
+            int sz = i % World.SECTIONS_Z;
+            float dx = sx * World.SECTION_SIZE + half - cameraPos.x;
+            float dy = sy * World.SECTION_SIZE + half - cameraPos.y;
+            float dz = sz * World.SECTION_SIZE + half - cameraPos.z;
+            sectionDistance[i] = dx * dx + dy * dy + dz * dz;
+        }
+        // Insertion sort over last frame's order: the camera moves little between frames, so
+        // this is close to one pass over an already sorted array.
+        for (int i = 1; i < drawOrder.length; i++) {
+            int s = drawOrder[i];
+            int j = i - 1;
+            while (j >= 0 && sectionDistance[drawOrder[j]] < sectionDistance[s]) {
+                drawOrder[j + 1] = drawOrder[j];
+                j--;
+            }
+            drawOrder[j + 1] = s;
+        }
+    }
+
+    public void cleanup() {
+        sorter.shutdown();
+        if (uploads != null) uploads.cleanup();
+        for (SectionMesh mesh : meshes) mesh.cleanup();
+    }
+}
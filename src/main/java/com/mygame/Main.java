@@ -35,6 +35,7 @@ public class Main {
     private Matrix4f projectionMatrix;
     private double lastX, lastY;
     private boolean firstMouse = true;
+    private final float[] blockColor = new float[4];
     
     public void run() {
         init();
@@ -274,7 +275,7 @@ public class Main {
         };
         
         // Get block color
-        float[] color = block.getType().getColor();
+        float[] color = block.getType().getColor(blockColor);
         
         // Create color array (same color for all vertices)
         float[] colors = new float[vertices.length / 3 * 4];
@@ -37,8 +37,12 @@ public class Block {
             this.a = a;
         }
         
-        public float[] getColor() {
-            return new float[]{r, g, b, a};
+        public float[] getColor(float[] out) {
+            out[0] = r;
+            out[1] = g;
+            out[2] = b;
+            out[3] = a;
+            return out;
         }
     }
 }